@@ -0,0 +1,118 @@
+package Backtester.caches;
+
+import Backtester.objects.BarFingerprint;
+import Backtester.objects.valueaccumulator.ValueAccumulator;
+import Backtester.objects.valueaccumulator.key.ValueAccumulatorKey;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide cache of indicator warm-up states and precomputed indicator series, keyed by the fingerprint of the
+ * bars they were computed from and the accumulator key. Runs over the same data, such as the permutations of a
+ * Monte Carlo run sharing their lookback bars, or repeated backtests of a symbol, reuse them instead of recomputing.
+ * <p>
+ * Bounded by an estimated size in bytes, the least recently used entries are evicted first. Thread safe.
+ */
+public class IndicatorStateCache {
+
+    public static final long DEFAULT_MAX_WEIGHT = 64L << 20;
+    private static final long STATE_WEIGHT = 1024; // Warm-up states are small, they are weighed at a flat estimate
+    private static final IndicatorStateCache SHARED = new IndicatorStateCache(DEFAULT_MAX_WEIGHT);
+
+    private final long maxWeight;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+
+    public IndicatorStateCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public static IndicatorStateCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns an accumulator warmed up on the bars with the given fingerprint. A cached state is copied, otherwise
+     * the accumulator is created and a copy of it cached. Accumulators reading other accumulators are never cached,
+     * their inputs belong to the run that created them.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends ValueAccumulator<?>> T warmUp(BarFingerprint bars, ValueAccumulatorKey key, Supplier<T> create) {
+        Key cacheKey = new Key(bars, key, true);
+        ValueAccumulator<?> state = (ValueAccumulator<?>) get(cacheKey);
+        if (state != null) return (T) state.copy();
+        T created = create.get();
+        if (created.inputs().isEmpty()) put(cacheKey, created.copy(), STATE_WEIGHT);
+        return created;
+    }
+
+    /**
+     * Returns the series for the bars with the given fingerprint, computing it on a miss. Series are shared and must
+     * not be modified. Null results are not cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T series(BarFingerprint bars, ValueAccumulatorKey key, Supplier<T> compute) {
+        Key cacheKey = new Key(bars, key, false);
+        T series = (T) get(cacheKey);
+        if (series != null) return series;
+        series = compute.get();
+        if (series != null) put(cacheKey, series, weigh(series));
+        return series;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    private synchronized Object get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    // Computed outside the lock, so concurrent misses may compute the same value and the last one wins
+    private synchronized void put(Key key, Object value, long valueWeight) {
+        if (valueWeight > maxWeight) return;
+        Entry previous = entries.put(key, new Entry(value, valueWeight));
+        if (previous != null) weight -= previous.weight;
+        weight += valueWeight;
+        var iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            weight -= iterator.next().weight;
+            iterator.remove();
+        }
+    }
+
+    private static long weigh(Object series) {
+        return switch (series) {
+            case double[] values -> 16 + 8L * values.length;
+            case BitSet bits -> 16 + bits.size() / 8;
+            default -> STATE_WEIGHT;
+        };
+    }
+
+    private record Key(BarFingerprint bars, ValueAccumulatorKey key, boolean state) {}
+
+    private record Entry(Object value, long weight) {}
+}
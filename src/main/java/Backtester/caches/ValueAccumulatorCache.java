@@ -1,38 +1,87 @@
 package Backtester.caches;
 
 import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
 import Backtester.objects.valueaccumulator.ValueAccumulator;
 import Backtester.objects.valueaccumulator.key.ValueAccumulatorKey;
 import com.google.inject.Singleton;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 /**
- * In memory cache, does not read anything from database
+ * In memory cache, does not read anything from database.
+ * <p>
+ * Every accumulator gets a dense id when it is put, and accumulators are rolled in id order from an array. Inputs
+ * have to be cached before the accumulators that read them, so inputs are always rolled first and a composite
+ * accumulator sees their updated values.
  */
 @Singleton
 public class ValueAccumulatorCache {
 
-    private Map<ValueAccumulatorKey, ValueAccumulator<?>> valueAccumulators = new HashMap<>();
+    private final Map<ValueAccumulatorKey, Integer> ids = new HashMap<>();
+    private final Set<ValueAccumulator<?>> registered = Collections.newSetFromMap(new IdentityHashMap<>());
+    private ValueAccumulator<?>[] valueAccumulators = new ValueAccumulator<?>[8];
+    private int size;
 
     public boolean contains(ValueAccumulatorKey key) {
-        return valueAccumulators.containsKey(key);
+        return ids.containsKey(key);
     }
 
     public void put(ValueAccumulatorKey valueAccumulatorKey, ValueAccumulator<?> valueAccumulator) {
-        valueAccumulators.put(valueAccumulatorKey, valueAccumulator);
+        for (ValueAccumulator<?> input : valueAccumulator.inputs()) {
+            if (!registered.contains(input)) throw new RuntimeException("Inputs of " + valueAccumulatorKey.getValueAccumulatorType() + " must be cached first");
+        }
+        Integer id = ids.get(valueAccumulatorKey);
+        if (id != null) {
+            registered.remove(valueAccumulators[id]);
+        } else {
+            id = size++;
+            if (id == valueAccumulators.length) valueAccumulators = Arrays.copyOf(valueAccumulators, id * 2);
+            ids.put(valueAccumulatorKey, id);
+        }
+        valueAccumulators[id] = valueAccumulator;
+        registered.add(valueAccumulator);
     }
 
+    /**
+     * @return the cached accumulator, or null if there is none
+     */
     public ValueAccumulator<?> getValueAccumulator(ValueAccumulatorKey key) {
-        return valueAccumulators.get(key);
+        Integer id = ids.get(key);
+        return id == null ? null : valueAccumulators[id];
+    }
+
+    /**
+     * @return the id of the cached accumulator, or -1 if there is none
+     */
+    public int idOf(ValueAccumulatorKey key) {
+        return ids.getOrDefault(key, -1);
+    }
+
+    public ValueAccumulator<?> get(int id) {
+        return valueAccumulators[id];
+    }
+
+    public int size() {
+        return size;
     }
 
     public void roll(Bar bar) {
-        valueAccumulators.values().forEach(va -> va.roll(bar));
+        for (int i = 0; i < size; i++) {
+            valueAccumulators[i].roll(bar);
+        }
+    }
+
+    public void roll(BarSeries bars, int index) {
+        for (int i = 0; i < size; i++) {
+            valueAccumulators[i].roll(bars, index);
+        }
     }
 
     public void reset() {
-        valueAccumulators = new HashMap<>();
+        ids.clear();
+        registered.clear();
+        Arrays.fill(valueAccumulators, 0, size, null);
+        size = 0;
     }
-} 
\ No newline at end of file
+}
@@ -1,7 +1,5 @@
 package Backtester.objects;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 
 public class Bar {
@@ -15,12 +13,17 @@ public class Bar {
     public final long volume;
 
     public Bar(int index, LocalDate date, double open, double high, double low, double close, long volume) {
+        this(index, date, open, high, low, close, volume, PriceRounding.CENTS);
+    }
+
+    public Bar(int index, LocalDate date, double open, double high, double low, double close, long volume,
+               PriceRounding rounding) {
         this.index = index;
         this.date = date;
-        this.open = BigDecimal.valueOf(open).setScale(2, RoundingMode.HALF_UP).doubleValue();
-        this.high = BigDecimal.valueOf(high).setScale(2, RoundingMode.HALF_UP).doubleValue();
-        this.low = BigDecimal.valueOf(low).setScale(2, RoundingMode.HALF_UP).doubleValue();
-        this.close = BigDecimal.valueOf(close).setScale(2, RoundingMode.HALF_UP).doubleValue();
+        this.open = rounding.round(open);
+        this.high = rounding.round(high);
+        this.low = rounding.round(low);
+        this.close = rounding.round(close);
         this.volume = volume;
     }
 
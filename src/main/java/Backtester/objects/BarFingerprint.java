@@ -0,0 +1,64 @@
+package Backtester.objects;
+
+import java.util.List;
+
+/**
+ * 128-bit hash of the contents of one or more bar series, used to recognise identical data across runs without
+ * holding on to the bars. Bars are identified by their position, date and prices, not by their index field. Two
+ * independent 64-bit mixes keep accidental collisions out of reach.
+ */
+public record BarFingerprint(int size, long first, long second) {
+
+    /**
+     * Fingerprint of one or more series, where the split between them counts: (a, b + c) differs from (a + b, c).
+     */
+    @SafeVarargs
+    public static BarFingerprint of(List<Bar>... parts) {
+        long[] hash = {0x243F6A8885A308D3L, 0x13198A2E03707344L};
+        int size = 0;
+        for (List<Bar> part : parts) {
+            mix(hash, part.size());
+            if (part instanceof BarSeries series) {
+                for (int i = 0; i < series.size(); i++) {
+                    mix(hash, series.epochDays[i], series.open[i], series.high[i], series.low[i], series.close[i],
+                            series.volume[i]);
+                }
+            } else {
+                for (Bar bar : part) {
+                    mix(hash, bar.date.toEpochDay(), bar.open, bar.high, bar.low, bar.close, bar.volume);
+                }
+            }
+            size += part.size();
+        }
+        return new BarFingerprint(size, hash[0], hash[1]);
+    }
+
+    private static void mix(long[] hash, long epochDay, double open, double high, double low, double close, long volume) {
+        mix(hash, epochDay);
+        mix(hash, Double.doubleToLongBits(open));
+        mix(hash, Double.doubleToLongBits(high));
+        mix(hash, Double.doubleToLongBits(low));
+        mix(hash, Double.doubleToLongBits(close));
+        mix(hash, volume);
+    }
+
+    private static void mix(long[] hash, long value) {
+        hash[0] = mixFirst(hash[0], value);
+        hash[1] = mixSecond(hash[1], value);
+    }
+
+    private static long mixFirst(long hash, long value) {
+        return Long.rotateLeft(hash ^ stafford(value), 27) * 0x9E3779B97F4A7C15L + 0x52DCE729L;
+    }
+
+    private static long mixSecond(long hash, long value) {
+        return (hash + stafford(value ^ 0xC2B2AE3D27D4EB4FL)) * 0xFF51AFD7ED558CCDL;
+    }
+
+    // SplitMix64 finalizer
+    private static long stafford(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,97 @@
+package Backtester.objects;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Bars stored column by column, which is how runs read them. Bar i of a series has index i. As a list it hands out
+ * {@link Bar} views, created on every access, for the UI and for trades; the hot paths read the columns instead.
+ * <p>
+ * Columns are shared, not copied, between series derived from one another and must not be modified.
+ */
+public final class BarSeries extends AbstractList<Bar> implements RandomAccess {
+
+    public final double[] open;
+    public final double[] high;
+    public final double[] low;
+    public final double[] close;
+    public final long[] volume;
+    public final int[] epochDays;
+
+    /**
+     * Takes ownership of the columns, which must have the same length and hold prices already rounded like a
+     * {@link Bar}'s.
+     */
+    public BarSeries(double[] open, double[] high, double[] low, double[] close, long[] volume, int[] epochDays) {
+        int n = close.length;
+        if (open.length != n || high.length != n || low.length != n || volume.length != n || epochDays.length != n) {
+            throw new IllegalArgumentException("Columns of a bar series must have the same length");
+        }
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+        this.epochDays = epochDays;
+    }
+
+    /**
+     * @return the bars as a series, the same instance if they already are one
+     */
+    public static BarSeries of(List<Bar> bars) {
+        if (bars instanceof BarSeries series) return series;
+        int n = bars.size();
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        long[] volume = new long[n];
+        int[] epochDays = new int[n];
+        int i = 0;
+        for (Bar bar : bars) {
+            open[i] = bar.open;
+            high[i] = bar.high;
+            low[i] = bar.low;
+            close[i] = bar.close;
+            volume[i] = bar.volume;
+            epochDays[i] = (int) bar.date.toEpochDay();
+            i++;
+        }
+        return new BarSeries(open, high, low, close, volume, epochDays);
+    }
+
+    public LocalDate date(int index) {
+        return LocalDate.ofEpochDay(epochDays[index]);
+    }
+
+    @Override
+    public Bar get(int index) {
+        return new Bar(index, date(index), open[index], high[index], low[index], close[index], volume[index],
+                PriceRounding.NONE);
+    }
+
+    @Override
+    public int size() {
+        return close.length;
+    }
+
+    /**
+     * Series are equal when their columns are, views are never equal to each other.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BarSeries that)) return false;
+        return Arrays.equals(close, that.close) && Arrays.equals(open, that.open) && Arrays.equals(high, that.high)
+                && Arrays.equals(low, that.low) && Arrays.equals(volume, that.volume)
+                && Arrays.equals(epochDays, that.epochDays);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(close) + Arrays.hashCode(epochDays);
+    }
+}
@@ -1,9 +1,23 @@
 package Backtester.objects;
 
-import Backtester.script.statements.expressions.FunctionCall;
 import Backtester.script.statements.Statement;
+import Backtester.script.statements.expressions.ScriptVariable;
 
 import java.util.List;
 import java.util.Set;
 
-public record CompiledScript(List<Statement> statements, Set<String> functionCalls) {}
+/**
+ * Parsed script. Variables are listed in slot order.
+ */
+public record CompiledScript(List<Statement> statements, Set<String> functionCalls, List<ScriptVariable> variables) {
+
+    /**
+     * Fails if the script reads a variable that is never assigned, so the error surfaces before the run
+     * rather than as a null value on some later bar.
+     */
+    public void checkVariablesDeclared() {
+        for (ScriptVariable variable : variables) {
+            if (!variable.isDeclared()) throw new RuntimeException("Unknown variable '" + variable.name + "'");
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package Backtester.objects;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Rounds prices to a whole number of ticks, half up, with the same result as rounding
+ * {@code BigDecimal.valueOf(price)} to the tick. That decimal is the shortest one that identifies the double, so a
+ * price like 1.005, stored as 1.00499999..., still rounds up to 1.01.
+ * <p>
+ * The fast path scales the price by a power of ten and rounds the integer part. Only when the scaled fraction is
+ * too close to a half to tell which side the decimal lies on, or the price is too large to scale exactly, does it
+ * fall back to BigDecimal. Dividing the exact tick count by the exact power of ten then gives the same double as
+ * {@link BigDecimal#doubleValue()}.
+ */
+public final class PriceRounding {
+
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private static final double MAX_EXACT = 0x1p52; // Above this scaled prices have no fraction to round
+    private static final double TIE_MARGIN = 0x1p-40; // Relative to the scaled price, far above its rounding error
+
+    private static final long NO_FAST_PATH = Long.MIN_VALUE;
+
+    public static final PriceRounding CENTS = new PriceRounding(new BigDecimal("0.01"));
+    public static final PriceRounding NONE = new PriceRounding(null); // For prices that are already rounded
+
+    private final BigDecimal tickSize;
+    private final long tickUnits; // Tick size in units of 10^-scale
+    private final double scale; // 10^scale
+
+    public PriceRounding(BigDecimal tickSize) {
+        this.tickSize = tickSize;
+        if (tickSize == null) {
+            this.tickUnits = 1;
+            this.scale = 1;
+            return;
+        }
+        if (tickSize.signum() <= 0) throw new IllegalArgumentException("Tick size must be positive");
+        BigDecimal stripped = tickSize.stripTrailingZeros();
+        int digits = Math.max(stripped.scale(), 0);
+        if (digits >= POWERS_OF_TEN.length) throw new IllegalArgumentException("Tick size has too many decimals");
+        this.tickUnits = stripped.movePointRight(digits).longValueExact();
+        this.scale = POWERS_OF_TEN[digits];
+    }
+
+    public static PriceRounding of(String tickSize) {
+        return new PriceRounding(new BigDecimal(tickSize.trim()));
+    }
+
+    /**
+     * @return the tick size, or null if prices are not rounded
+     */
+    public BigDecimal getTickSize() {
+        return tickSize;
+    }
+
+    public double round(double price) {
+        if (tickSize == null) return price;
+        long ticks = fastTicks(price);
+        if (ticks == NO_FAST_PATH) {
+            return BigDecimal.valueOf(price).divide(tickSize, 0, RoundingMode.HALF_UP).multiply(tickSize).doubleValue();
+        }
+        return fromTicks(ticks); // A whole zero, never the negative zero BigDecimal cannot produce
+    }
+
+    /**
+     * @return the price as a whole number of ticks, rounded half up
+     */
+    public long toTicks(double price) {
+        if (tickSize == null) throw new IllegalStateException("Prices are not rounded to ticks");
+        long ticks = fastTicks(price);
+        if (ticks == NO_FAST_PATH) {
+            return BigDecimal.valueOf(price).divide(tickSize, 0, RoundingMode.HALF_UP).longValueExact();
+        }
+        return ticks;
+    }
+
+    public double fromTicks(long ticks) {
+        if (tickSize == null) throw new IllegalStateException("Prices are not rounded to ticks");
+        return (double) (ticks * tickUnits) / scale; // Exact numerator and divisor, so correctly rounded
+    }
+
+    private long fastTicks(double price) {
+        double scaled = Math.abs(price) * scale;
+        if (!(scaled < MAX_EXACT)) return NO_FAST_PATH; // Also NaN, which BigDecimal rejects
+        double units = scaled / tickUnits;
+        double whole = Math.floor(units);
+        double fraction = units - whole;
+        if (Math.abs(fraction - 0.5) <= units * TIE_MARGIN + 0x1p-60) return NO_FAST_PATH;
+        long ticks = (long) whole + (fraction > 0.5 ? 1 : 0);
+        return price < 0 ? -ticks : ticks;
+    }
+}
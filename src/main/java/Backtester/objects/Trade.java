@@ -77,9 +77,16 @@ public class Trade {
     }
 
     public double openPnL(Bar currentBar) {
+        return openPnL(currentBar.open);
+    }
+
+    /**
+     * @param currentPrice open of the current bar
+     */
+    public double openPnL(double currentPrice) {
         if (exit.isPresent()) return 0;
         double entryValue = entry.open * quantity;
-        double currentValue = currentBar.open * quantity;
+        double currentValue = currentPrice * quantity;
         int sign = isLong() ? 1 : -1;
         return sign * (currentValue - entryValue);
     }
@@ -0,0 +1,71 @@
+package Backtester.objects.valueaccumulator;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+
+import java.util.List;
+
+/**
+ * Average true range, with Wilder's smoothing of the true range.
+ */
+public class AtrCalculator extends StreamingIndicator {
+
+    public final int numDays;
+    private final ExponentialAverage average;
+    private double previousClose = Double.NaN;
+
+    public AtrCalculator(int numDays, List<Bar> initialValues) {
+        if (numDays <= 0) throw new IllegalArgumentException();
+        this.numDays = numDays;
+        this.average = new ExponentialAverage(numDays, true);
+        for (Bar bar : initialValues) {
+            roll(bar);
+        }
+        checkWarmUp(average.isReady());
+    }
+
+    private AtrCalculator(AtrCalculator other) {
+        this.numDays = other.numDays;
+        this.average = new ExponentialAverage(other.average);
+        this.previousClose = other.previousClose;
+    }
+
+    @Override
+    public void roll(Bar latest) {
+        add(latest.high, latest.low, latest.close);
+    }
+
+    @Override
+    public void roll(BarSeries bars, int index) {
+        add(bars.high[index], bars.low[index], bars.close[index]);
+    }
+
+    private void add(double high, double low, double close) {
+        if (!Double.isNaN(previousClose)) {
+            double trueRange = Math.max(high - low,
+                    Math.max(Math.abs(high - previousClose), Math.abs(low - previousClose)));
+            average.add(trueRange);
+        }
+        previousClose = close;
+    }
+
+    @Override
+    public double getDouble() {
+        return average.get();
+    }
+
+    @Override
+    public ValueAccumulatorType getType() {
+        return ValueAccumulatorType.ATR;
+    }
+
+    @Override
+    public double[] getSettings() {
+        return new double[] {numDays};
+    }
+
+    @Override
+    public AtrCalculator copy() {
+        return new AtrCalculator(this);
+    }
+}
@@ -0,0 +1,77 @@
+package Backtester.objects.valueaccumulator;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+
+import java.util.List;
+
+/**
+ * Upper or lower Bollinger band: the rolling mean of the close plus or minus a multiple of its standard deviation.
+ * The deviation is either private to the band or a shared input that is rolled before it.
+ */
+public class BollingerBandCalculator extends StreamingIndicator {
+
+    public final int numDays;
+    public final double multiplier;
+    public final boolean upper;
+    private final StandardDeviationCalculator deviation;
+    private final boolean ownsDeviation;
+
+    public BollingerBandCalculator(int numDays, double multiplier, boolean upper, List<Bar> initialValues) {
+        this(new StandardDeviationCalculator(numDays, initialValues), multiplier, upper, true);
+    }
+
+    public BollingerBandCalculator(StandardDeviationCalculator deviation, double multiplier, boolean upper) {
+        this(deviation, multiplier, upper, false);
+    }
+
+    private BollingerBandCalculator(StandardDeviationCalculator deviation, double multiplier, boolean upper,
+                                    boolean ownsDeviation) {
+        this.numDays = deviation.numDays;
+        this.multiplier = multiplier;
+        this.upper = upper;
+        this.deviation = deviation;
+        this.ownsDeviation = ownsDeviation;
+    }
+
+    @Override
+    public void roll(Bar latest) {
+        if (ownsDeviation) deviation.roll(latest);
+    }
+
+    @Override
+    public void roll(BarSeries bars, int index) {
+        if (ownsDeviation) deviation.roll(bars, index);
+    }
+
+    @Override
+    public double getDouble() {
+        double width = multiplier * deviation.getStandardDeviation();
+        return upper ? deviation.getMean() + width : deviation.getMean() - width;
+    }
+
+    @Override
+    public List<ValueAccumulator<?>> inputs() {
+        return ownsDeviation ? List.of() : List.of(deviation);
+    }
+
+    @Override
+    public ValueAccumulatorType getType() {
+        return upper ? ValueAccumulatorType.BOLLINGER_UPPER : ValueAccumulatorType.BOLLINGER_LOWER;
+    }
+
+    @Override
+    public double[] getSettings() {
+        return new double[] {numDays, multiplier};
+    }
+
+    /**
+     * @return a band in the same state, sharing the deviation unless it is private to this band
+     */
+    @Override
+    public BollingerBandCalculator copy() {
+        return ownsDeviation
+                ? new BollingerBandCalculator(deviation.copy(), multiplier, upper, true)
+                : new BollingerBandCalculator(deviation, multiplier, upper, false);
+    }
+}
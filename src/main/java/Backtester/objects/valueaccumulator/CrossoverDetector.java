@@ -1,48 +1,75 @@
 package Backtester.objects.valueaccumulator;
 
 import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
 
+import java.util.List;
+
+/**
+ * True on the bars where the first value crosses above the second. The values are shared inputs that are rolled
+ * before the detector, so it keeps the sign of the last difference itself.
+ */
 public class CrossoverDetector implements ValueAccumulator<Boolean> {
 
     private final ValueAccumulator<Double> va1;
     private final ValueAccumulator<Double> va2;
-    private int previousSign = 0;
+    private int previousSign; // Last non-zero sign before the current bar
+    private int lastSign; // Sign on the current bar, as of the last roll
 
     public CrossoverDetector(ValueAccumulator<Double> va1, ValueAccumulator<Double> va2) {
         this.va1 = va1;
         this.va2 = va2;
-        double diff = va1.getValue() - va2.getValue();
-        if (diff > 0) {
-            previousSign = 1;
-        } else if (diff < 0) {
-            previousSign = -1;
-        }
+        this.lastSign = sign();
+        this.previousSign = lastSign;
+    }
+
+    private CrossoverDetector(CrossoverDetector other) {
+        this.va1 = other.va1;
+        this.va2 = other.va2;
+        this.previousSign = other.previousSign;
+        this.lastSign = other.lastSign;
     }
 
-    // Need to be created with separate instances of ValueAccumulators
     public Boolean getValue() {
-        double diff = va1.getValue() - va2.getValue();
-        int curr_sign = 0;
-        if (diff > 0) {
-            curr_sign = 1;
-        } else if (diff < 0) {
-            curr_sign = -1;
-        }
-        return previousSign != 0 && curr_sign > 0 && curr_sign != previousSign;
+        return getBoolean();
+    }
+
+    @Override
+    public boolean getBoolean() {
+        int currentSign = sign();
+        return previousSign != 0 && currentSign > 0 && currentSign != previousSign;
     }
 
     public void roll(Bar bar) {
-        double diff = va1.getValue() - va2.getValue();
-        if (diff > 0) {
-            previousSign = 1;
-        } else if (diff < 0) {
-            previousSign = -1;
-        }
-        va1.roll(bar);
-        va2.roll(bar);
+        update();
+    }
+
+    @Override
+    public void roll(BarSeries bars, int index) {
+        update();
+    }
+
+    private void update() {
+        if (lastSign != 0) previousSign = lastSign;
+        lastSign = sign();
+    }
+
+    private int sign() {
+        double diff = va1.getDouble() - va2.getDouble();
+        if (diff > 0) return 1;
+        if (diff < 0) return -1;
+        return 0;
+    }
+
+    @Override
+    public List<ValueAccumulator<?>> inputs() {
+        return List.of(va1, va2);
     }
 
+    /**
+     * @return a detector over the same inputs with the same sign history
+     */
     public CrossoverDetector copy() {
-        return new CrossoverDetector(va1.copy(), va2.copy());
+        return new CrossoverDetector(this);
     }
 }
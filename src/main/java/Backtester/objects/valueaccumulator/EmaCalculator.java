@@ -0,0 +1,71 @@
+package Backtester.objects.valueaccumulator;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+
+import java.util.List;
+
+/**
+ * Exponential moving average of the close.
+ */
+public class EmaCalculator extends StreamingIndicator {
+
+    public final int numDays;
+    private final ExponentialAverage average;
+
+    public EmaCalculator(int numDays, List<Bar> initialValues) {
+        this(numDays);
+        for (Bar bar : initialValues) {
+            roll(bar);
+        }
+        checkWarmUp(average.isReady());
+    }
+
+    /**
+     * An EMA that is not warmed up yet, for calculators that roll it themselves.
+     */
+    EmaCalculator(int numDays) {
+        if (numDays <= 0) throw new IllegalArgumentException();
+        this.numDays = numDays;
+        this.average = new ExponentialAverage(numDays, false);
+    }
+
+    private EmaCalculator(EmaCalculator other) {
+        this.numDays = other.numDays;
+        this.average = new ExponentialAverage(other.average);
+    }
+
+    @Override
+    public void roll(Bar latest) {
+        average.add(latest.close);
+    }
+
+    @Override
+    public void roll(BarSeries bars, int index) {
+        average.add(bars.close[index]);
+    }
+
+    @Override
+    public double getDouble() {
+        return average.get();
+    }
+
+    boolean isReady() {
+        return average.isReady();
+    }
+
+    @Override
+    public ValueAccumulatorType getType() {
+        return ValueAccumulatorType.EMA;
+    }
+
+    @Override
+    public double[] getSettings() {
+        return new double[] {numDays};
+    }
+
+    @Override
+    public EmaCalculator copy() {
+        return new EmaCalculator(this);
+    }
+}
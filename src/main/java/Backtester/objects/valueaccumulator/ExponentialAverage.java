@@ -0,0 +1,41 @@
+package Backtester.objects.valueaccumulator;
+
+/**
+ * Exponential moving average seeded with the simple average of its first values. The smoothing factor is
+ * 2 / (period + 1), or 1 / period for Wilder's smoothing.
+ */
+final class ExponentialAverage {
+
+    private final int period;
+    private final double alpha;
+    private int count;
+    private double value; // Sum of the first values until the average is seeded
+
+    ExponentialAverage(int period, boolean wilder) {
+        this.period = period;
+        this.alpha = wilder ? 1.0 / period : 2.0 / (period + 1);
+    }
+
+    ExponentialAverage(ExponentialAverage other) {
+        this.period = other.period;
+        this.alpha = other.alpha;
+        this.count = other.count;
+        this.value = other.value;
+    }
+
+    void add(double x) {
+        if (count < period) {
+            value += x;
+            count++;
+            if (count == period) value /= period;
+        } else value += alpha * (x - value);
+    }
+
+    boolean isReady() {
+        return count >= period;
+    }
+
+    double get() {
+        return isReady() ? value : Double.NaN;
+    }
+}
@@ -0,0 +1,116 @@
+package Backtester.objects.valueaccumulator;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+
+import java.util.List;
+
+/**
+ * MACD of the close: the fast EMA minus the slow EMA, or the signal line, an EMA of that difference.
+ * The two EMAs are either private to the calculator or shared inputs that are rolled before it.
+ */
+public class MacdCalculator extends StreamingIndicator {
+
+    public final int fastDays;
+    public final int slowDays;
+    public final int signalDays;
+    public final boolean signalLine;
+    private final EmaCalculator fast;
+    private final EmaCalculator slow;
+    private final boolean ownsAverages;
+    private final ExponentialAverage signal;
+
+    public MacdCalculator(int fastDays, int slowDays, int signalDays, boolean signalLine, List<Bar> initialValues) {
+        if (fastDays <= 0 || slowDays <= 0 || signalDays <= 0) throw new IllegalArgumentException();
+        this.fastDays = fastDays;
+        this.slowDays = slowDays;
+        this.signalDays = signalDays;
+        this.signalLine = signalLine;
+        this.fast = new EmaCalculator(fastDays);
+        this.slow = new EmaCalculator(slowDays);
+        this.ownsAverages = true;
+        this.signal = new ExponentialAverage(signalDays, false);
+        for (Bar bar : initialValues) {
+            roll(bar);
+        }
+        checkWarmUp(signal.isReady());
+    }
+
+    /**
+     * MACD over shared EMAs already warmed up on the initial values. Those values are replayed once to warm up the
+     * signal line, since the EMAs do not keep their history.
+     */
+    public MacdCalculator(EmaCalculator fast, EmaCalculator slow, int signalDays, boolean signalLine,
+                          List<Bar> initialValues) {
+        MacdCalculator replay = new MacdCalculator(fast.numDays, slow.numDays, signalDays, signalLine, initialValues);
+        this.fastDays = fast.numDays;
+        this.slowDays = slow.numDays;
+        this.signalDays = signalDays;
+        this.signalLine = signalLine;
+        this.fast = fast;
+        this.slow = slow;
+        this.ownsAverages = false;
+        this.signal = replay.signal;
+    }
+
+    private MacdCalculator(MacdCalculator other) {
+        this.fastDays = other.fastDays;
+        this.slowDays = other.slowDays;
+        this.signalDays = other.signalDays;
+        this.signalLine = other.signalLine;
+        this.ownsAverages = other.ownsAverages;
+        this.fast = ownsAverages ? other.fast.copy() : other.fast;
+        this.slow = ownsAverages ? other.slow.copy() : other.slow;
+        this.signal = new ExponentialAverage(other.signal);
+    }
+
+    @Override
+    public void roll(Bar latest) {
+        if (ownsAverages) {
+            fast.roll(latest);
+            slow.roll(latest);
+        }
+        updateSignal();
+    }
+
+    @Override
+    public void roll(BarSeries bars, int index) {
+        if (ownsAverages) {
+            fast.roll(bars, index);
+            slow.roll(bars, index);
+        }
+        updateSignal();
+    }
+
+    private void updateSignal() {
+        if (fast.isReady() && slow.isReady()) signal.add(fast.getDouble() - slow.getDouble());
+    }
+
+    @Override
+    public double getDouble() {
+        return signalLine ? signal.get() : fast.getDouble() - slow.getDouble();
+    }
+
+    @Override
+    public List<ValueAccumulator<?>> inputs() {
+        return ownsAverages ? List.of() : List.of(fast, slow);
+    }
+
+    @Override
+    public ValueAccumulatorType getType() {
+        return signalLine ? ValueAccumulatorType.MACD_SIGNAL : ValueAccumulatorType.MACD;
+    }
+
+    @Override
+    public double[] getSettings() {
+        return signalLine ? new double[] {fastDays, slowDays, signalDays} : new double[] {fastDays, slowDays};
+    }
+
+    /**
+     * @return a calculator in the same state, sharing the EMAs unless they are private to this one
+     */
+    @Override
+    public MacdCalculator copy() {
+        return new MacdCalculator(this);
+    }
+}
@@ -1,6 +1,7 @@
 package Backtester.objects.valueaccumulator;
 
 import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
 
 import java.util.List;
 
@@ -8,13 +9,13 @@ public class OhlcvValueAccumulator implements ValueAccumulator<Double> {
 
     private final OhlcvField field;
     private final int lookback;
-    private final List<Bar> bars;
+    private final BarSeries bars;
     private int currentIndex;
 
     public OhlcvValueAccumulator(OhlcvField field, int lookback, List<Bar> bars, int currentIndex) {
         this.field = field;
         this.lookback = lookback;
-        this.bars = bars;
+        this.bars = BarSeries.of(bars);
         this.currentIndex = currentIndex;
     }
 
@@ -23,22 +24,30 @@ public class OhlcvValueAccumulator implements ValueAccumulator<Double> {
         this.currentIndex = latest.index;
     }
 
+    @Override
+    public void roll(BarSeries bars, int index) {
+        this.currentIndex = index;
+    }
+
     @Override
     public Double getValue() {
+        return getDouble();
+    }
+
+    @Override
+    public double getDouble() {
         int targetIndex = currentIndex - lookback;
 
         if (targetIndex < 0) {
             throw new RuntimeException("Cannot access bar " + lookback + " bars back from current position");
         }
 
-        Bar targetBar = bars.get(targetIndex);
-
         return switch (field) {
-            case OPEN -> targetBar.open;
-            case HIGH -> targetBar.high;
-            case LOW -> targetBar.low;
-            case CLOSE -> targetBar.close;
-            case VOLUME -> (double) targetBar.volume;
+            case OPEN -> bars.open[targetIndex];
+            case HIGH -> bars.high[targetIndex];
+            case LOW -> bars.low[targetIndex];
+            case CLOSE -> bars.close[targetIndex];
+            case VOLUME -> (double) bars.volume[targetIndex];
         };
     }
 
@@ -54,4 +63,3 @@ public class OhlcvValueAccumulator implements ValueAccumulator<Double> {
         return new OhlcvValueAccumulator(field, lookback, bars, currentIndex);
     }
 }
-
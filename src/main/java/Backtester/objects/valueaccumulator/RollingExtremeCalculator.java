@@ -0,0 +1,92 @@
+package Backtester.objects.valueaccumulator;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+
+import java.util.List;
+
+/**
+ * Highest high or lowest low over a rolling window. Candidates are kept in a monotonic deque, so each bar is added
+ * and removed at most once.
+ */
+public class RollingExtremeCalculator extends StreamingIndicator {
+
+    public final int numDays;
+    public final boolean highest;
+    // Ring buffer deque of bar counters and their values, front at head
+    private final long[] indexes;
+    private final double[] values;
+    private int head;
+    private int size;
+    private long counter;
+
+    public RollingExtremeCalculator(int numDays, boolean highest, List<Bar> initialValues) {
+        if (numDays <= 0) throw new IllegalArgumentException();
+        this.numDays = numDays;
+        this.highest = highest;
+        this.indexes = new long[numDays + 1];
+        this.values = new double[numDays + 1];
+        for (Bar bar : initialValues) {
+            roll(bar);
+        }
+        checkWarmUp(counter >= numDays);
+    }
+
+    private RollingExtremeCalculator(RollingExtremeCalculator other) {
+        this.numDays = other.numDays;
+        this.highest = other.highest;
+        this.indexes = other.indexes.clone();
+        this.values = other.values.clone();
+        this.head = other.head;
+        this.size = other.size;
+        this.counter = other.counter;
+    }
+
+    @Override
+    public void roll(Bar latest) {
+        add(highest ? latest.high : latest.low);
+    }
+
+    @Override
+    public void roll(BarSeries bars, int index) {
+        add(highest ? bars.high[index] : bars.low[index]);
+    }
+
+    private void add(double x) {
+        int capacity = values.length;
+        while (size > 0) {
+            double back = values[(head + size - 1) % capacity];
+            if (highest ? back > x : back < x) break;
+            size--;
+        }
+        int tail = (head + size) % capacity;
+        indexes[tail] = counter;
+        values[tail] = x;
+        size++;
+        if (indexes[head] <= counter - numDays) {
+            head = (head + 1) % capacity;
+            size--;
+        }
+        counter++;
+    }
+
+    @Override
+    public double getDouble() {
+        return values[head];
+    }
+
+    @Override
+    public ValueAccumulatorType getType() {
+        return highest ? ValueAccumulatorType.HIGHEST : ValueAccumulatorType.LOWEST;
+    }
+
+    @Override
+    public double[] getSettings() {
+        return new double[] {numDays};
+    }
+
+    @Override
+    public RollingExtremeCalculator copy() {
+        return new RollingExtremeCalculator(this);
+    }
+}
@@ -0,0 +1,77 @@
+package Backtester.objects.valueaccumulator;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+
+import java.util.List;
+
+/**
+ * Relative strength index of the close, with Wilder's smoothing of gains and losses.
+ */
+public class RsiCalculator extends StreamingIndicator {
+
+    public final int numDays;
+    private final ExponentialAverage gains;
+    private final ExponentialAverage losses;
+    private double previousClose = Double.NaN;
+
+    public RsiCalculator(int numDays, List<Bar> initialValues) {
+        if (numDays <= 0) throw new IllegalArgumentException();
+        this.numDays = numDays;
+        this.gains = new ExponentialAverage(numDays, true);
+        this.losses = new ExponentialAverage(numDays, true);
+        for (Bar bar : initialValues) {
+            roll(bar);
+        }
+        checkWarmUp(gains.isReady());
+    }
+
+    private RsiCalculator(RsiCalculator other) {
+        this.numDays = other.numDays;
+        this.gains = new ExponentialAverage(other.gains);
+        this.losses = new ExponentialAverage(other.losses);
+        this.previousClose = other.previousClose;
+    }
+
+    @Override
+    public void roll(Bar latest) {
+        add(latest.close);
+    }
+
+    @Override
+    public void roll(BarSeries bars, int index) {
+        add(bars.close[index]);
+    }
+
+    private void add(double close) {
+        if (!Double.isNaN(previousClose)) {
+            double change = close - previousClose;
+            gains.add(Math.max(change, 0.0));
+            losses.add(Math.max(-change, 0.0));
+        }
+        previousClose = close;
+    }
+
+    @Override
+    public double getDouble() {
+        double gain = gains.get();
+        double loss = losses.get();
+        if (loss == 0) return gain == 0 ? 50.0 : 100.0;
+        return 100.0 - 100.0 / (1.0 + gain / loss);
+    }
+
+    @Override
+    public ValueAccumulatorType getType() {
+        return ValueAccumulatorType.RSI;
+    }
+
+    @Override
+    public double[] getSettings() {
+        return new double[] {numDays};
+    }
+
+    @Override
+    public RsiCalculator copy() {
+        return new RsiCalculator(this);
+    }
+}
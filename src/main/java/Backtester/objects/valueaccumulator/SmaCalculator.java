@@ -1,55 +1,87 @@
 package Backtester.objects.valueaccumulator;
 
 import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 
 /**
- * Constant time SMA calculator
+ * Constant time SMA calculator. The window is a ring buffer of primitives and the running sum is compensated
+ * (Kahan-Babuska, which also holds up when a large value leaves the window), so it does not drift however many
+ * bars are rolled through it.
  */
 public class SmaCalculator implements ValueAccumulator<Double> {
 
     public final int numDays;
-    private final Queue<Double> values = new LinkedList<>();
+    private final double[] window;
+    private int position;
+    private int count;
     private double sumOfAllValues = 0.0;
-    private final List<Bar> initialValues;
+    private double compensation = 0.0;
 
     public SmaCalculator(int numDays, List<Bar> initialValues) {
         if (numDays <= 0 || initialValues.size() < numDays) throw new IllegalArgumentException();
-        this.initialValues = new ArrayList<>(initialValues);
         this.numDays = numDays;
+        this.window = new double[numDays];
         for (Bar bar : initialValues) {
             this.addValue(bar.close);
         }
     }
 
+    private SmaCalculator(SmaCalculator other) {
+        this.numDays = other.numDays;
+        this.window = other.window.clone();
+        this.position = other.position;
+        this.count = other.count;
+        this.sumOfAllValues = other.sumOfAllValues;
+        this.compensation = other.compensation;
+    }
+
     public void roll(Bar bar) {
         addValue(bar.close);
     }
 
+    @Override
+    public void roll(BarSeries bars, int index) {
+        addValue(bars.close[index]);
+    }
+
     // Probably make this private later
-    public void addValue(Double latest) {
+    public void addValue(double latest) {
         if (latest < 0) throw new IllegalArgumentException();
-        Double oldest = 0.0;
-        if (values.size() == numDays) {
-            oldest = values.poll();
-        }
-        values.add(latest);
-        this.sumOfAllValues = sumOfAllValues - oldest + latest;
+        if (count == numDays) {
+            accumulate(-window[position]);
+        } else count++;
+        window[position] = latest;
+        position = position + 1 == numDays ? 0 : position + 1;
+        accumulate(latest);
+    }
+
+    private void accumulate(double value) {
+        double t = sumOfAllValues + value;
+        if (Math.abs(sumOfAllValues) >= Math.abs(value)) {
+            compensation += (sumOfAllValues - t) + value;
+        } else compensation += (value - t) + sumOfAllValues;
+        sumOfAllValues = t;
     }
 
     public Double getValue() {
         return getAverage();
     }
 
+    @Override
+    public double getDouble() {
+        return getAverage();
+    }
+
     public double getAverage() {
-        return sumOfAllValues / numDays;
+        return (sumOfAllValues + compensation) / numDays;
     }
 
+    /**
+     * @return an independent calculator in the same state as this one
+     */
     public SmaCalculator copy() {
-        return new SmaCalculator(numDays, initialValues);
+        return new SmaCalculator(this);
     }
 }
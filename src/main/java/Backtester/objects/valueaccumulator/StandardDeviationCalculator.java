@@ -0,0 +1,93 @@
+package Backtester.objects.valueaccumulator;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+
+import java.util.List;
+
+/**
+ * Population standard deviation of the close over a rolling window. Mean and sum of squared deviations are
+ * maintained with Welford's update, replacing the oldest value in one step once the window is full.
+ */
+public class StandardDeviationCalculator extends StreamingIndicator {
+
+    public final int numDays;
+    private final double[] window;
+    private int position;
+    private int count;
+    private double mean;
+    private double m2;
+
+    public StandardDeviationCalculator(int numDays, List<Bar> initialValues) {
+        if (numDays <= 0) throw new IllegalArgumentException();
+        this.numDays = numDays;
+        this.window = new double[numDays];
+        for (Bar bar : initialValues) {
+            roll(bar);
+        }
+        checkWarmUp(count == numDays);
+    }
+
+    private StandardDeviationCalculator(StandardDeviationCalculator other) {
+        this.numDays = other.numDays;
+        this.window = other.window.clone();
+        this.position = other.position;
+        this.count = other.count;
+        this.mean = other.mean;
+        this.m2 = other.m2;
+    }
+
+    @Override
+    public void roll(Bar latest) {
+        add(latest.close);
+    }
+
+    @Override
+    public void roll(BarSeries bars, int index) {
+        add(bars.close[index]);
+    }
+
+    private void add(double x) {
+        if (count < numDays) {
+            count++;
+            double delta = x - mean;
+            mean += delta / count;
+            m2 += delta * (x - mean);
+        } else {
+            double oldest = window[position];
+            double newMean = mean + (x - oldest) / numDays;
+            m2 += (x - oldest) * (x - newMean + oldest - mean);
+            mean = newMean;
+        }
+        window[position] = x;
+        position = position + 1 == numDays ? 0 : position + 1;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(Math.max(m2, 0.0) / count);
+    }
+
+    @Override
+    public double getDouble() {
+        return getStandardDeviation();
+    }
+
+    @Override
+    public ValueAccumulatorType getType() {
+        return ValueAccumulatorType.STDEV;
+    }
+
+    @Override
+    public double[] getSettings() {
+        return new double[] {numDays};
+    }
+
+    @Override
+    public StandardDeviationCalculator copy() {
+        return new StandardDeviationCalculator(this);
+    }
+}
@@ -0,0 +1,30 @@
+package Backtester.objects.valueaccumulator;
+
+/**
+ * Base for the numeric indicators that are updated in constant time per bar from primitive state. An indicator is
+ * identified by its type and settings, which is what it is cached under.
+ */
+public abstract class StreamingIndicator implements ValueAccumulator<Double> {
+
+    public abstract ValueAccumulatorType getType();
+
+    public abstract double[] getSettings();
+
+    @Override
+    public Double getValue() {
+        return getDouble();
+    }
+
+    @Override
+    public abstract double getDouble();
+
+    /**
+     * @return an independent indicator in the same state as this one
+     */
+    @Override
+    public abstract StreamingIndicator copy();
+
+    protected static void checkWarmUp(boolean ready) {
+        if (!ready) throw new IllegalArgumentException("Not enough lookback bars to warm up indicator");
+    }
+}
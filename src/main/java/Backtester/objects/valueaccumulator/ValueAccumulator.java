@@ -1,12 +1,41 @@
 package Backtester.objects.valueaccumulator;
 
 import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+
+import java.util.List;
 
 public interface ValueAccumulator<T> {
 
     void roll(Bar latest);
 
+    /**
+     * Rolls onto bar {@code index} of a series. Accumulators on the hot path should override this to read the
+     * columns, rather than have a bar view created for them.
+     */
+    default void roll(BarSeries bars, int index) {
+        roll(bars.get(index));
+    }
+
     T getValue();
 
+    /**
+     * Unboxed read for numeric accumulators. Implementations on the hot path should override this.
+     */
+    default double getDouble() {
+        return ((Number) getValue()).doubleValue();
+    }
+
+    default boolean getBoolean() {
+        return (Boolean) getValue();
+    }
+
     ValueAccumulator<T> copy();
+
+    /**
+     * Accumulators this one reads. They are rolled before it, see {@link Backtester.caches.ValueAccumulatorCache}.
+     */
+    default List<ValueAccumulator<?>> inputs() {
+        return List.of();
+    }
 }
@@ -5,4 +5,14 @@ public enum ValueAccumulatorType {
     EMA,
     Crossover,
     OHLCV,
+    RSI,
+    ATR,
+    STDEV,
+    BOLLINGER_UPPER,
+    BOLLINGER_LOWER,
+    MACD,
+    MACD_SIGNAL,
+    HIGHEST,
+    LOWEST,
+    VWAP,
  }
@@ -0,0 +1,85 @@
+package Backtester.objects.valueaccumulator;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+
+import java.util.List;
+
+/**
+ * Volume weighted average of the typical price (high + low + close) / 3 over a rolling window. NaN while the window
+ * has no volume.
+ */
+public class VwapCalculator extends StreamingIndicator {
+
+    public final int numDays;
+    private final double[] priceVolumes;
+    private final double[] volumes;
+    private int position;
+    private int count;
+    private double priceVolumeSum;
+    private double volumeSum;
+
+    public VwapCalculator(int numDays, List<Bar> initialValues) {
+        if (numDays <= 0) throw new IllegalArgumentException();
+        this.numDays = numDays;
+        this.priceVolumes = new double[numDays];
+        this.volumes = new double[numDays];
+        for (Bar bar : initialValues) {
+            roll(bar);
+        }
+        checkWarmUp(count == numDays);
+    }
+
+    private VwapCalculator(VwapCalculator other) {
+        this.numDays = other.numDays;
+        this.priceVolumes = other.priceVolumes.clone();
+        this.volumes = other.volumes.clone();
+        this.position = other.position;
+        this.count = other.count;
+        this.priceVolumeSum = other.priceVolumeSum;
+        this.volumeSum = other.volumeSum;
+    }
+
+    @Override
+    public void roll(Bar latest) {
+        add(latest.high, latest.low, latest.close, latest.volume);
+    }
+
+    @Override
+    public void roll(BarSeries bars, int index) {
+        add(bars.high[index], bars.low[index], bars.close[index], bars.volume[index]);
+    }
+
+    private void add(double high, double low, double close, double volume) {
+        double priceVolume = (high + low + close) / 3.0 * volume;
+        if (count == numDays) {
+            priceVolumeSum -= priceVolumes[position];
+            volumeSum -= volumes[position];
+        } else count++;
+        priceVolumes[position] = priceVolume;
+        volumes[position] = volume;
+        priceVolumeSum += priceVolume;
+        volumeSum += volume;
+        position = position + 1 == numDays ? 0 : position + 1;
+    }
+
+    @Override
+    public double getDouble() {
+        return volumeSum == 0 ? Double.NaN : priceVolumeSum / volumeSum;
+    }
+
+    @Override
+    public ValueAccumulatorType getType() {
+        return ValueAccumulatorType.VWAP;
+    }
+
+    @Override
+    public double[] getSettings() {
+        return new double[] {numDays};
+    }
+
+    @Override
+    public VwapCalculator copy() {
+        return new VwapCalculator(this);
+    }
+}
@@ -13,6 +13,14 @@ public class CrossoverKey implements ValueAccumulatorKey {
         this.va2 = va2;
     }
 
+    public ValueAccumulatorKey getFirst() {
+        return va1;
+    }
+
+    public ValueAccumulatorKey getSecond() {
+        return va2;
+    }
+
     public ValueAccumulatorType getValueAccumulatorType() {
         return ValueAccumulatorType.Crossover;
     }
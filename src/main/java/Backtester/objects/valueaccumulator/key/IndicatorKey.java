@@ -0,0 +1,35 @@
+package Backtester.objects.valueaccumulator.key;
+
+import Backtester.objects.valueaccumulator.ValueAccumulatorType;
+
+import java.util.Arrays;
+
+/**
+ * Key of a {@link Backtester.objects.valueaccumulator.StreamingIndicator}, its type and settings.
+ */
+public class IndicatorKey implements ValueAccumulatorKey {
+    private final ValueAccumulatorType type;
+    private final double[] settings;
+
+    public IndicatorKey(ValueAccumulatorType type, double... settings) {
+        this.type = type;
+        this.settings = settings.clone();
+    }
+
+    public ValueAccumulatorType getValueAccumulatorType() {
+        return type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IndicatorKey that = (IndicatorKey) o;
+        return type == that.type && Arrays.equals(settings, that.settings);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * type.hashCode() + Arrays.hashCode(settings);
+    }
+}
@@ -11,6 +11,10 @@ public class SmaKey implements ValueAccumulatorKey {
         this.length = length;
     }
 
+    public int getLength() {
+        return length;
+    }
+
     public ValueAccumulatorType getValueAccumulatorType() {
         return ValueAccumulatorType.SMA;
     }
@@ -0,0 +1,47 @@
+package Backtester.objects.valueaccumulator.series;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+import Backtester.objects.valueaccumulator.ValueAccumulator;
+
+import java.util.BitSet;
+
+/**
+ * Crossover read from an {@link IndicatorSeries}, rolling only moves to the next step.
+ */
+public class CrossoverSeries implements ValueAccumulator<Boolean> {
+
+    private final BitSet crossings;
+    private int step;
+
+    public CrossoverSeries(BitSet crossings) {
+        this.crossings = crossings;
+    }
+
+    @Override
+    public void roll(Bar latest) {
+        step++;
+    }
+
+    @Override
+    public void roll(BarSeries bars, int index) {
+        step++;
+    }
+
+    @Override
+    public Boolean getValue() {
+        return getBoolean();
+    }
+
+    @Override
+    public boolean getBoolean() {
+        return crossings.get(step);
+    }
+
+    @Override
+    public ValueAccumulator<Boolean> copy() {
+        CrossoverSeries copy = new CrossoverSeries(crossings);
+        copy.step = step;
+        return copy;
+    }
+}
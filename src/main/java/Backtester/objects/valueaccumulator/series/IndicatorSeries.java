@@ -0,0 +1,122 @@
+package Backtester.objects.valueaccumulator.series;
+
+import Backtester.caches.IndicatorStateCache;
+import Backtester.objects.Bar;
+import Backtester.objects.BarFingerprint;
+import Backtester.objects.BarSeries;
+import Backtester.objects.valueaccumulator.SmaCalculator;
+import Backtester.objects.valueaccumulator.key.CrossoverKey;
+import Backtester.objects.valueaccumulator.key.OhlcvKey;
+import Backtester.objects.valueaccumulator.key.SmaKey;
+import Backtester.objects.valueaccumulator.key.ValueAccumulatorKey;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Values of the indicators that do not depend on strategy state, computed for a whole bar series up front and
+ * shared by every run over that series. Step 0 is the value the initial evaluation sees, step i + 1 the value once
+ * bar i has been rolled. Values come from the same arithmetic as the rolling accumulators, so they are bit-identical.
+ * <p>
+ * Series are kept in the {@link IndicatorStateCache} under the fingerprint of the bars, so separate instances over
+ * the same data share them. Thread safe, a single instance can back concurrent runs.
+ */
+public class IndicatorSeries {
+
+    private final BarSeries bars;
+    private final List<Bar> lookbackBars;
+    private final BarFingerprint fingerprint;
+    private final IndicatorStateCache cache;
+
+    public IndicatorSeries(List<Bar> bars, List<Bar> lookbackBars) {
+        this(bars, lookbackBars, IndicatorStateCache.shared());
+    }
+
+    public IndicatorSeries(List<Bar> bars, List<Bar> lookbackBars, IndicatorStateCache cache) {
+        this.bars = BarSeries.of(new ArrayList<>(bars));
+        this.lookbackBars = new ArrayList<>(lookbackBars);
+        this.fingerprint = BarFingerprint.of(this.lookbackBars, this.bars);
+        this.cache = cache;
+    }
+
+    public boolean isFor(List<Bar> bars, List<Bar> lookbackBars) {
+        return fingerprint.equals(BarFingerprint.of(lookbackBars, bars));
+    }
+
+    /**
+     * @return the average at every step, or null if a SmaCalculator would fail on these bars
+     */
+    public double[] sma(int numDays) {
+        return cache.series(fingerprint, new SmaKey(numDays), () -> computeSma(numDays));
+    }
+
+    /**
+     * @return the steps at which the first value crosses above the second, or null if either is not precomputed
+     */
+    public BitSet crossover(CrossoverKey key) {
+        return cache.series(fingerprint, key, () -> computeCrossover(key));
+    }
+
+    private double[] computeSma(int numDays) {
+        if (numDays <= 0 || lookbackBars.size() < numDays) return null;
+        for (Bar bar : lookbackBars) {
+            if (bar.close < 0) return null;
+        }
+        SmaCalculator calculator = new SmaCalculator(numDays, lookbackBars);
+        double[] averages = new double[bars.size() + 1];
+        averages[0] = calculator.getAverage();
+        for (int i = 0; i < bars.size(); i++) {
+            if (bars.close[i] < 0) return null;
+            calculator.roll(bars, i);
+            averages[i + 1] = calculator.getAverage();
+        }
+        return averages;
+    }
+
+    // Same sign tracking as CrossoverDetector
+    private BitSet computeCrossover(CrossoverKey key) {
+        double[] first = values(key.getFirst());
+        double[] second = values(key.getSecond());
+        if (first == null || second == null) return null;
+        BitSet crossings = new BitSet(first.length);
+        int previousSign = sign(first[0] - second[0]);
+        for (int step = 0; step < first.length; step++) {
+            int sign = sign(first[step] - second[step]);
+            if (previousSign != 0 && sign > 0 && sign != previousSign) crossings.set(step);
+            if (sign != 0) previousSign = sign;
+        }
+        return crossings;
+    }
+
+    private double[] values(ValueAccumulatorKey key) {
+        return switch (key) {
+            case SmaKey sma -> sma(sma.getLength());
+            case OhlcvKey ohlcv -> ohlcv(ohlcv);
+            case null, default -> null;
+        };
+    }
+
+    // Matches OhlcvValueAccumulator created before the first roll, which then follows the bar position
+    private double[] ohlcv(OhlcvKey key) {
+        double[] values = new double[bars.size() + 1];
+        for (int step = 0; step < values.length; step++) {
+            int target = (step == 0 ? 0 : step - 1) - key.getLookback();
+            if (target < 0 || target >= bars.size()) return null;
+            values[step] = switch (key.getField()) {
+                case OPEN -> bars.open[target];
+                case HIGH -> bars.high[target];
+                case LOW -> bars.low[target];
+                case CLOSE -> bars.close[target];
+                case VOLUME -> (double) bars.volume[target];
+            };
+        }
+        return values;
+    }
+
+    private static int sign(double diff) {
+        if (diff > 0) return 1;
+        if (diff < 0) return -1;
+        return 0;
+    }
+}
@@ -0,0 +1,47 @@
+package Backtester.objects.valueaccumulator.series;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+import Backtester.objects.valueaccumulator.ValueAccumulator;
+
+/**
+ * SMA read from an {@link IndicatorSeries}, rolling only moves to the next step.
+ */
+public class SmaSeries implements ValueAccumulator<Double> {
+
+    public final int numDays;
+    private final double[] averages;
+    private int step;
+
+    public SmaSeries(int numDays, double[] averages) {
+        this.numDays = numDays;
+        this.averages = averages;
+    }
+
+    @Override
+    public void roll(Bar latest) {
+        step++;
+    }
+
+    @Override
+    public void roll(BarSeries bars, int index) {
+        step++;
+    }
+
+    @Override
+    public Double getValue() {
+        return getDouble();
+    }
+
+    @Override
+    public double getDouble() {
+        return averages[step];
+    }
+
+    @Override
+    public ValueAccumulator<Double> copy() {
+        SmaSeries copy = new SmaSeries(numDays, averages);
+        copy.step = step;
+        return copy;
+    }
+}
@@ -0,0 +1,67 @@
+package Backtester.script;
+
+import Backtester.objects.CompiledScript;
+import Backtester.script.compiler.JavaSourceCompiler;
+import Backtester.script.compiler.ScriptCompiler;
+import Backtester.script.optimizer.ConstantFolder;
+import Backtester.script.tokens.Parser;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The available ways of executing a strategy script.
+ */
+public enum ScriptBackend {
+    INTERPRETER,
+    CLOSURE,
+    /** Generated Java source compiled with javac at run time, see {@link JavaSourceCompiler}. */
+    JAVA_SOURCE;
+
+    private static final int MAX_CACHED_PROGRAMS = 64;
+
+    // Most recently used programs, so Monte Carlo permutations and repeated backtests only compile a script once
+    private static final Map<ProgramKey, ScriptProgram> PROGRAMS = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ProgramKey, ScriptProgram> eldest) {
+                    return size() > MAX_CACHED_PROGRAMS;
+                }
+            });
+
+    public ScriptExecutor create(String script) {
+        return compile(script).newExecutor();
+    }
+
+    /**
+     * Returns the compiled program for a script, compiling it only if it is not cached yet.
+     */
+    public ScriptProgram compile(String script) {
+        ProgramKey key = new ProgramKey(this, script);
+        ScriptProgram program = PROGRAMS.get(key);
+        if (program == null) {
+            program = switch (this) {
+                case INTERPRETER -> {
+                    CompiledScript compiled = new ConstantFolder().fold(new Parser().parse(script));
+                    compiled.checkVariablesDeclared();
+                    yield () -> new ScriptEvaluator(compiled);
+                }
+                case CLOSURE -> new ScriptCompiler().compile(script);
+                case JAVA_SOURCE -> new JavaSourceCompiler().compile(script);
+            };
+            PROGRAMS.put(key, program);
+        }
+        return program;
+    }
+
+    public static ScriptBackend fromName(String name) {
+        if ("bytecode".equalsIgnoreCase(name)) return JAVA_SOURCE; // Former name of the backend
+        for (ScriptBackend backend : values()) {
+            if (backend.name().equalsIgnoreCase(name)) return backend;
+        }
+        return CLOSURE;
+    }
+
+    private record ProgramKey(ScriptBackend backend, String script) {}
+}
@@ -7,7 +7,7 @@ import Backtester.script.functions.ScriptFunctionRegistry;
 import Backtester.script.functions.ScriptFunctionRegistryFactory;
 import Backtester.script.functions.result.NonVoidScriptFunctionResult;
 import Backtester.script.functions.result.ScriptFunctionResult;
-import Backtester.script.functions.result.VoidScriptFunctionResult;
+import Backtester.script.optimizer.ConstantFolder;
 import Backtester.script.statements.ExpressionStatement;
 import Backtester.script.statements.IfStatement;
 import Backtester.script.statements.Statement;
@@ -17,24 +17,33 @@ import Backtester.script.tokens.Parser;
 import Backtester.script.tokens.TokenType;
 import Backtester.strategies.RunContext;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
-public class ScriptEvaluator {
+public class ScriptEvaluator implements ScriptExecutor {
 
     private final CompiledScript compiledScript;
-    private final Map<String, Literal> variables = new HashMap<>();
+    // Variable frame indexed by the slots the parser assigned; plain numeric variables live unboxed in numbers
+    private final Object[] values;
+    private final double[] numbers;
     private RunContext currentContext;
     private final ScriptFunctionRegistry registry;
 
     public ScriptEvaluator(String script) {
-        CompiledScript compiled = new Parser().parse(script);
+        this(new ConstantFolder().fold(new Parser().parse(script)));
+    }
+
+    public ScriptEvaluator(CompiledScript compiled) {
+        compiled.checkVariablesDeclared();
         this.compiledScript = compiled;
         this.registry = ScriptFunctionRegistryFactory.createRegistry(compiled.functionCalls());
+        this.values = new Object[compiled.variables().size()];
+        this.numbers = new double[compiled.variables().size()];
+        Arrays.fill(numbers, Double.NaN);
     }
 
+    @Override
     public void evaluate(RunContext runContext) {
         List<Statement> statements = compiledScript.statements();
         this.currentContext = runContext;
@@ -48,7 +57,7 @@ public class ScriptEvaluator {
             case ExpressionStatement expressionStatement -> evaluate(expressionStatement.expression);
             case IfStatement ifStmt -> {
                 for (IfStatement.IfBranch branch : ifStmt.branches) {
-                    if (branch.isElse() || isTruthy(evaluate(branch.condition))) {
+                    if (branch.isElse() || evaluateBoolean(branch.condition)) {
                         for (Statement bodyStmt : branch.body) {
                             evaluate(bodyStmt);
                         }
@@ -57,12 +66,10 @@ public class ScriptEvaluator {
                 }
             }
             case VariableDeclaration assign -> {
-                Object value = evaluate(assign.initializer);
-                if (value instanceof NonVoidScriptFunctionResult result) {
-                    variables.put(assign.name, result.getValue());
-                } else if (value instanceof VoidScriptFunctionResult) {
-                    throw new RuntimeException("Assigning variable to void function result");
-                } else variables.put(assign.name, new Literal(value));
+                ScriptVariable variable = assign.variable;
+                if (variable.isPrimitiveNumber()) {
+                    numbers[variable.slot] = evaluateDouble(assign.initializer);
+                } else values[variable.slot] = evaluate(assign.initializer);
             }
             case null, default -> throw new RuntimeException("Unknown statement type: " + stmt.getClass());
         }
@@ -72,22 +79,68 @@ public class ScriptEvaluator {
         if (expr instanceof Literal lit) {
             return lit.value;
         } else if (expr instanceof Identifier var) {
-            return evaluate(variables.get(var.name));
-        } else if (expr instanceof BinaryExpression bin) {
-            Object left = evaluate(bin.left);
-            Object right = evaluate(bin.right);
-            return applyBinary(bin.operator.type, left, right);
+            ScriptVariable variable = var.variable;
+            return variable.isPrimitiveNumber() ? numbers[variable.slot] : values[variable.slot];
+        } else if (expr instanceof BinaryExpression || expr instanceof UnaryExpression) {
+            // Operators are typed by the parser, so only box once at the top of an operator tree
+            return switch (expr.getType()) {
+                case NUMBER -> evaluateDouble(expr);
+                case BOOLEAN -> evaluateBoolean(expr);
+                default -> throw new RuntimeException("Untyped operator expression: " + expr.getClass());
+            };
         } else if (expr instanceof FunctionCall call) {
             ScriptFunctionResult result = handleFunctionCall(call);
             if (result instanceof NonVoidScriptFunctionResult nonVoid) {
                 return nonVoid.getValue().value;
             } else return null;
-        } else if (expr instanceof UnaryExpression unaryExpression) {
-            return applyUnary(unaryExpression.operator.type, unaryExpression.right);
         }
         throw new RuntimeException("Unknown expression type: " + expr.getClass());
     }
 
+    /**
+     * Evaluates a numeric expression without boxing intermediate results.
+     */
+    private double evaluateDouble(Expression expr) {
+        if (expr instanceof BinaryExpression bin) {
+            TokenType op = bin.operator.type;
+            return switch (op) {
+                case PLUS -> evaluateDouble(bin.left) + evaluateDouble(bin.right);
+                case MINUS -> evaluateDouble(bin.left) - evaluateDouble(bin.right);
+                case STAR -> evaluateDouble(bin.left) * evaluateDouble(bin.right);
+                case SLASH -> evaluateDouble(bin.left) / evaluateDouble(bin.right);
+                default -> throw new RuntimeException("Unsupported numeric operator: " + op);
+            };
+        } else if (expr instanceof UnaryExpression unary && unary.operator.type == TokenType.MINUS) {
+            return -evaluateDouble(unary.right);
+        } else if (expr instanceof Identifier var && var.variable.isPrimitiveNumber()) {
+            return numbers[var.variable.slot];
+        }
+        return toDouble(evaluate(expr));
+    }
+
+    /**
+     * Evaluates a condition. Comparisons read their operands as primitives, anything else falls back to truthiness.
+     */
+    private boolean evaluateBoolean(Expression expr) {
+        if (expr instanceof BinaryExpression bin) {
+            TokenType op = bin.operator.type;
+            return switch (op) {
+                case GREATER -> evaluateDouble(bin.left) > evaluateDouble(bin.right);
+                case LESS -> evaluateDouble(bin.left) < evaluateDouble(bin.right);
+                case GREATER_EQUAL -> evaluateDouble(bin.left) >= evaluateDouble(bin.right);
+                case LESS_EQUAL -> evaluateDouble(bin.left) <= evaluateDouble(bin.right);
+                case EQUAL_EQUAL -> valuesEqual(evaluate(bin.left), evaluate(bin.right));
+                case BANG_EQUAL -> !valuesEqual(evaluate(bin.left), evaluate(bin.right));
+                default -> isTruthy(evaluate(expr));
+            };
+        } else if (expr instanceof UnaryExpression unary && unary.operator.type == TokenType.BANG) {
+            Object value = evaluate(unary.right);
+            if (value instanceof Boolean b) return !b;
+            throw new RuntimeException("Could not apply unary operator BANG to object " + value);
+        }
+        return isTruthy(evaluate(expr));
+    }
+
     private ScriptFunctionResult handleFunctionCall(FunctionCall call) {
         String name = call.functionName;
         List<Object> args = call.arguments.stream().map(this::evaluate).toList();
@@ -95,6 +148,20 @@ public class ScriptEvaluator {
         return function.execute(args, this.currentContext);
     }
 
+    private double toDouble(Object value) {
+        if (value instanceof ValueAccumulator<?> va) return va.getDouble();
+        return ((Number) value).doubleValue();
+    }
+
+    /**
+     * Script equality: numbers compare by value whatever their type, so a variable holding 5.0 equals the literal 5.
+     * Anything else compares with equals.
+     */
+    public static boolean valuesEqual(Object left, Object right) {
+        if (left instanceof Number l && right instanceof Number r) return l.doubleValue() == r.doubleValue();
+        return Objects.equals(left, right);
+    }
+
     private boolean isTruthy(Object value) {
         if (value == null) return false;
         if (value instanceof Boolean) return (Boolean) value;
@@ -102,41 +169,4 @@ public class ScriptEvaluator {
         if (value instanceof ValueAccumulator<?> va && va.getValue() instanceof Boolean b) return b;
         return true;
     }
-
-    private Object applyBinary(TokenType op, Object left, Object right) {
-        double l;
-        if (left instanceof ValueAccumulator<?> va && va.getValue() instanceof Number d) {
-            l = d.doubleValue();
-        } else l = ((Number) left).doubleValue();
-        double r;
-        if (right instanceof ValueAccumulator<?> va && va.getValue() instanceof Number d) {
-            r = d.doubleValue();
-        } else r = ((Number) right).doubleValue();
-        return switch (op) {
-            case GREATER -> l > r;
-            case LESS -> l < r;
-            case GREATER_EQUAL -> l >= r;
-            case LESS_EQUAL -> l <= r;
-            case EQUAL_EQUAL -> Objects.equals(left, right);
-            case BANG_EQUAL -> !Objects.equals(left, right);
-            case PLUS -> l + r;
-            case MINUS -> l - r;
-            case STAR -> l * r;
-            case SLASH -> l / r;
-            default -> throw new RuntimeException("Unsupported operator: " + op);
-        };
-    }
-
-    private Object applyUnary(TokenType op, Object right) {
-        if (op == TokenType.BANG && right instanceof Boolean) {
-            return !(Boolean) right;
-        } else if (op == TokenType.MINUS) {
-            double r;
-            if (right instanceof ValueAccumulator<?> va && va.getValue() instanceof Number d) {
-                r = d.doubleValue();
-            } else r = ((Number) right).doubleValue();
-            return -r;
-        } else throw new RuntimeException("Could not apply unary operator" + op.name() + " to object " + right.toString());
-    }
 }
-
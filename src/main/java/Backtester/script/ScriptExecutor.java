@@ -0,0 +1,11 @@
+package Backtester.script;
+
+import Backtester.strategies.RunContext;
+
+/**
+ * Runs a strategy script once against the current state of a run.
+ */
+public interface ScriptExecutor {
+
+    void evaluate(RunContext runContext);
+}
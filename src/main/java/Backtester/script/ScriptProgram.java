@@ -0,0 +1,10 @@
+package Backtester.script;
+
+/**
+ * A compiled strategy script. Programs are immutable and can be shared between threads; all state a run mutates
+ * (variables, resolved calls) lives in the executor returned by {@link #newExecutor()}.
+ */
+public interface ScriptProgram {
+
+    ScriptExecutor newExecutor();
+}
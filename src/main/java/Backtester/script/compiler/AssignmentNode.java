@@ -0,0 +1,33 @@
+package Backtester.script.compiler;
+
+final class AssignmentNode extends StatementNode {
+
+    private final int slot;
+    private final ExpressionNode initializer;
+
+    AssignmentNode(int slot, ExpressionNode initializer) {
+        this.slot = slot;
+        this.initializer = initializer;
+    }
+
+    @Override
+    void execute(Frame frame) {
+        frame.variables[slot] = initializer.evaluate(frame);
+    }
+
+    static final class Number extends StatementNode {
+
+        private final int slot;
+        private final ExpressionNode initializer;
+
+        Number(int slot, ExpressionNode initializer) {
+            this.slot = slot;
+            this.initializer = initializer;
+        }
+
+        @Override
+        void execute(Frame frame) {
+            frame.numbers[slot] = initializer.evaluateDouble(frame);
+        }
+    }
+}
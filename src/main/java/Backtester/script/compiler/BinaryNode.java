@@ -0,0 +1,182 @@
+package Backtester.script.compiler;
+
+import Backtester.script.ScriptEvaluator;
+import Backtester.script.tokens.TokenType;
+
+/**
+ * Binary operators, one subclass per operator so the operator is chosen at compile time rather than per bar.
+ */
+abstract class BinaryNode extends ExpressionNode {
+
+    final ExpressionNode left;
+    final ExpressionNode right;
+
+    BinaryNode(ExpressionNode left, ExpressionNode right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    static BinaryNode of(TokenType op, ExpressionNode left, ExpressionNode right) {
+        return switch (op) {
+            case PLUS -> new Add(left, right);
+            case MINUS -> new Subtract(left, right);
+            case STAR -> new Multiply(left, right);
+            case SLASH -> new Divide(left, right);
+            case GREATER -> new Greater(left, right);
+            case LESS -> new Less(left, right);
+            case GREATER_EQUAL -> new GreaterEqual(left, right);
+            case LESS_EQUAL -> new LessEqual(left, right);
+            case EQUAL_EQUAL -> new Equal(left, right);
+            case BANG_EQUAL -> new NotEqual(left, right);
+            default -> throw new RuntimeException("Unsupported operator: " + op);
+        };
+    }
+
+    double leftDouble(Frame frame) {
+        return left.evaluateDouble(frame);
+    }
+
+    double rightDouble(Frame frame) {
+        return right.evaluateDouble(frame);
+    }
+
+    private static final class Add extends BinaryNode {
+        Add(ExpressionNode left, ExpressionNode right) { super(left, right); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateDouble(frame);
+        }
+
+        @Override
+        double evaluateDouble(Frame frame) {
+            return leftDouble(frame) + rightDouble(frame);
+        }
+    }
+
+    private static final class Subtract extends BinaryNode {
+        Subtract(ExpressionNode left, ExpressionNode right) { super(left, right); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateDouble(frame);
+        }
+
+        @Override
+        double evaluateDouble(Frame frame) {
+            return leftDouble(frame) - rightDouble(frame);
+        }
+    }
+
+    private static final class Multiply extends BinaryNode {
+        Multiply(ExpressionNode left, ExpressionNode right) { super(left, right); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateDouble(frame);
+        }
+
+        @Override
+        double evaluateDouble(Frame frame) {
+            return leftDouble(frame) * rightDouble(frame);
+        }
+    }
+
+    private static final class Divide extends BinaryNode {
+        Divide(ExpressionNode left, ExpressionNode right) { super(left, right); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateDouble(frame);
+        }
+
+        @Override
+        double evaluateDouble(Frame frame) {
+            return leftDouble(frame) / rightDouble(frame);
+        }
+    }
+
+    private static final class Greater extends BinaryNode {
+        Greater(ExpressionNode left, ExpressionNode right) { super(left, right); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateBoolean(frame);
+        }
+
+        @Override
+        boolean evaluateBoolean(Frame frame) {
+            return leftDouble(frame) > rightDouble(frame);
+        }
+    }
+
+    private static final class Less extends BinaryNode {
+        Less(ExpressionNode left, ExpressionNode right) { super(left, right); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateBoolean(frame);
+        }
+
+        @Override
+        boolean evaluateBoolean(Frame frame) {
+            return leftDouble(frame) < rightDouble(frame);
+        }
+    }
+
+    private static final class GreaterEqual extends BinaryNode {
+        GreaterEqual(ExpressionNode left, ExpressionNode right) { super(left, right); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateBoolean(frame);
+        }
+
+        @Override
+        boolean evaluateBoolean(Frame frame) {
+            return leftDouble(frame) >= rightDouble(frame);
+        }
+    }
+
+    private static final class LessEqual extends BinaryNode {
+        LessEqual(ExpressionNode left, ExpressionNode right) { super(left, right); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateBoolean(frame);
+        }
+
+        @Override
+        boolean evaluateBoolean(Frame frame) {
+            return leftDouble(frame) <= rightDouble(frame);
+        }
+    }
+
+    private static final class Equal extends BinaryNode {
+        Equal(ExpressionNode left, ExpressionNode right) { super(left, right); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateBoolean(frame);
+        }
+
+        @Override
+        boolean evaluateBoolean(Frame frame) {
+            return ScriptEvaluator.valuesEqual(left.evaluate(frame), right.evaluate(frame));
+        }
+    }
+
+    private static final class NotEqual extends BinaryNode {
+        NotEqual(ExpressionNode left, ExpressionNode right) { super(left, right); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateBoolean(frame);
+        }
+
+        @Override
+        boolean evaluateBoolean(Frame frame) {
+            return !ScriptEvaluator.valuesEqual(left.evaluate(frame), right.evaluate(frame));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package Backtester.script.compiler;
+
+import Backtester.objects.valueaccumulator.ValueAccumulator;
+import Backtester.script.statements.expressions.ExpressionType;
+
+/**
+ * A call with constant arguments to an idempotent function. The call is made the first time it is reached in a
+ * run and the resulting accumulator is kept in the frame, so later bars only read it back.
+ */
+final class BoundCallNode extends ExpressionNode {
+
+    private final int slot;
+    private final FunctionCallNode call;
+
+    BoundCallNode(int slot, FunctionCallNode call) {
+        this.slot = slot;
+        this.call = call;
+    }
+
+    @Override
+    Object evaluate(Frame frame) {
+        Object value = frame.bound[slot];
+        if (value == null) {
+            value = call.evaluate(frame);
+            frame.bound[slot] = value;
+        }
+        return value;
+    }
+
+    @Override
+    double evaluateDouble(Frame frame) {
+        Object value = evaluate(frame);
+        if (value instanceof ValueAccumulator<?> va) return va.getDouble();
+        return ScriptValues.toDouble(value);
+    }
+
+    @Override
+    boolean evaluateBoolean(Frame frame) {
+        Object value = evaluate(frame);
+        if (call.type == ExpressionType.BOOLEAN && value instanceof ValueAccumulator<?> va) return va.getBoolean();
+        return ScriptValues.isTruthy(value);
+    }
+}
@@ -0,0 +1,37 @@
+package Backtester.script.compiler;
+
+import Backtester.script.ScriptExecutor;
+import Backtester.script.ScriptProgram;
+import Backtester.strategies.RunContext;
+
+/**
+ * A strategy script compiled to a tree of pre-bound nodes. The nodes hold no state, so one program serves any
+ * number of concurrent runs, each with its own {@link Frame}.
+ */
+public class CompiledProgram implements ScriptProgram {
+
+    private final StatementNode[] statements;
+    private final int variableCount;
+    private final int boundCount;
+    private final int sharedCount;
+
+    CompiledProgram(StatementNode[] statements, int variableCount, int boundCount, int sharedCount) {
+        this.statements = statements;
+        this.variableCount = variableCount;
+        this.boundCount = boundCount;
+        this.sharedCount = sharedCount;
+    }
+
+    @Override
+    public ScriptExecutor newExecutor() {
+        Frame frame = new Frame(variableCount, boundCount, sharedCount);
+        return runContext -> execute(frame, runContext);
+    }
+
+    private void execute(Frame frame, RunContext runContext) {
+        frame.bind(runContext);
+        for (StatementNode stmt : statements) {
+            stmt.execute(frame);
+        }
+    }
+}
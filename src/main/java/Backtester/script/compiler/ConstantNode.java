@@ -0,0 +1,23 @@
+package Backtester.script.compiler;
+
+final class ConstantNode extends ExpressionNode {
+
+    final Object value;
+    private final double doubleValue;
+
+    ConstantNode(Object value) {
+        this.value = value;
+        this.doubleValue = (value instanceof Number n) ? n.doubleValue() : Double.NaN;
+    }
+
+    @Override
+    Object evaluate(Frame frame) {
+        return value;
+    }
+
+    @Override
+    double evaluateDouble(Frame frame) {
+        if (value instanceof Number) return doubleValue;
+        return ScriptValues.toDouble(value);
+    }
+}
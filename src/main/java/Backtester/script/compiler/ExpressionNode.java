@@ -0,0 +1,20 @@
+package Backtester.script.compiler;
+
+/**
+ * A pre-bound expression. Node trees are built once by {@link ScriptCompiler} and executed every bar.
+ */
+abstract class ExpressionNode {
+
+    abstract Object evaluate(Frame frame);
+
+    /**
+     * Numeric nodes override this to produce their result without boxing.
+     */
+    double evaluateDouble(Frame frame) {
+        return ScriptValues.toDouble(evaluate(frame));
+    }
+
+    boolean evaluateBoolean(Frame frame) {
+        return ScriptValues.isTruthy(evaluate(frame));
+    }
+}
@@ -0,0 +1,15 @@
+package Backtester.script.compiler;
+
+final class ExpressionStatementNode extends StatementNode {
+
+    private final ExpressionNode expression;
+
+    ExpressionStatementNode(ExpressionNode expression) {
+        this.expression = expression;
+    }
+
+    @Override
+    void execute(Frame frame) {
+        expression.evaluate(frame);
+    }
+}
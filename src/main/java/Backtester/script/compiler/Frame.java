@@ -0,0 +1,43 @@
+package Backtester.script.compiler;
+
+import Backtester.strategies.RunContext;
+
+import java.util.Arrays;
+
+/**
+ * Mutable state of a compiled script for a single run. Variables live in the slots assigned by the parser and
+ * persist across bars. Variables that only ever hold plain numbers are kept unboxed in {@link #numbers}.
+ */
+public class Frame {
+
+    final Object[] variables;
+    final double[] numbers;
+    // Values of call sites resolved once per run, see BoundCallNode
+    final Object[] bound;
+    // Results of repeated expressions, see SharedNode. A slot holds a value for the evaluation whose epoch it stores
+    final int[] sharedEpochs;
+    final double[] sharedNumbers;
+    final boolean[] sharedBooleans;
+    final Object[] sharedValues;
+    int epoch;
+    RunContext runContext;
+
+    Frame(int variableCount, int boundCount, int sharedCount) {
+        this.variables = new Object[variableCount];
+        this.numbers = new double[variableCount];
+        this.bound = new Object[boundCount];
+        this.sharedEpochs = new int[sharedCount];
+        this.sharedNumbers = new double[sharedCount];
+        this.sharedBooleans = new boolean[sharedCount];
+        this.sharedValues = new Object[sharedCount];
+        Arrays.fill(numbers, Double.NaN);
+    }
+
+    void bind(RunContext runContext) {
+        if (this.runContext != runContext) {
+            Arrays.fill(bound, null);
+            this.runContext = runContext;
+        }
+        epoch++;
+    }
+}
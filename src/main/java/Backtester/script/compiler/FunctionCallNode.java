@@ -0,0 +1,49 @@
+package Backtester.script.compiler;
+
+import Backtester.objects.valueaccumulator.ValueAccumulator;
+import Backtester.script.functions.ScriptFunction;
+import Backtester.script.functions.result.NonVoidScriptFunctionResult;
+import Backtester.script.functions.result.ScriptFunctionResult;
+import Backtester.script.statements.expressions.ExpressionType;
+
+import java.util.Arrays;
+
+final class FunctionCallNode extends ExpressionNode {
+
+    private final ScriptFunction function;
+    private final ExpressionNode[] arguments;
+    final ExpressionType type;
+
+    FunctionCallNode(ScriptFunction function, ExpressionNode[] arguments, ExpressionType type) {
+        this.function = function;
+        this.arguments = arguments;
+        this.type = type;
+    }
+
+    @Override
+    double evaluateDouble(Frame frame) {
+        Object value = evaluate(frame);
+        if (value instanceof ValueAccumulator<?> va) return va.getDouble();
+        return ScriptValues.toDouble(value);
+    }
+
+    @Override
+    boolean evaluateBoolean(Frame frame) {
+        Object value = evaluate(frame);
+        if (type == ExpressionType.BOOLEAN && value instanceof ValueAccumulator<?> va) return va.getBoolean();
+        return ScriptValues.isTruthy(value);
+    }
+
+    @Override
+    Object evaluate(Frame frame) {
+        Object[] args = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            args[i] = arguments[i].evaluate(frame);
+        }
+        ScriptFunctionResult result = function.execute(Arrays.asList(args), frame.runContext);
+        if (result instanceof NonVoidScriptFunctionResult nonVoid) {
+            return nonVoid.getValue().value;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,39 @@
+package Backtester.script.compiler;
+
+import Backtester.script.ScriptExecutor;
+import Backtester.script.functions.ScriptFunction;
+import Backtester.script.functions.result.NonVoidScriptFunctionResult;
+import Backtester.script.functions.result.ScriptFunctionResult;
+import Backtester.strategies.RunContext;
+
+import java.util.Arrays;
+
+/**
+ * Base class of the hidden classes emitted by {@link JavaSourceCompiler}. Subclasses implement {@link #onBar}
+ * with the whole script inlined, holding script variables in fields.
+ */
+abstract class GeneratedProgram implements ScriptExecutor {
+
+    private final ScriptFunction[] functions;
+
+    GeneratedProgram(ScriptFunction[] functions) {
+        this.functions = functions;
+    }
+
+    @Override
+    public void evaluate(RunContext runContext) {
+        onBar(runContext);
+    }
+
+    abstract void onBar(RunContext runContext);
+
+    final Object call(int function, RunContext runContext, Object... args) {
+        ScriptFunctionResult result = functions[function].execute(Arrays.asList(args), runContext);
+        if (result instanceof NonVoidScriptFunctionResult nonVoid) {
+            return nonVoid.getValue().value;
+        }
+        return null;
+    }
+
+    static void discard(Object value) {}
+}
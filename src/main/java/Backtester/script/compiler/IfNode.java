@@ -0,0 +1,25 @@
+package Backtester.script.compiler;
+
+final class IfNode extends StatementNode {
+
+    private final ExpressionNode[] conditions; // null entry for else branch
+    private final StatementNode[][] bodies;
+
+    IfNode(ExpressionNode[] conditions, StatementNode[][] bodies) {
+        this.conditions = conditions;
+        this.bodies = bodies;
+    }
+
+    @Override
+    void execute(Frame frame) {
+        for (int i = 0; i < conditions.length; i++) {
+            ExpressionNode condition = conditions[i];
+            if (condition == null || condition.evaluateBoolean(frame)) {
+                for (StatementNode stmt : bodies[i]) {
+                    stmt.execute(frame);
+                }
+                return;
+            }
+        }
+    }
+}
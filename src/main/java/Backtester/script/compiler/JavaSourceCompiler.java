@@ -0,0 +1,399 @@
+package Backtester.script.compiler;
+
+import Backtester.objects.CompiledScript;
+import Backtester.script.ScriptExecutor;
+import Backtester.script.ScriptProgram;
+import Backtester.script.functions.ScriptFunction;
+import Backtester.script.functions.ScriptFunctionRegistry;
+import Backtester.script.functions.ScriptFunctionRegistryFactory;
+import Backtester.script.optimizer.CommonSubexpressions;
+import Backtester.script.optimizer.ConstantFolder;
+import Backtester.script.statements.ExpressionStatement;
+import Backtester.script.statements.IfStatement;
+import Backtester.script.statements.Statement;
+import Backtester.script.statements.VariableDeclaration;
+import Backtester.script.statements.expressions.*;
+import Backtester.script.tokens.Parser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URI;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Compiles a script to a hidden class with a single {@code onBar(RunContext)} method, so HotSpot can inline the
+ * whole strategy. The class is produced by generating Java source and running it through the system Java compiler
+ * in memory, against the application class path, so each new script costs one javac run. Function calls still go
+ * through {@link GeneratedProgram#call} with boxed arguments.
+ * <p>
+ * Without a system compiler (a JRE or jlinked runtime), or if the generated source does not compile (for example
+ * when the application classes are not on the class path), the closure tree from {@link ScriptCompiler} is used
+ * instead, not the interpreter.
+ * <p>
+ * Only the most recently used classes are kept, like the programs cached by {@code ScriptBackend}, so sweeps that
+ * generate a new source for every parameter set do not keep their hidden classes alive.
+ */
+public class JavaSourceCompiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(JavaSourceCompiler.class);
+    private static final String CLASS_NAME = "GeneratedScript";
+    private static final String PACKAGE_NAME = JavaSourceCompiler.class.getPackageName();
+    private static final int MAX_CACHED_CLASSES = 64;
+
+    // Generated source -> constructor of the hidden class, so repeated runs of a script only compile once
+    private static final Map<String, MethodHandle> CONSTRUCTORS = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, MethodHandle> eldest) {
+                    return size() > MAX_CACHED_CLASSES;
+                }
+            });
+
+    private final List<String> functionNames = new ArrayList<>();
+    // Generated calls that are resolved once per run, see ScriptFunctionRegistry.isBindable
+    private final List<String> boundCalls = new ArrayList<>();
+    private ScriptFunctionRegistry registry;
+    // Repeated expressions by shared slot, see CommonSubexpressions
+    private CommonSubexpressions shared;
+    private JavaExpression[] sharedExpressions;
+    private StringBuilder out;
+    private int indent;
+    private final Supplier<JavaCompiler> compilers;
+
+    public JavaSourceCompiler() {
+        this(ToolProvider::getSystemJavaCompiler);
+    }
+
+    /**
+     * @param compilers source of the Java compiler, which may supply null when none is available
+     */
+    JavaSourceCompiler(Supplier<JavaCompiler> compilers) {
+        this.compilers = compilers;
+    }
+
+    public ScriptProgram compile(String script) {
+        return compile(new Parser().parse(script));
+    }
+
+    public ScriptProgram compile(CompiledScript script) {
+        script.checkVariablesDeclared();
+        script = new ConstantFolder().fold(script);
+        registry = ScriptFunctionRegistryFactory.createRegistry(script.functionCalls());
+        JavaCompiler javac = compilers.get();
+        if (javac == null) {
+            logger.info("No system Java compiler available, using the closure compiler");
+            return new ScriptCompiler().compile(script);
+        }
+        try {
+            String source = generateSource(script);
+            ScriptFunction[] functions = new ScriptFunction[functionNames.size()];
+            for (int i = 0; i < functions.length; i++) {
+                functions[i] = registry.get(functionNames.get(i));
+                if (functions[i] == null) throw new RuntimeException("Unknown function '" + functionNames.get(i) + "'");
+            }
+            MethodHandle constructor = CONSTRUCTORS.get(source);
+            if (constructor == null) {
+                constructor = defineClass(javac, source);
+                CONSTRUCTORS.put(source, constructor);
+            }
+            return new GeneratedScriptProgram(constructor, functions);
+        } catch (Throwable e) {
+            logger.warn("Compiling generated source failed, falling back to closure compiler: {}", e.getMessage());
+            return new ScriptCompiler().compile(script);
+        }
+    }
+
+    String generateSource(CompiledScript script) {
+        functionNames.clear();
+        boundCalls.clear();
+        shared = CommonSubexpressions.find(script, registry);
+        sharedExpressions = new JavaExpression[shared.size()];
+        out = new StringBuilder();
+        indent = 0;
+
+        line("package " + PACKAGE_NAME + ";");
+        line("");
+        line("final class " + CLASS_NAME + " extends GeneratedProgram {");
+        indent++;
+        for (ScriptVariable variable : script.variables()) {
+            if (variable.isPrimitiveNumber()) line("private double v" + variable.slot + " = Double.NaN;");
+            else line("private Object v" + variable.slot + ";");
+        }
+        line("private int epoch;");
+        line("");
+        line(CLASS_NAME + "(Backtester.script.functions.ScriptFunction[] functions) { super(functions); }");
+        line("");
+        line("@Override");
+        line("void onBar(Backtester.strategies.RunContext ctx) {");
+        indent++;
+        line("epoch++;");
+        emitBlock(script.statements());
+        indent--;
+        line("}");
+        for (int i = 0; i < boundCalls.size(); i++) {
+            line("");
+            line("private Object b" + i + ";");
+            line("private Backtester.strategies.RunContext b" + i + "Context;");
+            line("");
+            line("private Object bound" + i + "(Backtester.strategies.RunContext ctx) {");
+            line("    if (ctx != b" + i + "Context) {");
+            line("        b" + i + " = " + boundCalls.get(i) + ";");
+            line("        b" + i + "Context = ctx;");
+            line("    }");
+            line("    return b" + i + ";");
+            line("}");
+        }
+        for (int i = 0; i < sharedExpressions.length; i++) {
+            JavaExpression expr = sharedExpressions[i];
+            String type = switch (expr.kind()) {
+                case DOUBLE -> "double";
+                case BOOLEAN -> "boolean";
+                case OBJECT, LITERAL -> "Object";
+            };
+            line("");
+            line("private " + type + " s" + i + ";");
+            line("private int s" + i + "Epoch;");
+            line("");
+            line("private " + type + " shared" + i + "(Backtester.strategies.RunContext ctx) {");
+            line("    if (s" + i + "Epoch != epoch) {");
+            line("        s" + i + " = " + expr.code() + ";");
+            line("        s" + i + "Epoch = epoch;");
+            line("    }");
+            line("    return s" + i + ";");
+            line("}");
+        }
+        indent--;
+        line("}");
+        return out.toString();
+    }
+
+    private void emitBlock(List<Statement> statements) {
+        for (Statement stmt : statements) {
+            emit(stmt);
+        }
+    }
+
+    private void emit(Statement stmt) {
+        switch (stmt) {
+            case ExpressionStatement expressionStatement -> {
+                JavaExpression expr = generate(expressionStatement.expression);
+                if (expressionStatement.expression instanceof FunctionCall) line(expr.code() + ";");
+                else line("discard(" + expr.asObject() + ");");
+            }
+            case VariableDeclaration assign -> {
+                JavaExpression value = generate(assign.initializer);
+                String target = "v" + assign.variable.slot;
+                line(target + " = " + (assign.variable.isPrimitiveNumber() ? value.asDouble() : value.asObject()) + ";");
+                for (int slot : shared.slotsReading(assign.variable)) {
+                    line("s" + slot + "Epoch = 0;");
+                }
+            }
+            case IfStatement ifStmt -> {
+                for (int i = 0; i < ifStmt.branches.size(); i++) {
+                    IfStatement.IfBranch branch = ifStmt.branches.get(i);
+                    String keyword = (i == 0) ? "if" : "} else if";
+                    if (branch.isElse()) line("} else {");
+                    else line(keyword + " (" + generate(branch.condition).asBoolean() + ") {");
+                    indent++;
+                    emitBlock(branch.body);
+                    indent--;
+                }
+                line("}");
+            }
+            case null, default -> throw new RuntimeException("Unknown statement type: " + stmt.getClass());
+        }
+    }
+
+    private JavaExpression generate(Expression expr) {
+        JavaExpression code = generateUnshared(expr);
+        int slot = shared.slotOf(expr);
+        if (slot < 0) return code;
+        if (sharedExpressions[slot] == null) sharedExpressions[slot] = code;
+        return new JavaExpression("shared" + slot + "(ctx)", code.kind(), null);
+    }
+
+    private JavaExpression generateUnshared(Expression expr) {
+        return switch (expr) {
+            case Literal lit -> JavaExpression.literal(lit.value);
+            case Identifier var -> new JavaExpression("v" + var.variable.slot,
+                    var.variable.isPrimitiveNumber() ? Kind.DOUBLE : Kind.OBJECT, null);
+            case BinaryExpression bin -> {
+                JavaExpression l = generate(bin.left);
+                JavaExpression r = generate(bin.right);
+                yield switch (bin.operator.type) {
+                    case PLUS -> numeric(l, "+", r);
+                    case MINUS -> numeric(l, "-", r);
+                    case STAR -> numeric(l, "*", r);
+                    case SLASH -> numeric(l, "/", r);
+                    case GREATER -> comparison(l, ">", r);
+                    case LESS -> comparison(l, "<", r);
+                    case GREATER_EQUAL -> comparison(l, ">=", r);
+                    case LESS_EQUAL -> comparison(l, "<=", r);
+                    case EQUAL_EQUAL -> new JavaExpression("Backtester.script.ScriptEvaluator.valuesEqual(" + l.asObject() + ", " + r.asObject() + ")", Kind.BOOLEAN, null);
+                    case BANG_EQUAL -> new JavaExpression("!Backtester.script.ScriptEvaluator.valuesEqual(" + l.asObject() + ", " + r.asObject() + ")", Kind.BOOLEAN, null);
+                    default -> throw new RuntimeException("Unsupported operator: " + bin.operator.type);
+                };
+            }
+            case UnaryExpression unary -> {
+                JavaExpression operand = generate(unary.right);
+                yield switch (unary.operator.type) {
+                    case MINUS -> new JavaExpression("(- " + operand.asDouble() + ")", Kind.DOUBLE, null);
+                    case BANG -> new JavaExpression("ScriptValues.not(" + operand.asObject() + ")", Kind.BOOLEAN, null);
+                    default -> throw new RuntimeException("Unsupported unary operator: " + unary.operator.type);
+                };
+            }
+            case FunctionCall call -> {
+                int index = functionNames.indexOf(call.functionName);
+                if (index < 0) {
+                    index = functionNames.size();
+                    functionNames.add(call.functionName);
+                }
+                StringBuilder code = new StringBuilder("call(" + index + ", ctx");
+                for (Expression arg : call.arguments) {
+                    code.append(", ").append(generate(arg).asObject());
+                }
+                code.append(")");
+                if (registry.isBindable(call)) {
+                    boundCalls.add(code.toString());
+                    yield new JavaExpression("bound" + (boundCalls.size() - 1) + "(ctx)", Kind.OBJECT, null);
+                }
+                yield new JavaExpression(code.toString(), Kind.OBJECT, null);
+            }
+            case null, default -> throw new RuntimeException("Unknown expression type: " + expr.getClass());
+        };
+    }
+
+    private static JavaExpression numeric(JavaExpression l, String op, JavaExpression r) {
+        return new JavaExpression("(" + l.asDouble() + " " + op + " " + r.asDouble() + ")", Kind.DOUBLE, null);
+    }
+
+    private static JavaExpression comparison(JavaExpression l, String op, JavaExpression r) {
+        return new JavaExpression("(" + l.asDouble() + " " + op + " " + r.asDouble() + ")", Kind.BOOLEAN, null);
+    }
+
+    private void line(String text) {
+        out.append("    ".repeat(indent)).append(text).append('\n');
+    }
+
+    private static MethodHandle defineClass(JavaCompiler javac, String source) throws Throwable {
+        String binaryName = PACKAGE_NAME + "." + CLASS_NAME;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///" + binaryName.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standard = javac.getStandardFileManager(diagnostics, null, null);
+        JavaFileManager fileManager = new ForwardingJavaFileManager<>(standard) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return bytes;
+                    }
+                };
+            }
+        };
+        List<String> options = List.of("-classpath", System.getProperty("java.class.path"), "-proc:none");
+        boolean ok = javac.getTask(null, fileManager, diagnostics, options, null, List.of(sourceFile)).call();
+        fileManager.close();
+        if (!ok) throw new IllegalStateException("Generated source did not compile: " + diagnostics.getDiagnostics());
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes.toByteArray(), true);
+        return lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, ScriptFunction[].class))
+                .asType(MethodType.methodType(Object.class, ScriptFunction[].class));
+    }
+
+    /**
+     * Instances of the hidden class hold a run's variables, so every executor is a new instance.
+     */
+    private record GeneratedScriptProgram(MethodHandle constructor, ScriptFunction[] functions) implements ScriptProgram {
+
+        @Override
+        public ScriptExecutor newExecutor() {
+            try {
+                return (ScriptExecutor) constructor.invoke(functions);
+            } catch (Throwable e) {
+                throw new RuntimeException("Could not instantiate generated script", e);
+            }
+        }
+    }
+
+    private enum Kind { DOUBLE, BOOLEAN, OBJECT, LITERAL }
+
+    /**
+     * A fragment of generated Java along with its static type, so numeric and boolean results are only boxed
+     * when they flow into a variable, a function argument or an equality check.
+     */
+    private record JavaExpression(String code, Kind kind, Object literal) {
+
+        static JavaExpression literal(Object value) {
+            String code = switch (value) {
+                case null -> "null";
+                case Integer i -> "Integer.valueOf(" + i + ")";
+                case Double d -> "Double.valueOf(" + javaDouble(d) + ")";
+                case Boolean b -> b ? "Boolean.TRUE" : "Boolean.FALSE";
+                case String s -> quote(s);
+                default -> throw new RuntimeException("Unsupported literal: " + value);
+            };
+            return new JavaExpression(code, Kind.LITERAL, value);
+        }
+
+        String asObject() {
+            return switch (kind) {
+                case DOUBLE -> "Double.valueOf(" + code + ")";
+                case BOOLEAN -> "Boolean.valueOf(" + code + ")";
+                case OBJECT, LITERAL -> code;
+            };
+        }
+
+        String asDouble() {
+            if (kind == Kind.DOUBLE) return code;
+            if (kind == Kind.LITERAL && literal instanceof Number n) return javaDouble(n.doubleValue());
+            return "ScriptValues.toDouble(" + asObject() + ")";
+        }
+
+        String asBoolean() {
+            return switch (kind) {
+                case BOOLEAN -> code;
+                case DOUBLE -> "(" + code + " != 0)";
+                case OBJECT, LITERAL -> "ScriptValues.isTruthy(" + asObject() + ")";
+            };
+        }
+
+        // Folded constants can be infinite or NaN, which have no Java literal form
+        private static String javaDouble(double d) {
+            if (Double.isNaN(d)) return "Double.NaN";
+            if (Double.isInfinite(d)) return d > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+            return Double.toString(d);
+        }
+
+        private static String quote(String s) {
+            StringBuilder sb = new StringBuilder("\"");
+            for (char c : s.toCharArray()) {
+                switch (c) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\t' -> sb.append("\\t");
+                    default -> {
+                        if (c < 0x20 || c > 0x7e) sb.append(String.format("\\u%04x", (int) c));
+                        else sb.append(c);
+                    }
+                }
+            }
+            return sb.append('"').toString();
+        }
+    }
+}
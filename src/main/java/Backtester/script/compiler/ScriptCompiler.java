@@ -0,0 +1,102 @@
+package Backtester.script.compiler;
+
+import Backtester.objects.CompiledScript;
+import Backtester.script.functions.ScriptFunction;
+import Backtester.script.functions.ScriptFunctionRegistry;
+import Backtester.script.functions.ScriptFunctionRegistryFactory;
+import Backtester.script.optimizer.CommonSubexpressions;
+import Backtester.script.optimizer.ConstantFolder;
+import Backtester.script.statements.ExpressionStatement;
+import Backtester.script.statements.IfStatement;
+import Backtester.script.statements.Statement;
+import Backtester.script.statements.VariableDeclaration;
+import Backtester.script.statements.expressions.*;
+import Backtester.script.tokens.Parser;
+
+import java.util.List;
+
+/**
+ * Turns a parsed script into a tree of nodes with functions, variable slots and operators bound up front,
+ * so that evaluating a bar is a walk over the tree with no name lookups or type dispatch on the AST.
+ */
+public class ScriptCompiler {
+
+    private ScriptFunctionRegistry registry;
+    private int boundCount;
+    private CommonSubexpressions shared;
+
+    public CompiledProgram compile(String script) {
+        return compile(new Parser().parse(script));
+    }
+
+    public CompiledProgram compile(CompiledScript script) {
+        script.checkVariablesDeclared();
+        script = new ConstantFolder().fold(script);
+        registry = ScriptFunctionRegistryFactory.createRegistry(script.functionCalls());
+        shared = CommonSubexpressions.find(script, registry);
+        boundCount = 0;
+        StatementNode[] statements = compileBlock(script.statements());
+        return new CompiledProgram(statements, script.variables().size(), boundCount, shared.size());
+    }
+
+    private StatementNode[] compileBlock(List<Statement> statements) {
+        StatementNode[] nodes = new StatementNode[statements.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = compile(statements.get(i));
+        }
+        return nodes;
+    }
+
+    private StatementNode compile(Statement stmt) {
+        return switch (stmt) {
+            case ExpressionStatement expressionStatement -> new ExpressionStatementNode(compile(expressionStatement.expression));
+            case VariableDeclaration assign -> {
+                StatementNode node = assign.variable.isPrimitiveNumber()
+                        ? new AssignmentNode.Number(assign.variable.slot, compile(assign.initializer))
+                        : new AssignmentNode(assign.variable.slot, compile(assign.initializer));
+                int[] stale = shared.slotsReading(assign.variable);
+                yield stale.length == 0 ? node : new SharedNode.Invalidate(node, stale);
+            }
+            case IfStatement ifStmt -> {
+                int n = ifStmt.branches.size();
+                ExpressionNode[] conditions = new ExpressionNode[n];
+                StatementNode[][] bodies = new StatementNode[n][];
+                for (int i = 0; i < n; i++) {
+                    IfStatement.IfBranch branch = ifStmt.branches.get(i);
+                    conditions[i] = branch.isElse() ? null : compile(branch.condition);
+                    bodies[i] = compileBlock(branch.body);
+                }
+                yield new IfNode(conditions, bodies);
+            }
+            case null, default -> throw new RuntimeException("Unknown statement type: " + stmt.getClass());
+        };
+    }
+
+    private ExpressionNode compile(Expression expr) {
+        ExpressionNode node = compileUnshared(expr);
+        int slot = shared.slotOf(expr);
+        return slot < 0 ? node : SharedNode.of(expr, slot, node);
+    }
+
+    private ExpressionNode compileUnshared(Expression expr) {
+        return switch (expr) {
+            case Literal lit -> new ConstantNode(lit.value);
+            case Identifier var -> var.variable.isPrimitiveNumber()
+                    ? new VariableNode.Number(var.variable.slot)
+                    : new VariableNode(var.variable.slot);
+            case BinaryExpression bin -> BinaryNode.of(bin.operator.type, compile(bin.left), compile(bin.right));
+            case UnaryExpression unary -> UnaryNode.of(unary.operator.type, compile(unary.right));
+            case FunctionCall call -> {
+                ScriptFunction function = registry.get(call.functionName);
+                if (function == null) throw new RuntimeException("Unknown function '" + call.functionName + "'");
+                ExpressionNode[] args = new ExpressionNode[call.arguments.size()];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = compile(call.arguments.get(i));
+                }
+                FunctionCallNode node = new FunctionCallNode(function, args, call.getType());
+                yield registry.isBindable(call) ? new BoundCallNode(boundCount++, node) : node;
+            }
+            case null, default -> throw new RuntimeException("Unknown expression type: " + expr.getClass());
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package Backtester.script.compiler;
+
+import Backtester.objects.valueaccumulator.ValueAccumulator;
+
+/**
+ * Conversions shared by the compiled nodes and generated programs. These mirror the coercions done by the interpreter.
+ */
+final class ScriptValues {
+
+    private ScriptValues() {}
+
+    static double toDouble(Object value) {
+        if (value instanceof ValueAccumulator<?> va) return va.getDouble();
+        return ((Number) value).doubleValue();
+    }
+
+    static boolean isTruthy(Object value) {
+        if (value == null) return false;
+        if (value instanceof Boolean b) return b;
+        if (value instanceof Number n) return n.doubleValue() != 0;
+        if (value instanceof ValueAccumulator<?> va && va.getValue() instanceof Boolean b) return b;
+        return true;
+    }
+
+    static boolean not(Object value) {
+        if (value instanceof Boolean b) return !b;
+        throw new RuntimeException("Could not apply unary operator BANG to object " + value);
+    }
+}
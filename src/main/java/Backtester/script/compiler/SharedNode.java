@@ -0,0 +1,131 @@
+package Backtester.script.compiler;
+
+import Backtester.objects.valueaccumulator.ValueAccumulator;
+import Backtester.script.statements.expressions.*;
+
+/**
+ * An expression that occurs several times in a script. Whichever occurrence is reached first on a bar evaluates it,
+ * the others read the stored result until the next bar or until a variable it reads is assigned.
+ */
+abstract class SharedNode extends ExpressionNode {
+
+    final int slot;
+    final ExpressionNode expression;
+
+    SharedNode(int slot, ExpressionNode expression) {
+        this.slot = slot;
+        this.expression = expression;
+    }
+
+    static SharedNode of(Expression expr, int slot, ExpressionNode node) {
+        return switch (expr) {
+            case BinaryExpression bin -> switch (bin.operator.type) {
+                case PLUS, MINUS, STAR, SLASH -> new Number(slot, node);
+                default -> new Condition(slot, node);
+            };
+            case UnaryExpression unary -> switch (unary.operator.type) {
+                case MINUS -> new Number(slot, node);
+                default -> new Condition(slot, node);
+            };
+            default -> new Value(slot, node, expr.getType());
+        };
+    }
+
+    boolean isCurrent(Frame frame) {
+        return frame.sharedEpochs[slot] == frame.epoch;
+    }
+
+    private static final class Number extends SharedNode {
+        Number(int slot, ExpressionNode expression) { super(slot, expression); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateDouble(frame);
+        }
+
+        @Override
+        double evaluateDouble(Frame frame) {
+            if (isCurrent(frame)) return frame.sharedNumbers[slot];
+            double value = expression.evaluateDouble(frame);
+            frame.sharedNumbers[slot] = value;
+            frame.sharedEpochs[slot] = frame.epoch;
+            return value;
+        }
+
+        @Override
+        boolean evaluateBoolean(Frame frame) {
+            return evaluateDouble(frame) != 0;
+        }
+    }
+
+    private static final class Condition extends SharedNode {
+        Condition(int slot, ExpressionNode expression) { super(slot, expression); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateBoolean(frame);
+        }
+
+        @Override
+        boolean evaluateBoolean(Frame frame) {
+            if (isCurrent(frame)) return frame.sharedBooleans[slot];
+            boolean value = expression.evaluateBoolean(frame);
+            frame.sharedBooleans[slot] = value;
+            frame.sharedEpochs[slot] = frame.epoch;
+            return value;
+        }
+    }
+
+    private static final class Value extends SharedNode {
+
+        private final ExpressionType type;
+
+        Value(int slot, ExpressionNode expression, ExpressionType type) {
+            super(slot, expression);
+            this.type = type;
+        }
+
+        @Override
+        Object evaluate(Frame frame) {
+            if (isCurrent(frame)) return frame.sharedValues[slot];
+            Object value = expression.evaluate(frame);
+            frame.sharedValues[slot] = value;
+            frame.sharedEpochs[slot] = frame.epoch;
+            return value;
+        }
+
+        @Override
+        double evaluateDouble(Frame frame) {
+            return ScriptValues.toDouble(evaluate(frame));
+        }
+
+        @Override
+        boolean evaluateBoolean(Frame frame) {
+            Object value = evaluate(frame);
+            if (type == ExpressionType.BOOLEAN && value instanceof ValueAccumulator<?> va) return va.getBoolean();
+            return ScriptValues.isTruthy(value);
+        }
+    }
+
+    /**
+     * Assignment to a variable that shared expressions read, which makes their stored results stale.
+     */
+    static final class Invalidate extends StatementNode {
+
+        private final StatementNode assignment;
+        private final int[] slots;
+
+        Invalidate(StatementNode assignment, int[] slots) {
+            this.assignment = assignment;
+            this.slots = slots;
+        }
+
+        @Override
+        void execute(Frame frame) {
+            assignment.execute(frame);
+            for (int slot : slots) {
+                frame.sharedEpochs[slot] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package Backtester.script.compiler;
+
+abstract class StatementNode {
+
+    abstract void execute(Frame frame);
+}
@@ -0,0 +1,48 @@
+package Backtester.script.compiler;
+
+import Backtester.script.tokens.TokenType;
+
+abstract class UnaryNode extends ExpressionNode {
+
+    final ExpressionNode operand;
+
+    UnaryNode(ExpressionNode operand) {
+        this.operand = operand;
+    }
+
+    static UnaryNode of(TokenType op, ExpressionNode operand) {
+        return switch (op) {
+            case BANG -> new Not(operand);
+            case MINUS -> new Negate(operand);
+            default -> throw new RuntimeException("Unsupported unary operator: " + op);
+        };
+    }
+
+    private static final class Not extends UnaryNode {
+        Not(ExpressionNode operand) { super(operand); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateBoolean(frame);
+        }
+
+        @Override
+        boolean evaluateBoolean(Frame frame) {
+            return ScriptValues.not(operand.evaluate(frame));
+        }
+    }
+
+    private static final class Negate extends UnaryNode {
+        Negate(ExpressionNode operand) { super(operand); }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return evaluateDouble(frame);
+        }
+
+        @Override
+        double evaluateDouble(Frame frame) {
+            return -operand.evaluateDouble(frame);
+        }
+    }
+}
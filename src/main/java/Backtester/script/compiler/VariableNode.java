@@ -0,0 +1,34 @@
+package Backtester.script.compiler;
+
+final class VariableNode extends ExpressionNode {
+
+    private final int slot;
+
+    VariableNode(int slot) {
+        this.slot = slot;
+    }
+
+    @Override
+    Object evaluate(Frame frame) {
+        return frame.variables[slot];
+    }
+
+    static final class Number extends ExpressionNode {
+
+        private final int slot;
+
+        Number(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        Object evaluate(Frame frame) {
+            return frame.numbers[slot];
+        }
+
+        @Override
+        double evaluateDouble(Frame frame) {
+            return frame.numbers[slot];
+        }
+    }
+}
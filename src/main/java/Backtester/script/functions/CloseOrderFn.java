@@ -1,6 +1,7 @@
 package Backtester.script.functions;
 
 import Backtester.script.functions.result.ScriptFunctionResult;
+import Backtester.script.statements.expressions.ExpressionType;
 import Backtester.script.statements.expressions.FunctionSignatureProperties;
 import Backtester.strategies.RunContext;
 
@@ -14,7 +15,7 @@ public class CloseOrderFn implements ScriptFunction {
 //    private final BacktestRunPositionCache positionCache;
 
     public static FunctionSignatureProperties getSignatureProperties() {
-        return new FunctionSignatureProperties(EXPECTED_ARGUMENTS, EXPECTED_ARGUMENTS);
+        return new FunctionSignatureProperties(EXPECTED_ARGUMENTS, EXPECTED_ARGUMENTS, ExpressionType.VOID);
     }
 
     public ScriptFunctionResult execute(List<Object> args, RunContext runContext) {
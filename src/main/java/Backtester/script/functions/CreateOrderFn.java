@@ -6,12 +6,12 @@ import Backtester.objects.order.OrderStatus;
 import Backtester.objects.order.OrderType;
 import Backtester.script.functions.result.ScriptFunctionResult;
 import Backtester.script.functions.result.VoidScriptFunctionResult;
+import Backtester.script.statements.expressions.ExpressionType;
 import Backtester.script.statements.expressions.FunctionSignatureProperties;
 import Backtester.strategies.RunContext;
 import org.slf4j.Logger;
 
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class CreateOrderFn implements ScriptFunction {
 
@@ -20,11 +20,10 @@ public class CreateOrderFn implements ScriptFunction {
     private final static int MINIMUM_ARGUMENTS_SIZE = 3; // name, isBuy, quantity are required
     private final static int MAXIMUM_ARGUMENTS_SIZE = 5; // name, isBuy, quantity, orderType, limitPrice, stopPrice
     private final String symbol = "AAPL"; // TODO Inject this later
-    private final AtomicInteger idGenerator = new AtomicInteger(1); // Orders will exist entirely in memory
 
     public ScriptFunctionResult execute(List<Object> args, RunContext runContext) {
         CreateOrderFnArguments arguments = validateArgs(args);
-        Order newOrder = new Order(idGenerator.getAndIncrement(), symbol, OrderStatus.OPEN, arguments.side(), 
+        Order newOrder = new Order(runContext.nextOrderId(), symbol, OrderStatus.OPEN, arguments.side(), 
                                  arguments.orderType(), arguments.limitPrice(), arguments.stopPrice(), 
                                  0.0, arguments.quantity(), null, arguments.name());
         runContext.orderCache.addOrder(newOrder);
@@ -32,7 +31,7 @@ public class CreateOrderFn implements ScriptFunction {
     }
 
     public static FunctionSignatureProperties getSignatureProperties() {
-        return new FunctionSignatureProperties(MINIMUM_ARGUMENTS_SIZE, MAXIMUM_ARGUMENTS_SIZE);
+        return new FunctionSignatureProperties(MINIMUM_ARGUMENTS_SIZE, MAXIMUM_ARGUMENTS_SIZE, ExpressionType.VOID);
     }
 
     // TODO Later on add validation instead of throwing Exceptions.
@@ -49,7 +48,7 @@ public class CreateOrderFn implements ScriptFunction {
         boolean isBuy = (Boolean) args.get(1);
         OrderSide side = (isBuy) ? OrderSide.BUY : OrderSide.SELL;
         
-        int quantity = Integer.parseInt(args.get(2).toString());
+        int quantity = ScriptArguments.wholeNumber(args.get(2), "Quantity in CreateOrderFn");
         if (quantity <= 0) throw new RuntimeException("Negative quantity in CreateOrderFn");
 
         double limitPrice = Double.NaN;
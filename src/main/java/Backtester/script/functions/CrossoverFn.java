@@ -6,12 +6,15 @@ import Backtester.objects.valueaccumulator.ValueAccumulator;
 import Backtester.objects.valueaccumulator.key.CrossoverKey;
 import Backtester.objects.valueaccumulator.key.ValueAccumulatorKey;
 import Backtester.objects.valueaccumulator.key.ValueAccumulatorKeyBuilder;
+import Backtester.objects.valueaccumulator.series.CrossoverSeries;
 import Backtester.script.functions.result.NonVoidScriptFunctionResult;
 import Backtester.script.functions.result.ScriptFunctionResult;
+import Backtester.script.statements.expressions.ExpressionType;
 import Backtester.script.statements.expressions.FunctionSignatureProperties;
 import Backtester.script.statements.expressions.Literal;
 import Backtester.strategies.RunContext;
 
+import java.util.BitSet;
 import java.util.List;
 
 public class CrossoverFn implements ScriptFunction {
@@ -22,26 +25,34 @@ public class CrossoverFn implements ScriptFunction {
 
     @Override
     public ScriptFunctionResult execute(List<Object> args, RunContext runContext) {
-        CrossoverFnArguments fnArgs = checkArgs(args, runContext.valueAccumulatorCache);
+        CrossoverFnArguments fnArgs = checkArgs(args, runContext);
         return new CrossoverFnResult(fnArgs.crossoverDetector());
     }
 
+    @Override
+    public boolean isIdempotent() {
+        return true;
+    }
+
     public static FunctionSignatureProperties getSignatureProperties() {
-        return new FunctionSignatureProperties(EXPECTED_ARGUMENTS, EXPECTED_ARGUMENTS);
+        return new FunctionSignatureProperties(EXPECTED_ARGUMENTS, EXPECTED_ARGUMENTS, ExpressionType.BOOLEAN);
     }
 
-    private CrossoverFnArguments checkArgs(List<Object> args, ValueAccumulatorCache valueAccumulatorCache) {
+    private CrossoverFnArguments checkArgs(List<Object> args, RunContext runContext) {
+        ValueAccumulatorCache valueAccumulatorCache = runContext.valueAccumulatorCache;
         ValueAccumulator<Double> arg1 = ((ValueAccumulator<Double>) args.get(0));
         ValueAccumulator<Double> arg2 = ((ValueAccumulator<Double>) args.get(1));
         ValueAccumulatorKey key1 = valueAccumulatorKeyBuilder.build(arg1);
         ValueAccumulatorKey key2 = valueAccumulatorKeyBuilder.build(arg2);
         CrossoverKey crossoverKey = new CrossoverKey(key1, key2);
 
-        CrossoverDetector crossoverDetector;
-        if (valueAccumulatorCache.contains(crossoverKey)) {
-            crossoverDetector = (CrossoverDetector) valueAccumulatorCache.getValueAccumulator(crossoverKey);
-        } else {
-            crossoverDetector = new CrossoverDetector(arg1.copy(), arg2.copy());
+        ValueAccumulator<Boolean> crossoverDetector = (ValueAccumulator<Boolean>) valueAccumulatorCache.getValueAccumulator(crossoverKey);
+        if (crossoverDetector == null) {
+            BitSet crossings = runContext.indicatorSeries != null && runContext.currentIndex == 0
+                    ? runContext.indicatorSeries.crossover(crossoverKey) : null;
+            crossoverDetector = crossings != null
+                    ? new CrossoverSeries(crossings)
+                    : new CrossoverDetector(arg1, arg2);
             valueAccumulatorCache.put(crossoverKey, crossoverDetector);
         }
         return new CrossoverFnArguments(crossoverDetector);
@@ -49,7 +60,7 @@ public class CrossoverFn implements ScriptFunction {
 }
 
 
-record CrossoverFnArguments(CrossoverDetector crossoverDetector) {}
+record CrossoverFnArguments(ValueAccumulator<Boolean> crossoverDetector) {}
 
 class CrossoverFnResult implements NonVoidScriptFunctionResult {
 
@@ -1,4 +1,32 @@
 package Backtester.script.functions;
 
-public class CrossunderFn {
+import Backtester.script.functions.result.ScriptFunctionResult;
+import Backtester.script.statements.expressions.ExpressionType;
+import Backtester.script.statements.expressions.FunctionSignatureProperties;
+import Backtester.strategies.RunContext;
+
+import java.util.List;
+
+/**
+ * crossunder(a, b) is crossover(b, a), so both share one cached detector.
+ */
+public class CrossunderFn implements ScriptFunction {
+
+    public static final String FUNCTION_NAME = "crossunder";
+    public static final int EXPECTED_ARGUMENTS = 2; // valueAccumulator1, valueAccumulator2
+    private final CrossoverFn crossoverFn = new CrossoverFn();
+
+    @Override
+    public ScriptFunctionResult execute(List<Object> args, RunContext runContext) {
+        return crossoverFn.execute(List.of(args.get(1), args.get(0)), runContext);
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return true;
+    }
+
+    public static FunctionSignatureProperties getSignatureProperties() {
+        return new FunctionSignatureProperties(EXPECTED_ARGUMENTS, EXPECTED_ARGUMENTS, ExpressionType.BOOLEAN);
+    }
 }
@@ -0,0 +1,44 @@
+package Backtester.script.functions;
+
+/**
+ * Argument parsing shared by the script functions.
+ */
+public final class ScriptArguments {
+
+    private ScriptArguments() {}
+
+    /**
+     * Reads a whole-number argument. Any numeric type is accepted as long as its value is whole, since variables
+     * and computed expressions hold doubles where the script wrote an integer.
+     *
+     * @param what what the argument is, for the error message
+     */
+    public static int wholeNumber(Object value, String what) {
+        double d = number(value, what);
+        if (d != Math.rint(d) || Math.abs(d) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(what + " must be an integer");
+        }
+        return (int) d;
+    }
+
+    /**
+     * Reads a numeric argument, from any numeric type or its text.
+     */
+    public static double number(Object value, String what) {
+        if (value instanceof Number number) return number.doubleValue();
+        try {
+            return Double.parseDouble(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(what + " must be a number");
+        }
+    }
+
+    /**
+     * Reads the number of days of an indicator, the same way for every indicator function.
+     */
+    public static int days(Object value, String function) {
+        int days = wholeNumber(value, function + " days");
+        if (days <= 0) throw new IllegalArgumentException(function + " expects a positive whole number of days");
+        return days;
+    }
+}
@@ -8,4 +8,12 @@ import java.util.List;
 public interface ScriptFunction {
 
     ScriptFunctionResult execute(List<Object> args, RunContext runContext);
+
+    /**
+     * Whether repeated calls with the same arguments during one run return the same value, with no side effects.
+     * Calls to such functions with constant arguments only need to be resolved once per run.
+     */
+    default boolean isIdempotent() {
+        return false;
+    }
 }
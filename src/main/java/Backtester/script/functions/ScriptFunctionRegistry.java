@@ -1,5 +1,9 @@
 package Backtester.script.functions;
 
+import Backtester.script.statements.expressions.Expression;
+import Backtester.script.statements.expressions.FunctionCall;
+import Backtester.script.statements.expressions.Literal;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -22,4 +26,21 @@ public class ScriptFunctionRegistry {
     public int size() {
         return functions.size();
     }
+
+    public boolean isIdempotent(FunctionCall call) {
+        ScriptFunction function = functions.get(call.functionName);
+        return function != null && function.isIdempotent();
+    }
+
+    /**
+     * A call can be resolved once per run when its function is idempotent and its arguments are literals or
+     * other such calls, e.g. {@code sma(50)}, {@code close(1)} or {@code crossover(sma(5), sma(20))}.
+     */
+    public boolean isBindable(FunctionCall call) {
+        if (!isIdempotent(call)) return false;
+        for (Expression arg : call.arguments) {
+            if (!(arg instanceof Literal || arg instanceof FunctionCall nested && isBindable(nested))) return false;
+        }
+        return true;
+    }
 }
@@ -1,5 +1,6 @@
 package Backtester.script.functions;
 
+import Backtester.script.functions.indicators.*;
 import Backtester.script.functions.ohlcv.*;
 
 import java.util.Set;
@@ -24,6 +25,11 @@ public class ScriptFunctionRegistryFactory {
             registry.register(CrossoverFn.FUNCTION_NAME, fn);
         }
 
+        if (functionNames.contains(CrossunderFn.FUNCTION_NAME)) {
+            CrossunderFn fn = new CrossunderFn();
+            registry.register(CrossunderFn.FUNCTION_NAME, fn);
+        }
+
         if (functionNames.contains(CloseFunction.FUNCTION_NAME)) {
             CloseFunction fn = new CloseFunction();
             registry.register(CloseFunction.FUNCTION_NAME, fn);
@@ -49,6 +55,61 @@ public class ScriptFunctionRegistryFactory {
             registry.register(VolumeFunction.FUNCTION_NAME, fn);
         }
 
+        if (functionNames.contains(EmaFunction.FUNCTION_NAME)) {
+            EmaFunction fn = new EmaFunction();
+            registry.register(EmaFunction.FUNCTION_NAME, fn);
+        }
+
+        if (functionNames.contains(RsiFunction.FUNCTION_NAME)) {
+            RsiFunction fn = new RsiFunction();
+            registry.register(RsiFunction.FUNCTION_NAME, fn);
+        }
+
+        if (functionNames.contains(AtrFunction.FUNCTION_NAME)) {
+            AtrFunction fn = new AtrFunction();
+            registry.register(AtrFunction.FUNCTION_NAME, fn);
+        }
+
+        if (functionNames.contains(StdevFunction.FUNCTION_NAME)) {
+            StdevFunction fn = new StdevFunction();
+            registry.register(StdevFunction.FUNCTION_NAME, fn);
+        }
+
+        if (functionNames.contains(BollingerUpperFunction.FUNCTION_NAME)) {
+            BollingerUpperFunction fn = new BollingerUpperFunction();
+            registry.register(BollingerUpperFunction.FUNCTION_NAME, fn);
+        }
+
+        if (functionNames.contains(BollingerLowerFunction.FUNCTION_NAME)) {
+            BollingerLowerFunction fn = new BollingerLowerFunction();
+            registry.register(BollingerLowerFunction.FUNCTION_NAME, fn);
+        }
+
+        if (functionNames.contains(MacdFunction.FUNCTION_NAME)) {
+            MacdFunction fn = new MacdFunction();
+            registry.register(MacdFunction.FUNCTION_NAME, fn);
+        }
+
+        if (functionNames.contains(MacdSignalFunction.FUNCTION_NAME)) {
+            MacdSignalFunction fn = new MacdSignalFunction();
+            registry.register(MacdSignalFunction.FUNCTION_NAME, fn);
+        }
+
+        if (functionNames.contains(HighestFunction.FUNCTION_NAME)) {
+            HighestFunction fn = new HighestFunction();
+            registry.register(HighestFunction.FUNCTION_NAME, fn);
+        }
+
+        if (functionNames.contains(LowestFunction.FUNCTION_NAME)) {
+            LowestFunction fn = new LowestFunction();
+            registry.register(LowestFunction.FUNCTION_NAME, fn);
+        }
+
+        if (functionNames.contains(VwapFunction.FUNCTION_NAME)) {
+            VwapFunction fn = new VwapFunction();
+            registry.register(VwapFunction.FUNCTION_NAME, fn);
+        }
+
         return registry;
     }
 }
@@ -1,10 +1,14 @@
 package Backtester.script.functions;
 
+import Backtester.caches.IndicatorStateCache;
 import Backtester.objects.Bar;
 import Backtester.objects.valueaccumulator.SmaCalculator;
+import Backtester.objects.valueaccumulator.ValueAccumulator;
 import Backtester.objects.valueaccumulator.key.SmaKey;
+import Backtester.objects.valueaccumulator.series.SmaSeries;
 import Backtester.script.functions.result.NonVoidScriptFunctionResult;
 import Backtester.script.functions.result.ScriptFunctionResult;
+import Backtester.script.statements.expressions.ExpressionType;
 import Backtester.script.statements.expressions.FunctionSignatureProperties;
 import Backtester.script.statements.expressions.Literal;
 import Backtester.strategies.RunContext;
@@ -20,13 +24,15 @@ public class SmaFunction implements ScriptFunction {
     @Override
     public ScriptFunctionResult execute(List<Object> args, RunContext runContext) {
         int days = getDays(args);
-        SmaCalculator calculator;
         SmaKey key = new SmaKey(days);
-        if (runContext.valueAccumulatorCache.contains(key)) {
-            calculator = (SmaCalculator) runContext.valueAccumulatorCache.getValueAccumulator(key);
-        } else {
+        ValueAccumulator<Double> calculator = (ValueAccumulator<Double>) runContext.valueAccumulatorCache.getValueAccumulator(key);
+        if (calculator == null) {
+            // Precomputed values only line up with an SMA created before the first roll
+            double[] averages = runContext.indicatorSeries != null && runContext.currentIndex == 0
+                    ? runContext.indicatorSeries.sma(days) : null;
             List<Bar> initialValues = runContext.lookbackBars;
-            calculator = new SmaCalculator(days, initialValues);
+            calculator = averages != null ? new SmaSeries(days, averages) : IndicatorStateCache.shared()
+                    .warmUp(runContext.lookbackFingerprint, key, () -> new SmaCalculator(days, initialValues));
             runContext.valueAccumulatorCache.put(key, calculator);
         }
         return new SmaFunctionResult(calculator);
@@ -43,21 +49,26 @@ public class SmaFunction implements ScriptFunction {
         return result;
     }
 
+    @Override
+    public boolean isIdempotent() {
+        return true;
+    }
+
     public static FunctionSignatureProperties getSignatureProperties() {
-        return new FunctionSignatureProperties(EXPECTED_ARGUMENTS, EXPECTED_ARGUMENTS);
+        return new FunctionSignatureProperties(EXPECTED_ARGUMENTS, EXPECTED_ARGUMENTS, ExpressionType.NUMBER);
     }
 
     private int getDays(List<Object> args) {
         if (args.size() != 1) throw new IllegalArgumentException("Wrong amount of arguments for function sma"); // TODO: smarter logging
-        return Integer.parseInt(args.getFirst().toString());
+        return ScriptArguments.days(args.getFirst(), FUNCTION_NAME);
     }
 }
 
 class SmaFunctionResult implements NonVoidScriptFunctionResult {
 
-    private final SmaCalculator calculator;
+    private final ValueAccumulator<Double> calculator;
 
-    public SmaFunctionResult(SmaCalculator smaCalculator) {
+    public SmaFunctionResult(ValueAccumulator<Double> smaCalculator) {
         this.calculator = smaCalculator;
     }
 
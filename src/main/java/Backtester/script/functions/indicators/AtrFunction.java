@@ -0,0 +1,30 @@
+package Backtester.script.functions.indicators;
+
+import Backtester.objects.valueaccumulator.AtrCalculator;
+import Backtester.objects.valueaccumulator.StreamingIndicator;
+import Backtester.objects.valueaccumulator.ValueAccumulatorType;
+import Backtester.script.statements.expressions.ExpressionType;
+import Backtester.script.statements.expressions.FunctionSignatureProperties;
+import Backtester.strategies.RunContext;
+
+public class AtrFunction extends IndicatorFunction {
+
+    public static final String FUNCTION_NAME = "atr";
+    public static final int EXPECTED_ARGUMENTS = 1; // days
+
+    public static FunctionSignatureProperties getSignatureProperties() {
+        return new FunctionSignatureProperties(EXPECTED_ARGUMENTS, EXPECTED_ARGUMENTS, ExpressionType.NUMBER);
+    }
+
+    public String getFunctionName() {
+        return FUNCTION_NAME;
+    }
+
+    public ValueAccumulatorType getType() {
+        return ValueAccumulatorType.ATR;
+    }
+
+    protected StreamingIndicator create(double[] settings, RunContext runContext) {
+        return new AtrCalculator(days(settings[0]), runContext.lookbackBars);
+    }
+}
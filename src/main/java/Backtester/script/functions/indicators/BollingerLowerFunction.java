@@ -0,0 +1,34 @@
+package Backtester.script.functions.indicators;
+
+import Backtester.objects.valueaccumulator.BollingerBandCalculator;
+import Backtester.objects.valueaccumulator.StandardDeviationCalculator;
+import Backtester.objects.valueaccumulator.StreamingIndicator;
+import Backtester.objects.valueaccumulator.ValueAccumulatorType;
+import Backtester.script.statements.expressions.ExpressionType;
+import Backtester.script.statements.expressions.FunctionSignatureProperties;
+import Backtester.strategies.RunContext;
+
+public class BollingerLowerFunction extends IndicatorFunction {
+
+    public static final String FUNCTION_NAME = "bblower";
+    public static final int EXPECTED_ARGUMENTS = 2; // days, multiplier
+    private final StdevFunction deviation = new StdevFunction();
+
+    public static FunctionSignatureProperties getSignatureProperties() {
+        return new FunctionSignatureProperties(EXPECTED_ARGUMENTS, EXPECTED_ARGUMENTS, ExpressionType.NUMBER);
+    }
+
+    public String getFunctionName() {
+        return FUNCTION_NAME;
+    }
+
+    public ValueAccumulatorType getType() {
+        return ValueAccumulatorType.BOLLINGER_LOWER;
+    }
+
+    protected StreamingIndicator create(double[] settings, RunContext runContext) {
+        StandardDeviationCalculator shared = (StandardDeviationCalculator) deviation.getOrCreate(
+                new double[] {days(settings[0])}, runContext);
+        return new BollingerBandCalculator(shared, settings[1], false);
+    }
+}
@@ -0,0 +1,80 @@
+package Backtester.script.functions.indicators;
+
+import Backtester.caches.IndicatorStateCache;
+import Backtester.caches.ValueAccumulatorCache;
+import Backtester.objects.valueaccumulator.StreamingIndicator;
+import Backtester.objects.valueaccumulator.ValueAccumulatorType;
+import Backtester.objects.valueaccumulator.key.IndicatorKey;
+import Backtester.script.functions.ScriptArguments;
+import Backtester.script.functions.ScriptFunction;
+import Backtester.script.functions.result.NonVoidScriptFunctionResult;
+import Backtester.script.functions.result.ScriptFunctionResult;
+import Backtester.script.statements.expressions.Literal;
+import Backtester.strategies.RunContext;
+
+import java.util.List;
+
+/**
+ * Script function returning a {@link StreamingIndicator}. Indicators are created on first use, warmed up on the
+ * lookback bars and cached per run under their settings, like sma(). Warm-up states are shared between runs with the
+ * same lookback bars through the {@link IndicatorStateCache}.
+ */
+public abstract class IndicatorFunction implements ScriptFunction {
+
+    public abstract String getFunctionName();
+
+    public abstract ValueAccumulatorType getType();
+
+    /**
+     * Creates the indicator warmed up on the lookback bars. Inputs shared with other indicators should be taken from
+     * {@link #getOrCreate} so they are cached before the indicator that reads them.
+     */
+    protected abstract StreamingIndicator create(double[] settings, RunContext runContext);
+
+    @Override
+    public ScriptFunctionResult execute(List<Object> args, RunContext runContext) {
+        return new IndicatorFunctionResult(getOrCreate(parseSettings(args), runContext));
+    }
+
+    StreamingIndicator getOrCreate(double[] settings, RunContext runContext) {
+        IndicatorKey key = new IndicatorKey(getType(), settings);
+        ValueAccumulatorCache cache = runContext.valueAccumulatorCache;
+        StreamingIndicator indicator = (StreamingIndicator) cache.getValueAccumulator(key);
+        if (indicator == null) {
+            indicator = IndicatorStateCache.shared()
+                    .warmUp(runContext.lookbackFingerprint, key, () -> create(settings, runContext));
+            cache.put(key, indicator);
+        }
+        return indicator;
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return true;
+    }
+
+    protected int days(double setting) {
+        return ScriptArguments.days(setting, getFunctionName());
+    }
+
+    private double[] parseSettings(List<Object> args) {
+        double[] settings = new double[args.size()];
+        for (int i = 0; i < settings.length; i++) {
+            settings[i] = ScriptArguments.number(args.get(i), getFunctionName() + " setting");
+        }
+        return settings;
+    }
+}
+
+class IndicatorFunctionResult implements NonVoidScriptFunctionResult {
+
+    private final StreamingIndicator result;
+
+    public IndicatorFunctionResult(StreamingIndicator result) {
+        this.result = result;
+    }
+
+    public Literal getValue() {
+        return new Literal(result);
+    }
+}
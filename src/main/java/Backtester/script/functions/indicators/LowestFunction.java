@@ -0,0 +1,30 @@
+package Backtester.script.functions.indicators;
+
+import Backtester.objects.valueaccumulator.RollingExtremeCalculator;
+import Backtester.objects.valueaccumulator.StreamingIndicator;
+import Backtester.objects.valueaccumulator.ValueAccumulatorType;
+import Backtester.script.statements.expressions.ExpressionType;
+import Backtester.script.statements.expressions.FunctionSignatureProperties;
+import Backtester.strategies.RunContext;
+
+public class LowestFunction extends IndicatorFunction {
+
+    public static final String FUNCTION_NAME = "lowest";
+    public static final int EXPECTED_ARGUMENTS = 1; // days
+
+    public static FunctionSignatureProperties getSignatureProperties() {
+        return new FunctionSignatureProperties(EXPECTED_ARGUMENTS, EXPECTED_ARGUMENTS, ExpressionType.NUMBER);
+    }
+
+    public String getFunctionName() {
+        return FUNCTION_NAME;
+    }
+
+    public ValueAccumulatorType getType() {
+        return ValueAccumulatorType.LOWEST;
+    }
+
+    protected StreamingIndicator create(double[] settings, RunContext runContext) {
+        return new RollingExtremeCalculator(days(settings[0]), false, runContext.lookbackBars);
+    }
+}
@@ -0,0 +1,34 @@
+package Backtester.script.functions.indicators;
+
+import Backtester.objects.valueaccumulator.EmaCalculator;
+import Backtester.objects.valueaccumulator.MacdCalculator;
+import Backtester.objects.valueaccumulator.StreamingIndicator;
+import Backtester.objects.valueaccumulator.ValueAccumulatorType;
+import Backtester.script.statements.expressions.ExpressionType;
+import Backtester.script.statements.expressions.FunctionSignatureProperties;
+import Backtester.strategies.RunContext;
+
+public class MacdSignalFunction extends IndicatorFunction {
+
+    public static final String FUNCTION_NAME = "macdsignal";
+    public static final int EXPECTED_ARGUMENTS = 3; // fast days, slow days, signal days
+    private final EmaFunction ema = new EmaFunction();
+
+    public static FunctionSignatureProperties getSignatureProperties() {
+        return new FunctionSignatureProperties(EXPECTED_ARGUMENTS, EXPECTED_ARGUMENTS, ExpressionType.NUMBER);
+    }
+
+    public String getFunctionName() {
+        return FUNCTION_NAME;
+    }
+
+    public ValueAccumulatorType getType() {
+        return ValueAccumulatorType.MACD_SIGNAL;
+    }
+
+    protected StreamingIndicator create(double[] settings, RunContext runContext) {
+        EmaCalculator fast = (EmaCalculator) ema.getOrCreate(new double[] {days(settings[0])}, runContext);
+        EmaCalculator slow = (EmaCalculator) ema.getOrCreate(new double[] {days(settings[1])}, runContext);
+        return new MacdCalculator(fast, slow, days(settings[2]), true, runContext.lookbackBars);
+    }
+}
@@ -4,9 +4,11 @@ import Backtester.caches.ValueAccumulatorCache;
 import Backtester.objects.valueaccumulator.OhlcvField;
 import Backtester.objects.valueaccumulator.OhlcvValueAccumulator;
 import Backtester.objects.valueaccumulator.key.OhlcvKey;
+import Backtester.script.functions.ScriptArguments;
 import Backtester.script.functions.ScriptFunction;
 import Backtester.script.functions.result.NonVoidScriptFunctionResult;
 import Backtester.script.functions.result.ScriptFunctionResult;
+import Backtester.script.statements.expressions.ExpressionType;
 import Backtester.script.statements.expressions.FunctionSignatureProperties;
 import Backtester.script.statements.expressions.Literal;
 import Backtester.strategies.RunContext;
@@ -21,8 +23,13 @@ public abstract class OhlcvFunction implements ScriptFunction {
 
     public abstract String getFunctionName();
 
+    @Override
+    public boolean isIdempotent() {
+        return true;
+    }
+
     public static FunctionSignatureProperties getSignatureProperties() {
-        return new FunctionSignatureProperties(MINIMUM_ARGUMENTS, MAXIMUM_ARGUMENTS);
+        return new FunctionSignatureProperties(MINIMUM_ARGUMENTS, MAXIMUM_ARGUMENTS, ExpressionType.NUMBER);
     }
 
     public ScriptFunctionResult execute(List<Object> args, RunContext runContext) {
@@ -30,11 +37,9 @@ public abstract class OhlcvFunction implements ScriptFunction {
 
         OhlcvKey key = new OhlcvKey(getField(), lookback);
 
-        OhlcvValueAccumulator accumulator;
         ValueAccumulatorCache cache = runContext.valueAccumulatorCache;
-        if (cache.contains(key)) {
-            accumulator = (OhlcvValueAccumulator) cache.getValueAccumulator(key);
-        } else {
+        OhlcvValueAccumulator accumulator = (OhlcvValueAccumulator) cache.getValueAccumulator(key);
+        if (accumulator == null) {
             accumulator = new OhlcvValueAccumulator(getField(), lookback, runContext.bars, runContext.currentIndex);
             cache.put(key, accumulator);
         }
@@ -51,15 +56,11 @@ public abstract class OhlcvFunction implements ScriptFunction {
             return 0;
         }
 
-        try {
-            int lookback = Integer.parseInt(args.get(0).toString());
-            if (lookback < 0) {
-                throw new IllegalArgumentException("Lookback must be non-negative");
-            }
-            return lookback;
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Lookback must be an integer");
+        int lookback = ScriptArguments.wholeNumber(args.get(0), "Lookback");
+        if (lookback < 0) {
+            throw new IllegalArgumentException("Lookback must be non-negative");
         }
+        return lookback;
     }
 }
 
@@ -0,0 +1,143 @@
+package Backtester.script.lanes;
+
+import Backtester.script.tokens.TokenType;
+
+/**
+ * A condition evaluated for every lane at once, see {@link NumberLanes}.
+ */
+abstract class BooleanLanes {
+
+    abstract boolean[] evaluate(LaneFrame frame, boolean[] active);
+
+    static final class Constant extends BooleanLanes {
+        private final int buffer;
+
+        Constant(int buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        boolean[] evaluate(LaneFrame frame, boolean[] active) {
+            return frame.booleans[buffer];
+        }
+    }
+
+    static final class Variable extends BooleanLanes {
+        private final int slot;
+        private final boolean strict;
+
+        /**
+         * @param strict whether reading the variable before it is assigned fails, as it does everywhere except
+         *               in a condition, where the scalar backends treat a missing value as false
+         */
+        Variable(int slot, boolean strict) {
+            this.slot = slot;
+            this.strict = strict;
+        }
+
+        @Override
+        boolean[] evaluate(LaneFrame frame, boolean[] active) {
+            if (strict) {
+                boolean[] assigned = frame.assigned[slot];
+                for (int k = 0; k < assigned.length; k++) {
+                    if (active[k] && !assigned[k]) throw new RuntimeException("Boolean variable used before it was assigned");
+                }
+            }
+            return frame.flags[slot];
+        }
+    }
+
+    static final class Crossover extends BooleanLanes {
+        private final int indicator;
+
+        Crossover(int indicator) {
+            this.indicator = indicator;
+        }
+
+        @Override
+        boolean[] evaluate(LaneFrame frame, boolean[] active) {
+            if (!frame.started) frame.touch(indicator, active);
+            return ((LaneIndicator.Crossover) frame.indicators[indicator]).values(active);
+        }
+    }
+
+    static final class Not extends BooleanLanes {
+        private final int buffer;
+        private final BooleanLanes operand;
+
+        Not(int buffer, BooleanLanes operand) {
+            this.buffer = buffer;
+            this.operand = operand;
+        }
+
+        @Override
+        boolean[] evaluate(LaneFrame frame, boolean[] active) {
+            boolean[] v = operand.evaluate(frame, active);
+            boolean[] out = frame.booleans[buffer];
+            for (int k = 0; k < out.length; k++) {
+                out[k] = !v[k];
+            }
+            return out;
+        }
+    }
+
+    /**
+     * A number used as a condition, true when non-zero.
+     */
+    static final class Truthy extends BooleanLanes {
+        private final int buffer;
+        private final NumberLanes operand;
+
+        Truthy(int buffer, NumberLanes operand) {
+            this.buffer = buffer;
+            this.operand = operand;
+        }
+
+        @Override
+        boolean[] evaluate(LaneFrame frame, boolean[] active) {
+            double[] v = operand.evaluate(frame, active);
+            boolean[] out = frame.booleans[buffer];
+            for (int k = 0; k < out.length; k++) {
+                out[k] = v[k] != 0;
+            }
+            return out;
+        }
+    }
+
+    static final class Comparison extends BooleanLanes {
+        private final int buffer;
+        private final TokenType operator;
+        private final NumberLanes left;
+        private final NumberLanes right;
+
+        Comparison(int buffer, TokenType operator, NumberLanes left, NumberLanes right) {
+            this.buffer = buffer;
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean[] evaluate(LaneFrame frame, boolean[] active) {
+            double[] l = left.evaluate(frame, active);
+            double[] r = right.evaluate(frame, active);
+            boolean[] out = frame.booleans[buffer];
+            switch (operator) {
+                case GREATER -> {
+                    for (int k = 0; k < out.length; k++) out[k] = l[k] > r[k];
+                }
+                case LESS -> {
+                    for (int k = 0; k < out.length; k++) out[k] = l[k] < r[k];
+                }
+                case GREATER_EQUAL -> {
+                    for (int k = 0; k < out.length; k++) out[k] = l[k] >= r[k];
+                }
+                case LESS_EQUAL -> {
+                    for (int k = 0; k < out.length; k++) out[k] = l[k] <= r[k];
+                }
+                default -> throw new RuntimeException("Unsupported operator: " + operator);
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package Backtester.script.lanes;
+
+import Backtester.objects.CompiledScript;
+import Backtester.script.functions.CreateOrderFn;
+import Backtester.script.functions.CrossoverFn;
+import Backtester.script.functions.CrossunderFn;
+import Backtester.script.functions.ScriptArguments;
+import Backtester.script.functions.ScriptFunction;
+import Backtester.script.functions.ScriptFunctionRegistry;
+import Backtester.script.functions.ScriptFunctionRegistryFactory;
+import Backtester.script.functions.SmaFunction;
+import Backtester.script.functions.ohlcv.OhlcvFunction;
+import Backtester.script.optimizer.ConstantFolder;
+import Backtester.script.statements.ExpressionStatement;
+import Backtester.script.statements.IfStatement;
+import Backtester.script.statements.Statement;
+import Backtester.script.statements.VariableDeclaration;
+import Backtester.script.statements.expressions.*;
+import Backtester.script.tokens.Parser;
+
+import java.util.*;
+
+/**
+ * Compiles a script for lockstep execution over many paths. Only the part of the language whose lane semantics
+ * are known to match the scalar backends exactly is supported: numeric and boolean variables, arithmetic,
+ * comparisons, if/elif/else, sma/ohlcv/crossover/crossunder with constant settings and createOrder statements. A variable
+ * holding an indicator must be assigned once, at the top level, before it is read.
+ * <p>
+ * {@link #compile} returns null for any other script, callers then run paths one at a time.
+ */
+public class LaneCompiler {
+
+    private enum Kind { NUMBER, BOOLEAN, NUMERIC_INDICATOR, CROSSOVER, VOID }
+
+    private static final class Unsupported extends RuntimeException {
+        Unsupported(String reason) {
+            super(reason, null, false, false);
+        }
+    }
+
+    private ScriptFunctionRegistry registry;
+    private final Map<Integer, Kind> variableKinds = new HashMap<>();
+    private final Map<Integer, Expression> indicatorVariables = new HashMap<>();
+    private final Set<Integer> assignedIndicators = new HashSet<>();
+
+    private final Map<String, Integer> indicatorIndexes = new HashMap<>();
+    private final List<LaneIndicator.Factory> indicators = new ArrayList<>();
+    private final List<int[]> indicatorInputs = new ArrayList<>();
+    private final Map<Integer, Double> numberConstants = new HashMap<>();
+    private final Map<Integer, Boolean> booleanConstants = new HashMap<>();
+    private int numberBuffers;
+    private int booleanBuffers;
+    private int maskBuffers;
+
+    public LaneProgram compile(String script) {
+        CompiledScript compiled = new ConstantFolder().fold(new Parser().parse(script));
+        compiled.checkVariablesDeclared();
+        return compile(compiled);
+    }
+
+    /**
+     * @param script a parsed script, already constant folded
+     * @return the lane program, or null if the script uses anything lanes do not support
+     */
+    public LaneProgram compile(CompiledScript script) {
+        registry = ScriptFunctionRegistryFactory.createRegistry(script.functionCalls());
+        try {
+            inferVariableKinds(script.statements());
+            LaneStatement[] statements = compileBlock(script.statements());
+            return new LaneProgram(statements, script.variables().size(), numberBuffers, booleanBuffers, maskBuffers,
+                    numberConstants, booleanConstants, indicators, indicatorInputs);
+        } catch (Unsupported e) {
+            return null;
+        }
+    }
+
+    private void inferVariableKinds(List<Statement> statements) {
+        List<VariableDeclaration> assignments = new ArrayList<>();
+        collectAssignments(statements, true, assignments);
+        // Booleans may be copied between variables, so repeat until every copy has seen its source
+        for (int pass = 0; pass <= assignments.size(); pass++) {
+            boolean changed = false;
+            for (VariableDeclaration assign : assignments) {
+                Kind kind = kindOf(assign.initializer);
+                if (kind == null) continue;
+                Kind previous = variableKinds.putIfAbsent(assign.variable.slot, kind);
+                if (previous == null) changed = true;
+                else if (previous != kind) throw new Unsupported("variable '" + assign.name + "' changes type");
+            }
+            if (!changed) break;
+        }
+        for (VariableDeclaration assign : assignments) {
+            Kind kind = variableKinds.get(assign.variable.slot);
+            if (kind == null || kind == Kind.VOID) throw new Unsupported("untyped variable '" + assign.name + "'");
+            if (kind == Kind.NUMBER && !assign.variable.isPrimitiveNumber()) throw new Unsupported("boxed number");
+        }
+    }
+
+    private void collectAssignments(List<Statement> statements, boolean topLevel, List<VariableDeclaration> out) {
+        for (Statement stmt : statements) {
+            switch (stmt) {
+                case VariableDeclaration assign -> {
+                    out.add(assign);
+                    Kind kind = kindOf(assign.initializer);
+                    if (kind == Kind.NUMERIC_INDICATOR || kind == Kind.CROSSOVER) {
+                        if (!topLevel || !(assign.initializer instanceof FunctionCall)
+                                || indicatorVariables.put(assign.variable.slot, assign.initializer) != null) {
+                            throw new Unsupported("indicator variable '" + assign.name + "' is not assigned once at the top level");
+                        }
+                    }
+                }
+                case IfStatement ifStmt -> {
+                    for (IfStatement.IfBranch branch : ifStmt.branches) {
+                        collectAssignments(branch.body, false, out);
+                    }
+                }
+                default -> {}
+            }
+        }
+    }
+
+    private Kind kindOf(Expression expr) {
+        return switch (expr) {
+            case Literal lit -> switch (lit.value) {
+                case Number n -> Kind.NUMBER;
+                case Boolean b -> Kind.BOOLEAN;
+                case null, default -> throw new Unsupported("literal " + lit.value);
+            };
+            case Identifier var -> {
+                if (indicatorVariables.containsKey(var.variable.slot)) yield kindOf(indicatorVariables.get(var.variable.slot));
+                yield variableKinds.get(var.variable.slot);
+            }
+            case UnaryExpression unary -> switch (unary.operator.type) {
+                case MINUS -> Kind.NUMBER;
+                case BANG -> Kind.BOOLEAN;
+                default -> throw new Unsupported("operator " + unary.operator.type);
+            };
+            case BinaryExpression bin -> switch (bin.operator.type) {
+                case PLUS, MINUS, STAR, SLASH -> Kind.NUMBER;
+                case GREATER, LESS, GREATER_EQUAL, LESS_EQUAL -> Kind.BOOLEAN;
+                default -> throw new Unsupported("operator " + bin.operator.type);
+            };
+            case FunctionCall call -> switch (registry.get(call.functionName)) {
+                case SmaFunction fn -> Kind.NUMERIC_INDICATOR;
+                case OhlcvFunction fn -> Kind.NUMERIC_INDICATOR;
+                case CrossoverFn fn -> Kind.CROSSOVER;
+                case CrossunderFn fn -> Kind.CROSSOVER;
+                case CreateOrderFn fn -> Kind.VOID;
+                case null, default -> throw new Unsupported("function " + call.functionName);
+            };
+            case null, default -> throw new Unsupported("expression " + expr);
+        };
+    }
+
+    private LaneStatement[] compileBlock(List<Statement> statements) {
+        List<LaneStatement> out = new ArrayList<>();
+        for (Statement stmt : statements) {
+            switch (stmt) {
+                case VariableDeclaration assign -> {
+                    int slot = assign.variable.slot;
+                    switch (variableKinds.get(slot)) {
+                        case NUMBER -> out.add(new LaneStatement.AssignNumber(slot, number(assign.initializer)));
+                        case BOOLEAN -> out.add(new LaneStatement.AssignBoolean(slot, condition(assign.initializer),
+                                assign.initializer instanceof Identifier source ? source.variable.slot : -1));
+                        default -> {
+                            // Indicator variables are aliases for the indicator they are assigned
+                            out.add(new LaneStatement.Touch(indicator((FunctionCall) assign.initializer)));
+                            assignedIndicators.add(slot);
+                        }
+                    }
+                }
+                case ExpressionStatement expressionStatement -> {
+                    Expression expr = expressionStatement.expression;
+                    switch (kindOf(expr)) {
+                        case VOID -> out.add(call((FunctionCall) expr));
+                        case NUMBER -> out.add(new LaneStatement.Evaluate(number(expr), null));
+                        case BOOLEAN -> out.add(new LaneStatement.Evaluate(null, condition(expr)));
+                        case NUMERIC_INDICATOR, CROSSOVER -> out.add(new LaneStatement.Touch(indicator(indicatorCall(expr))));
+                        case null -> throw new Unsupported("unknown value");
+                    }
+                }
+                case IfStatement ifStmt -> {
+                    int n = ifStmt.branches.size();
+                    BooleanLanes[] conditions = new BooleanLanes[n];
+                    LaneStatement[][] bodies = new LaneStatement[n][];
+                    for (int i = 0; i < n; i++) {
+                        IfStatement.IfBranch branch = ifStmt.branches.get(i);
+                        conditions[i] = branch.isElse() ? null : condition(branch.condition);
+                        bodies[i] = compileBlock(branch.body);
+                    }
+                    out.add(new LaneStatement.If(conditions, bodies, maskBuffers++, maskBuffers++));
+                }
+                case null, default -> throw new Unsupported("statement " + stmt);
+            }
+        }
+        return out.toArray(new LaneStatement[0]);
+    }
+
+    private NumberLanes number(Expression expr) {
+        Kind kind = kindOf(expr);
+        if (kind == Kind.NUMERIC_INDICATOR) return new NumberLanes.Indicator(indicator(indicatorCall(expr)));
+        if (kind != Kind.NUMBER) throw new Unsupported("not a number: " + expr);
+        return switch (expr) {
+            case Literal lit -> {
+                int buffer = numberBuffers++;
+                numberConstants.put(buffer, ((Number) lit.value).doubleValue());
+                yield new NumberLanes.Constant(buffer);
+            }
+            case Identifier var -> new NumberLanes.Variable(var.variable.slot);
+            case UnaryExpression unary -> new NumberLanes.Negate(numberBuffers++, number(unary.right));
+            case BinaryExpression bin -> {
+                NumberLanes left = number(bin.left);
+                NumberLanes right = number(bin.right);
+                yield new NumberLanes.Arithmetic(numberBuffers++, bin.operator.type, left, right);
+            }
+            default -> throw new Unsupported("not a number: " + expr);
+        };
+    }
+
+    private BooleanLanes condition(Expression expr) {
+        Kind kind = kindOf(expr);
+        if (kind == Kind.NUMBER) return new BooleanLanes.Truthy(booleanBuffers++, number(expr));
+        if (kind == Kind.CROSSOVER) return new BooleanLanes.Crossover(indicator(indicatorCall(expr)));
+        if (kind != Kind.BOOLEAN) throw new Unsupported("not a condition: " + expr);
+        return switch (expr) {
+            case Literal lit -> {
+                int buffer = booleanBuffers++;
+                booleanConstants.put(buffer, (Boolean) lit.value);
+                yield new BooleanLanes.Constant(buffer);
+            }
+            case Identifier var -> new BooleanLanes.Variable(var.variable.slot, false);
+            case UnaryExpression unary -> {
+                // The scalar backends only negate actual booleans and fail on anything else
+                if (kindOf(unary.right) != Kind.BOOLEAN) throw new Unsupported("! of a non-boolean");
+                BooleanLanes operand = unary.right instanceof Identifier var
+                        ? new BooleanLanes.Variable(var.variable.slot, true)
+                        : condition(unary.right);
+                yield new BooleanLanes.Not(booleanBuffers++, operand);
+            }
+            case BinaryExpression bin -> {
+                NumberLanes left = number(bin.left);
+                NumberLanes right = number(bin.right);
+                yield new BooleanLanes.Comparison(booleanBuffers++, bin.operator.type, left, right);
+            }
+            default -> throw new Unsupported("not a condition: " + expr);
+        };
+    }
+
+    private FunctionCall indicatorCall(Expression expr) {
+        if (expr instanceof Identifier var) {
+            if (!assignedIndicators.contains(var.variable.slot)) throw new Unsupported("indicator variable read before it is assigned");
+            return (FunctionCall) indicatorVariables.get(var.variable.slot);
+        }
+        return (FunctionCall) expr;
+    }
+
+    /**
+     * Returns the index of the indicator for a call, creating it if this is its first use. Keys match the ones
+     * ValueAccumulatorCache uses, so calls that share an accumulator in a scalar run share lanes here.
+     */
+    private int indicator(FunctionCall call) {
+        String key;
+        LaneIndicator.Factory factory;
+        int[] inputs = new int[0];
+        switch (registry.get(call.functionName)) {
+            case SmaFunction fn -> {
+                if (call.arguments.size() != 1) throw new Unsupported("sma arguments");
+                int days = intArgument(call.arguments.getFirst());
+                key = "sma(" + days + ")";
+                factory = frame -> new LaneIndicator.Sma(days, frame.lookbackBars, frame.lanes);
+            }
+            case OhlcvFunction fn -> {
+                if (call.arguments.size() > 1) throw new Unsupported("ohlcv arguments");
+                int lookback = call.arguments.isEmpty() ? 0 : intArgument(call.arguments.getFirst());
+                if (lookback < 0) throw new Unsupported("negative lookback");
+                key = fn.getField() + "(" + lookback + ")";
+                factory = frame -> new LaneIndicator.Ohlcv(fn.getField(), lookback, frame.paths, 0);
+            }
+            case CrossoverFn fn -> {
+                return crossover(call, false);
+            }
+            case CrossunderFn fn -> {
+                return crossover(call, true);
+            }
+            case null, default -> throw new Unsupported("function " + call.functionName);
+        }
+        return register(key, factory, inputs);
+    }
+
+    /**
+     * crossunder(a, b) is registered as crossover(b, a), like CrossunderFn does in a scalar run.
+     */
+    private int crossover(FunctionCall call, boolean under) {
+        if (call.arguments.size() != 2) throw new Unsupported(call.functionName + " arguments");
+        int a = numericIndicator(call.arguments.get(0));
+        int b = numericIndicator(call.arguments.get(1));
+        int first = under ? b : a;
+        int second = under ? a : b;
+        return register("crossover(" + first + "," + second + ")",
+                frame -> new LaneIndicator.Crossover((LaneIndicator.Numeric) frame.indicators[first],
+                        (LaneIndicator.Numeric) frame.indicators[second], frame.all),
+                new int[] {first, second});
+    }
+
+    private int register(String key, LaneIndicator.Factory factory, int[] inputs) {
+        Integer index = indicatorIndexes.get(key);
+        if (index == null) {
+            index = indicators.size();
+            indicators.add(factory);
+            indicatorInputs.add(inputs);
+            indicatorIndexes.put(key, index);
+        }
+        return index;
+    }
+
+    private int numericIndicator(Expression expr) {
+        if (kindOf(expr) != Kind.NUMERIC_INDICATOR) throw new Unsupported("crossover of a non-indicator");
+        return indicator(indicatorCall(expr));
+    }
+
+    private static int intArgument(Expression expr) {
+        if (!(expr instanceof Literal lit) || lit.value == null) throw new Unsupported("non-constant indicator setting");
+        try {
+            return ScriptArguments.wholeNumber(lit.value, "Indicator setting");
+        } catch (IllegalArgumentException e) {
+            throw new Unsupported("non-integer indicator setting");
+        }
+    }
+
+    private LaneStatement call(FunctionCall call) {
+        ScriptFunction function = registry.get(call.functionName);
+        int n = call.arguments.size();
+        Object[] literals = new Object[n];
+        NumberLanes[] numbers = new NumberLanes[n];
+        BooleanLanes[] conditions = new BooleanLanes[n];
+        for (int i = 0; i < n; i++) {
+            Expression arg = call.arguments.get(i);
+            if (arg instanceof Literal lit) {
+                literals[i] = lit.value;
+                continue;
+            }
+            switch (kindOf(arg)) {
+                case NUMBER -> numbers[i] = number(arg);
+                case BOOLEAN -> conditions[i] = arg instanceof Identifier var
+                        ? new BooleanLanes.Variable(var.variable.slot, true)
+                        : condition(arg);
+                case null, default -> throw new Unsupported("argument " + arg);
+            }
+        }
+        return new LaneStatement.Call(function, literals, numbers, conditions);
+    }
+}
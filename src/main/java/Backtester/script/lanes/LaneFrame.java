@@ -0,0 +1,94 @@
+package Backtester.script.lanes;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+import Backtester.strategies.RunContext;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mutable state of a {@link LaneProgram} running over a block of price paths. Every value is a lane array with one
+ * entry per path; expression nodes write their results into the scratch buffers assigned to them at compile time.
+ */
+final class LaneFrame {
+
+    final int lanes;
+    final RunContext[] contexts;
+    final BarSeries[] paths;
+    final List<Bar> lookbackBars;
+    final boolean[] all;
+
+    final double[][] numbers;
+    final boolean[][] booleans;
+    final boolean[][] masks;
+    final double[][] variables;
+    final boolean[][] flags;
+    final boolean[][] assigned; // per boolean variable, as the scalar backends start them out as null
+    final LaneIndicator[] indicators;
+    // Lanes that reached each indicator during the first evaluation, see LaneProgram.Executor#start
+    final boolean[][] touched;
+    final int[][] indicatorInputs;
+    boolean started;
+
+    LaneFrame(LaneProgram program, RunContext[] contexts, BarSeries[] paths, List<Bar> lookbackBars) {
+        this.lanes = contexts.length;
+        this.contexts = contexts;
+        this.paths = paths;
+        this.lookbackBars = lookbackBars;
+        this.all = new boolean[lanes];
+        Arrays.fill(all, true);
+
+        this.numbers = new double[program.numberBuffers][lanes];
+        this.booleans = new boolean[program.booleanBuffers][lanes];
+        this.masks = new boolean[program.maskBuffers][lanes];
+        this.variables = new double[program.variableCount][lanes];
+        this.flags = new boolean[program.variableCount][lanes];
+        this.assigned = new boolean[program.variableCount][lanes];
+        for (double[] variable : variables) {
+            Arrays.fill(variable, Double.NaN);
+        }
+        program.numberConstants.forEach((buffer, value) -> Arrays.fill(numbers[buffer], value));
+        program.booleanConstants.forEach((buffer, value) -> Arrays.fill(booleans[buffer], value));
+
+        this.indicators = new LaneIndicator[program.indicators.size()];
+        for (int i = 0; i < indicators.length; i++) {
+            indicators[i] = program.indicators.get(i).create(this);
+        }
+        this.touched = new boolean[indicators.length][lanes];
+        this.indicatorInputs = program.indicatorInputs.toArray(new int[0][]);
+    }
+
+    /**
+     * Records that the active lanes reached an indicator, which is when a scalar run would create its accumulator
+     * (and those of its inputs).
+     */
+    void touch(int indicator, boolean[] active) {
+        boolean[] lanesTouched = touched[indicator];
+        for (int k = 0; k < lanes; k++) {
+            if (active[k] && !lanesTouched[k]) {
+                lanesTouched[k] = true;
+                indicators[indicator].create();
+            }
+        }
+        for (int input : indicatorInputs[indicator]) {
+            touch(input, active);
+        }
+    }
+
+    boolean allTouched() {
+        for (boolean[] lanesTouched : touched) {
+            for (boolean lane : lanesTouched) {
+                if (!lane) return false;
+            }
+        }
+        return true;
+    }
+
+    void rollIndicators(int index) {
+        // Indicators are created after their inputs, so in reverse order a crossover sees its inputs before they move
+        for (int i = indicators.length - 1; i >= 0; i--) {
+            indicators[i].roll(paths, index);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package Backtester.script.lanes;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+import Backtester.objects.valueaccumulator.OhlcvField;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lane counterparts of the value accumulators. Each one tracks the same state as its scalar accumulator for every
+ * path in the block and produces bit-identical values.
+ */
+abstract class LaneIndicator {
+
+    abstract void roll(BarSeries[] paths, int index);
+
+    /**
+     * Called when a lane first reaches the indicator, for the checks the scalar accumulator does on construction.
+     */
+    void create() {}
+
+    /**
+     * Creates an indicator when a {@link LaneFrame} is set up, which corresponds to the first evaluation of a run.
+     */
+    interface Factory {
+        LaneIndicator create(LaneFrame frame);
+    }
+
+    abstract static class Numeric extends LaneIndicator {
+        abstract double[] values(boolean[] active);
+    }
+
+    /**
+     * See {@link Backtester.objects.valueaccumulator.SmaCalculator}. All lanes start from the same lookback window
+     * and share the ring position, only sums and values differ per lane.
+     */
+    static final class Sma extends Numeric {
+
+        private final int numDays;
+        private final int lanes;
+        private final double[] window;
+        private final double[] sums;
+        private final double[] compensations;
+        private final double[] values;
+        private final double[] latest;
+        private int position;
+        private int count;
+
+        private final boolean valid;
+
+        Sma(int numDays, List<Bar> initialValues, int lanes) {
+            this.valid = numDays > 0 && initialValues.size() >= numDays;
+            this.numDays = numDays;
+            this.lanes = lanes;
+            this.window = new double[valid ? numDays * lanes : 0];
+            this.sums = new double[lanes];
+            this.compensations = new double[lanes];
+            this.values = new double[lanes];
+            this.latest = new double[lanes];
+            if (!valid) return;
+            for (Bar bar : initialValues) {
+                Arrays.fill(latest, bar.close);
+                add();
+            }
+        }
+
+        @Override
+        void create() {
+            if (!valid) throw new IllegalArgumentException();
+        }
+
+        @Override
+        void roll(BarSeries[] paths, int index) {
+            for (int k = 0; k < lanes; k++) {
+                latest[k] = paths[k].close[index];
+            }
+            add();
+        }
+
+        private void add() {
+            int offset = position * lanes;
+            boolean full = count == numDays;
+            for (int k = 0; k < lanes; k++) {
+                if (latest[k] < 0) throw new IllegalArgumentException();
+                if (full) accumulate(k, -window[offset + k]);
+                window[offset + k] = latest[k];
+                accumulate(k, latest[k]);
+            }
+            position = position + 1 == numDays ? 0 : position + 1;
+            if (!full) count++;
+        }
+
+        // Same compensated sum as SmaCalculator
+        private void accumulate(int k, double value) {
+            double sum = sums[k];
+            double t = sum + value;
+            compensations[k] += Math.abs(sum) >= Math.abs(value) ? (sum - t) + value : (value - t) + sum;
+            sums[k] = t;
+        }
+
+        @Override
+        double[] values(boolean[] active) {
+            for (int k = 0; k < lanes; k++) {
+                values[k] = (sums[k] + compensations[k]) / numDays;
+            }
+            return values;
+        }
+    }
+
+    /**
+     * See {@link Backtester.objects.valueaccumulator.OhlcvValueAccumulator}.
+     */
+    static final class Ohlcv extends Numeric {
+
+        private final OhlcvField field;
+        private final int lookback;
+        private final BarSeries[] paths;
+        private final double[] values;
+        private int currentIndex; // Paths in a block have the same length and move together
+
+        Ohlcv(OhlcvField field, int lookback, BarSeries[] paths, int currentIndex) {
+            this.field = field;
+            this.lookback = lookback;
+            this.paths = paths;
+            this.currentIndex = currentIndex;
+            this.values = new double[paths.length];
+        }
+
+        @Override
+        void roll(BarSeries[] paths, int index) {
+            currentIndex = index;
+        }
+
+        @Override
+        double[] values(boolean[] active) {
+            for (int k = 0; k < values.length; k++) {
+                if (!active[k]) continue;
+                int targetIndex = currentIndex - lookback;
+                if (targetIndex < 0) {
+                    throw new RuntimeException("Cannot access bar " + lookback + " bars back from current position");
+                }
+                BarSeries path = paths[k];
+                values[k] = switch (field) {
+                    case OPEN -> path.open[targetIndex];
+                    case HIGH -> path.high[targetIndex];
+                    case LOW -> path.low[targetIndex];
+                    case CLOSE -> path.close[targetIndex];
+                    case VOLUME -> (double) path.volume[targetIndex];
+                };
+            }
+            return values;
+        }
+    }
+
+    /**
+     * See {@link Backtester.objects.valueaccumulator.CrossoverDetector}. The scalar detector remembers the sign its
+     * inputs had before they rolled; here the crossover rolls before its inputs and reads that sign directly.
+     * Before the first roll a detector never reports a crossover, as its previous sign is taken from the current
+     * values, so only the reads are replayed.
+     */
+    static final class Crossover extends LaneIndicator {
+
+        private final Numeric first;
+        private final Numeric second;
+        private final boolean[] all;
+        private final int[] previousSign;
+        private final boolean[] values;
+        private boolean rolled;
+
+        Crossover(Numeric first, Numeric second, boolean[] all) {
+            this.first = first;
+            this.second = second;
+            this.all = all;
+            this.previousSign = new int[all.length];
+            this.values = new boolean[all.length];
+        }
+
+        @Override
+        void roll(BarSeries[] paths, int index) {
+            double[] a = first.values(all);
+            double[] b = second.values(all);
+            for (int k = 0; k < previousSign.length; k++) {
+                double diff = a[k] - b[k];
+                if (diff > 0) {
+                    previousSign[k] = 1;
+                } else if (diff < 0) {
+                    previousSign[k] = -1;
+                }
+            }
+            rolled = true;
+        }
+
+        boolean[] values(boolean[] active) {
+            double[] a = first.values(active);
+            double[] b = second.values(active);
+            if (!rolled) return values;
+            for (int k = 0; k < values.length; k++) {
+                double diff = a[k] - b[k];
+                int sign = diff > 0 ? 1 : diff < 0 ? -1 : 0;
+                values[k] = previousSign[k] != 0 && sign > 0 && sign != previousSign[k];
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package Backtester.script.lanes;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+import Backtester.strategies.RunContext;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A strategy script compiled to run over a block of price paths in lockstep. Like the other compiled programs it
+ * holds no run state and can be shared between threads.
+ */
+public class LaneProgram {
+
+    final LaneStatement[] statements;
+    final int variableCount;
+    final int numberBuffers;
+    final int booleanBuffers;
+    final int maskBuffers;
+    final Map<Integer, Double> numberConstants;
+    final Map<Integer, Boolean> booleanConstants;
+    final List<LaneIndicator.Factory> indicators;
+    final List<int[]> indicatorInputs;
+
+    LaneProgram(LaneStatement[] statements, int variableCount, int numberBuffers, int booleanBuffers, int maskBuffers,
+                Map<Integer, Double> numberConstants, Map<Integer, Boolean> booleanConstants,
+                List<LaneIndicator.Factory> indicators, List<int[]> indicatorInputs) {
+        this.statements = statements;
+        this.variableCount = variableCount;
+        this.numberBuffers = numberBuffers;
+        this.booleanBuffers = booleanBuffers;
+        this.maskBuffers = maskBuffers;
+        this.numberConstants = numberConstants;
+        this.booleanConstants = booleanConstants;
+        this.indicators = indicators;
+        this.indicatorInputs = indicatorInputs;
+    }
+
+    /**
+     * Starts a block of runs, one per path. Contexts and paths are matched by position.
+     */
+    public Executor newExecutor(RunContext[] contexts, BarSeries[] paths, List<Bar> lookbackBars) {
+        return new Executor(new LaneFrame(this, contexts, paths, lookbackBars));
+    }
+
+    public final class Executor {
+
+        private final LaneFrame frame;
+
+        private Executor(LaneFrame frame) {
+            this.frame = frame;
+        }
+
+        /**
+         * The first evaluation of the block. Lane indicators all start on this evaluation, so the block only
+         * matches scalar runs if every lane reaches every indicator here; otherwise this returns false and the
+         * paths must be run by a scalar backend instead.
+         */
+        public boolean start() {
+            evaluate();
+            frame.started = true;
+            return frame.allTouched();
+        }
+
+        public void evaluate() {
+            for (LaneStatement stmt : statements) {
+                stmt.execute(frame, frame.all);
+            }
+        }
+
+        /**
+         * Moves every lane onto bar {@code index} of its path, the lane counterpart of {@link RunContext#roll}.
+         */
+        public void roll(int index) {
+            for (int k = 0; k < frame.lanes; k++) {
+                frame.contexts[k].roll(index);
+            }
+            frame.rollIndicators(index);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package Backtester.script.lanes;
+
+import Backtester.script.functions.ScriptFunction;
+
+import java.util.Arrays;
+
+/**
+ * A statement executed for the active lanes only.
+ */
+abstract class LaneStatement {
+
+    abstract void execute(LaneFrame frame, boolean[] active);
+
+    static final class AssignNumber extends LaneStatement {
+        private final int slot;
+        private final NumberLanes value;
+
+        AssignNumber(int slot, NumberLanes value) {
+            this.slot = slot;
+            this.value = value;
+        }
+
+        @Override
+        void execute(LaneFrame frame, boolean[] active) {
+            double[] v = value.evaluate(frame, active);
+            double[] variable = frame.variables[slot];
+            for (int k = 0; k < variable.length; k++) {
+                if (active[k]) variable[k] = v[k];
+            }
+        }
+    }
+
+    static final class AssignBoolean extends LaneStatement {
+        private final int slot;
+        private final BooleanLanes value;
+        private final int source; // slot of the variable copied, -1 for any other value
+
+        /**
+         * @param source slot of the variable the value is a copy of, which is copied unassigned if it is unassigned,
+         *               like the null the scalar backends copy. -1 for any other value
+         */
+        AssignBoolean(int slot, BooleanLanes value, int source) {
+            this.slot = slot;
+            this.value = value;
+            this.source = source;
+        }
+
+        @Override
+        void execute(LaneFrame frame, boolean[] active) {
+            boolean[] v = value.evaluate(frame, active);
+            boolean[] flag = frame.flags[slot];
+            boolean[] assigned = frame.assigned[slot];
+            boolean[] sourceAssigned = source >= 0 ? frame.assigned[source] : null;
+            for (int k = 0; k < flag.length; k++) {
+                if (active[k]) {
+                    flag[k] = v[k];
+                    assigned[k] = sourceAssigned == null || sourceAssigned[k];
+                }
+            }
+        }
+    }
+
+    /**
+     * An expression whose result is unused. It is still evaluated since the scalar backends would fail on it.
+     */
+    static final class Evaluate extends LaneStatement {
+        private final NumberLanes number;
+        private final BooleanLanes condition;
+
+        Evaluate(NumberLanes number, BooleanLanes condition) {
+            this.number = number;
+            this.condition = condition;
+        }
+
+        @Override
+        void execute(LaneFrame frame, boolean[] active) {
+            if (number != null) number.evaluate(frame, active);
+            if (condition != null) condition.evaluate(frame, active);
+        }
+    }
+
+    /**
+     * An indicator call whose value is not used, or an assignment to a variable that holds an indicator.
+     * Either only matters on the first evaluation, where it creates the indicator.
+     */
+    static final class Touch extends LaneStatement {
+        private final int indicator;
+
+        Touch(int indicator) {
+            this.indicator = indicator;
+        }
+
+        @Override
+        void execute(LaneFrame frame, boolean[] active) {
+            if (!frame.started) frame.touch(indicator, active);
+        }
+    }
+
+    static final class If extends LaneStatement {
+        private final BooleanLanes[] conditions; // null for else
+        private final LaneStatement[][] bodies;
+        private final int remainingMask;
+        private final int takenMask;
+
+        If(BooleanLanes[] conditions, LaneStatement[][] bodies, int remainingMask, int takenMask) {
+            this.conditions = conditions;
+            this.bodies = bodies;
+            this.remainingMask = remainingMask;
+            this.takenMask = takenMask;
+        }
+
+        @Override
+        void execute(LaneFrame frame, boolean[] active) {
+            boolean[] remaining = frame.masks[remainingMask];
+            boolean[] taken = frame.masks[takenMask];
+            System.arraycopy(active, 0, remaining, 0, remaining.length);
+            for (int i = 0; i < conditions.length; i++) {
+                boolean any = false;
+                if (conditions[i] == null) {
+                    System.arraycopy(remaining, 0, taken, 0, taken.length);
+                    Arrays.fill(remaining, false);
+                    for (boolean lane : taken) any |= lane;
+                } else {
+                    boolean[] c = conditions[i].evaluate(frame, remaining);
+                    for (int k = 0; k < taken.length; k++) {
+                        taken[k] = remaining[k] && c[k];
+                        remaining[k] = remaining[k] && !c[k];
+                        any |= taken[k];
+                    }
+                }
+                if (any) {
+                    for (LaneStatement stmt : bodies[i]) {
+                        stmt.execute(frame, taken);
+                    }
+                }
+                boolean left = false;
+                for (boolean lane : remaining) left |= lane;
+                if (!left) return;
+            }
+        }
+    }
+
+    /**
+     * A call with side effects, made once per active lane against that lane's run context.
+     */
+    static final class Call extends LaneStatement {
+        private final ScriptFunction function;
+        private final Object[] literals;
+        private final NumberLanes[] numbers;
+        private final BooleanLanes[] conditions;
+
+        Call(ScriptFunction function, Object[] literals, NumberLanes[] numbers, BooleanLanes[] conditions) {
+            this.function = function;
+            this.literals = literals;
+            this.numbers = numbers;
+            this.conditions = conditions;
+        }
+
+        @Override
+        void execute(LaneFrame frame, boolean[] active) {
+            int n = literals.length;
+            double[][] numberValues = new double[n][];
+            boolean[][] conditionValues = new boolean[n][];
+            for (int i = 0; i < n; i++) {
+                if (numbers[i] != null) numberValues[i] = numbers[i].evaluate(frame, active);
+                else if (conditions[i] != null) conditionValues[i] = conditions[i].evaluate(frame, active);
+            }
+            for (int k = 0; k < frame.lanes; k++) {
+                if (!active[k]) continue;
+                Object[] args = new Object[n];
+                for (int i = 0; i < n; i++) {
+                    if (numberValues[i] != null) args[i] = numberValues[i][k];
+                    else if (conditionValues[i] != null) args[i] = conditionValues[i][k];
+                    else args[i] = literals[i];
+                }
+                function.execute(Arrays.asList(args), frame.contexts[k]);
+            }
+        }
+    }
+}
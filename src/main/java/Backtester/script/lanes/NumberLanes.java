@@ -0,0 +1,110 @@
+package Backtester.script.lanes;
+
+import Backtester.script.tokens.TokenType;
+
+/**
+ * A numeric expression evaluated for every lane at once. Results are written to the frame buffer the node was
+ * assigned, so evaluation does not allocate. Lanes that are not active may hold any value.
+ */
+abstract class NumberLanes {
+
+    abstract double[] evaluate(LaneFrame frame, boolean[] active);
+
+    static final class Constant extends NumberLanes {
+        private final int buffer;
+
+        Constant(int buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        double[] evaluate(LaneFrame frame, boolean[] active) {
+            return frame.numbers[buffer];
+        }
+    }
+
+    static final class Variable extends NumberLanes {
+        private final int slot;
+
+        Variable(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        double[] evaluate(LaneFrame frame, boolean[] active) {
+            return frame.variables[slot];
+        }
+    }
+
+    static final class Indicator extends NumberLanes {
+        private final int indicator;
+
+        Indicator(int indicator) {
+            this.indicator = indicator;
+        }
+
+        @Override
+        double[] evaluate(LaneFrame frame, boolean[] active) {
+            if (!frame.started) frame.touch(indicator, active);
+            return ((LaneIndicator.Numeric) frame.indicators[indicator]).values(active);
+        }
+    }
+
+    static final class Negate extends NumberLanes {
+        private final int buffer;
+        private final NumberLanes operand;
+
+        Negate(int buffer, NumberLanes operand) {
+            this.buffer = buffer;
+            this.operand = operand;
+        }
+
+        @Override
+        double[] evaluate(LaneFrame frame, boolean[] active) {
+            double[] v = operand.evaluate(frame, active);
+            double[] out = frame.numbers[buffer];
+            for (int k = 0; k < out.length; k++) {
+                out[k] = -v[k];
+            }
+            return out;
+        }
+    }
+
+    static final class Arithmetic extends NumberLanes {
+        private final int buffer;
+        private final TokenType operator;
+        private final NumberLanes left;
+        private final NumberLanes right;
+
+        Arithmetic(int buffer, TokenType operator, NumberLanes left, NumberLanes right) {
+            this.buffer = buffer;
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double[] evaluate(LaneFrame frame, boolean[] active) {
+            double[] l = left.evaluate(frame, active);
+            double[] r = right.evaluate(frame, active);
+            double[] out = frame.numbers[buffer];
+            // One branch-free loop per operator so the JIT can vectorize it
+            switch (operator) {
+                case PLUS -> {
+                    for (int k = 0; k < out.length; k++) out[k] = l[k] + r[k];
+                }
+                case MINUS -> {
+                    for (int k = 0; k < out.length; k++) out[k] = l[k] - r[k];
+                }
+                case STAR -> {
+                    for (int k = 0; k < out.length; k++) out[k] = l[k] * r[k];
+                }
+                case SLASH -> {
+                    for (int k = 0; k < out.length; k++) out[k] = l[k] / r[k];
+                }
+                default -> throw new RuntimeException("Unsupported operator: " + operator);
+            }
+            return out;
+        }
+    }
+}
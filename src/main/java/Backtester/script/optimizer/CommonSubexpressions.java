@@ -0,0 +1,180 @@
+package Backtester.script.optimizer;
+
+import Backtester.objects.CompiledScript;
+import Backtester.script.functions.ScriptFunctionRegistry;
+import Backtester.script.statements.ExpressionStatement;
+import Backtester.script.statements.IfStatement;
+import Backtester.script.statements.Statement;
+import Backtester.script.statements.VariableDeclaration;
+import Backtester.script.statements.expressions.*;
+import Backtester.script.tokens.TokenType;
+
+import java.util.*;
+
+/**
+ * Finds pure expressions that occur more than once in a script, such as a repeated {@code close(1) - close(2)}.
+ * Every occurrence of such an expression is given the same shared slot, so backends can evaluate it once per bar
+ * and hand the result to all of its users. Expressions that read variables stay valid until one of those variables
+ * is assigned, see {@link #slotsReading}.
+ * <p>
+ * Calls whose arguments are all constants are not shared, since backends already resolve those once per run.
+ */
+public class CommonSubexpressions {
+
+    private final Map<Expression, Integer> slots = new IdentityHashMap<>();
+    private final Map<Integer, int[]> slotsByVariable = new HashMap<>();
+    private int size;
+
+    public static CommonSubexpressions find(CompiledScript script, ScriptFunctionRegistry registry) {
+        Finder finder = new Finder(registry);
+        finder.visitBlock(script.statements());
+        return finder.result();
+    }
+
+    /**
+     * @return the shared slot of this expression, or -1 if it is not shared
+     */
+    public int slotOf(Expression expr) {
+        Integer slot = slots.get(expr);
+        return slot == null ? -1 : slot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the shared slots whose value is stale once the given variable is assigned
+     */
+    public int[] slotsReading(ScriptVariable variable) {
+        return slotsByVariable.getOrDefault(variable.slot, new int[0]);
+    }
+
+    private static final class Finder {
+
+        private final ScriptFunctionRegistry registry;
+        // Candidates in script order, so slot numbering is stable for a given script
+        private final List<Expression> candidates = new ArrayList<>();
+        private final List<String> candidateKeys = new ArrayList<>();
+        private final Map<String, Integer> counts = new HashMap<>();
+        private final Map<String, Set<Integer>> variablesByKey = new HashMap<>();
+
+        Finder(ScriptFunctionRegistry registry) {
+            this.registry = registry;
+        }
+
+        void visitBlock(List<Statement> statements) {
+            for (Statement stmt : statements) {
+                switch (stmt) {
+                    case ExpressionStatement expressionStatement -> visit(expressionStatement.expression);
+                    case VariableDeclaration assign -> visit(assign.initializer);
+                    case IfStatement ifStmt -> {
+                        for (IfStatement.IfBranch branch : ifStmt.branches) {
+                            if (!branch.isElse()) visit(branch.condition);
+                            visitBlock(branch.body);
+                        }
+                    }
+                    case null, default -> {}
+                }
+            }
+        }
+
+        /**
+         * Computes the canonical form of an expression, or null if it is not pure. Operands of commutative
+         * operators are ordered and {@code a > b} is written as {@code b < a}, so equivalent spellings share a key.
+         */
+        private String visit(Expression expr) {
+            Set<Integer> variables = new TreeSet<>();
+            String key = switch (expr) {
+                case Literal lit -> literalKey(lit.value);
+                case Identifier var -> {
+                    variables.add(var.variable.slot);
+                    yield "$" + var.variable.slot;
+                }
+                case UnaryExpression unary -> {
+                    String operand = visit(unary.right);
+                    if (operand == null) yield null;
+                    variables.addAll(variablesByKey.getOrDefault(operand, Set.of()));
+                    yield "(" + unary.operator.type + " " + operand + ")";
+                }
+                case BinaryExpression bin -> {
+                    String left = visit(bin.left);
+                    String right = visit(bin.right);
+                    if (left == null || right == null) yield null;
+                    variables.addAll(variablesByKey.getOrDefault(left, Set.of()));
+                    variables.addAll(variablesByKey.getOrDefault(right, Set.of()));
+                    yield binaryKey(bin.operator.type, left, right);
+                }
+                case FunctionCall call -> {
+                    StringBuilder sb = new StringBuilder(call.functionName).append('(');
+                    boolean pure = registry.isIdempotent(call);
+                    for (Expression arg : call.arguments) {
+                        String argKey = visit(arg);
+                        if (argKey == null) pure = false;
+                        else variables.addAll(variablesByKey.getOrDefault(argKey, Set.of()));
+                        sb.append(argKey).append(',');
+                    }
+                    yield pure ? sb.append(')').toString() : null;
+                }
+                case null, default -> null;
+            };
+            if (key != null && isCandidate(expr)) {
+                candidates.add(expr);
+                candidateKeys.add(key);
+                counts.merge(key, 1, Integer::sum);
+            }
+            if (key != null && !variables.isEmpty()) variablesByKey.put(key, variables);
+            return key;
+        }
+
+        private boolean isCandidate(Expression expr) {
+            return expr instanceof BinaryExpression || expr instanceof UnaryExpression
+                    || expr instanceof FunctionCall call && !registry.isBindable(call);
+        }
+
+        private static String literalKey(Object value) {
+            return switch (value) {
+                case null -> "null";
+                case String s -> "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+                default -> value.getClass().getSimpleName() + ":" + value;
+            };
+        }
+
+        private static String binaryKey(TokenType op, String left, String right) {
+            switch (op) {
+                case GREATER -> {
+                    return binaryKey(TokenType.LESS, right, left);
+                }
+                case GREATER_EQUAL -> {
+                    return binaryKey(TokenType.LESS_EQUAL, right, left);
+                }
+                case PLUS, STAR, EQUAL_EQUAL, BANG_EQUAL -> {
+                    if (left.compareTo(right) > 0) return "(" + op + " " + right + " " + left + ")";
+                }
+                default -> {}
+            }
+            return "(" + op + " " + left + " " + right + ")";
+        }
+
+        CommonSubexpressions result() {
+            CommonSubexpressions result = new CommonSubexpressions();
+            Map<String, Integer> slotsByKey = new HashMap<>();
+            Map<Integer, List<Integer>> readers = new HashMap<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                String key = candidateKeys.get(i);
+                if (counts.get(key) < 2) continue;
+                Integer slot = slotsByKey.get(key);
+                if (slot == null) {
+                    slot = result.size++;
+                    slotsByKey.put(key, slot);
+                    for (int variable : variablesByKey.getOrDefault(key, Set.of())) {
+                        readers.computeIfAbsent(variable, v -> new ArrayList<>()).add(slot);
+                    }
+                }
+                result.slots.put(candidates.get(i), slot);
+            }
+            readers.forEach((variable, slots) -> result.slotsByVariable.put(variable, slots.stream().mapToInt(Integer::intValue).toArray()));
+            return result;
+        }
+    }
+}
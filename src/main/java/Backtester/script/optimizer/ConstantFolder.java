@@ -0,0 +1,121 @@
+package Backtester.script.optimizer;
+
+import Backtester.objects.CompiledScript;
+import Backtester.script.ScriptEvaluator;
+import Backtester.script.statements.ExpressionStatement;
+import Backtester.script.statements.IfStatement;
+import Backtester.script.statements.Statement;
+import Backtester.script.statements.VariableDeclaration;
+import Backtester.script.statements.expressions.*;
+import Backtester.script.tokens.Token;
+import Backtester.script.tokens.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optimization pass run between parsing and evaluation. Operator subtrees whose operands are all literals are
+ * replaced by their result (this includes function arguments such as {@code sma(10 * 2)}), and if/elif branches
+ * whose condition is a constant are either dropped or become the unconditional branch.
+ * Folded values are exactly what evaluation would have produced, so the pass never changes script behaviour.
+ * Like evaluation, arithmetic always produces a Double, so {@code sma(10 * 2)} gets 20.0, which functions taking
+ * whole numbers accept.
+ */
+public class ConstantFolder {
+
+    public CompiledScript fold(CompiledScript script) {
+        return new CompiledScript(foldBlock(script.statements()), script.functionCalls(), script.variables());
+    }
+
+    private List<Statement> foldBlock(List<Statement> statements) {
+        List<Statement> folded = new ArrayList<>(statements.size());
+        for (Statement stmt : statements) {
+            fold(stmt, folded);
+        }
+        return folded;
+    }
+
+    private void fold(Statement stmt, List<Statement> out) {
+        switch (stmt) {
+            case ExpressionStatement expressionStatement -> {
+                Expression expr = fold(expressionStatement.expression);
+                if (!(expr instanceof Literal)) out.add(new ExpressionStatement(expr)); // a bare constant does nothing
+            }
+            case VariableDeclaration assign -> out.add(new VariableDeclaration(assign.variable, fold(assign.initializer)));
+            case IfStatement ifStmt -> foldIf(ifStmt, out);
+            case null, default -> out.add(stmt);
+        }
+    }
+
+    private void foldIf(IfStatement ifStmt, List<Statement> out) {
+        List<IfStatement.IfBranch> branches = new ArrayList<>();
+        for (IfStatement.IfBranch branch : ifStmt.branches) {
+            Expression condition = branch.isElse() ? null : fold(branch.condition);
+            if (condition instanceof Literal lit) {
+                if (!isTruthy(lit.value)) continue;
+                condition = null; // always taken, later branches are unreachable
+            }
+            branches.add(new IfStatement.IfBranch(condition, foldBlock(branch.body)));
+            if (condition == null) break;
+        }
+        if (branches.isEmpty()) return;
+        if (branches.getFirst().isElse()) {
+            out.addAll(branches.getFirst().body);
+        } else out.add(new IfStatement(branches));
+    }
+
+    private Expression fold(Expression expr) {
+        return switch (expr) {
+            case BinaryExpression bin -> foldBinary(bin.operator, fold(bin.left), fold(bin.right));
+            case UnaryExpression unary -> foldUnary(unary.operator, fold(unary.right));
+            case FunctionCall call -> {
+                List<Expression> args = new ArrayList<>(call.arguments.size());
+                for (Expression arg : call.arguments) {
+                    args.add(fold(arg));
+                }
+                yield new FunctionCall(call.functionName, args);
+            }
+            case null, default -> expr;
+        };
+    }
+
+    private Expression foldBinary(Token operator, Expression left, Expression right) {
+        if (left instanceof Literal l && right instanceof Literal r) {
+            TokenType op = operator.type;
+            if (op == TokenType.EQUAL_EQUAL) return new Literal(ScriptEvaluator.valuesEqual(l.value, r.value));
+            if (op == TokenType.BANG_EQUAL) return new Literal(!ScriptEvaluator.valuesEqual(l.value, r.value));
+            if (l.value instanceof Number ln && r.value instanceof Number rn) {
+                double a = ln.doubleValue();
+                double b = rn.doubleValue();
+                Object value = switch (op) {
+                    case PLUS -> a + b;
+                    case MINUS -> a - b;
+                    case STAR -> a * b;
+                    case SLASH -> a / b;
+                    case GREATER -> a > b;
+                    case LESS -> a < b;
+                    case GREATER_EQUAL -> a >= b;
+                    case LESS_EQUAL -> a <= b;
+                    default -> null;
+                };
+                if (value != null) return new Literal(value);
+            }
+        }
+        return new BinaryExpression(left, operator, right);
+    }
+
+    private Expression foldUnary(Token operator, Expression operand) {
+        if (operand instanceof Literal lit) {
+            if (operator.type == TokenType.MINUS && lit.value instanceof Number n) return new Literal(-n.doubleValue());
+            if (operator.type == TokenType.BANG && lit.value instanceof Boolean b) return new Literal(!b);
+        }
+        return new UnaryExpression(operator, operand);
+    }
+
+    private static boolean isTruthy(Object value) {
+        if (value == null) return false;
+        if (value instanceof Boolean b) return b;
+        if (value instanceof Number n) return n.doubleValue() != 0;
+        return true;
+    }
+}
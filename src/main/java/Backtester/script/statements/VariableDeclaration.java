@@ -1,13 +1,21 @@
 package Backtester.script.statements;
 
 import Backtester.script.statements.expressions.Expression;
+import Backtester.script.statements.expressions.ScriptVariable;
 
 public class VariableDeclaration extends Statement {
     public final String name;
+    public final ScriptVariable variable;
     public final Expression initializer;
 
     public VariableDeclaration(String name, Expression initializer) {
-        this.name = name;
+        this(new ScriptVariable(name, -1), initializer);
+    }
+
+    public VariableDeclaration(ScriptVariable variable, Expression initializer) {
+        this.name = variable.name;
+        this.variable = variable;
         this.initializer = initializer;
+        variable.assign(initializer);
     }
 }
\ No newline at end of file
@@ -17,4 +17,13 @@ public class BinaryExpression extends Expression {
     public boolean isBinary() {
         return true;
     }
+
+    @Override
+    public ExpressionType getType() {
+        return switch (operator.type) {
+            case PLUS, MINUS, STAR, SLASH -> ExpressionType.NUMBER;
+            case GREATER, LESS, GREATER_EQUAL, LESS_EQUAL, EQUAL_EQUAL, BANG_EQUAL -> ExpressionType.BOOLEAN;
+            default -> ExpressionType.UNKNOWN;
+        };
+    }
 }
@@ -25,5 +25,9 @@ public abstract class Expression {
     public boolean isSeries() {
         return false;
     }
+
+    public ExpressionType getType() {
+        return ExpressionType.UNKNOWN;
+    }
  }
 
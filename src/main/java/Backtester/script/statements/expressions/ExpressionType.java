@@ -0,0 +1,17 @@
+package Backtester.script.statements.expressions;
+
+/**
+ * Static type of an expression as inferred by the parser. NUMBER covers both plain numbers and numeric value
+ * accumulators such as {@code sma(20)}, since both can be read as a double.
+ */
+public enum ExpressionType {
+    NUMBER,
+    BOOLEAN,
+    STRING,
+    VOID,
+    UNKNOWN;
+
+    public ExpressionType union(ExpressionType other) {
+        return (this == other) ? this : UNKNOWN;
+    }
+}
@@ -3,7 +3,9 @@ package Backtester.script.statements.expressions;
 import Backtester.script.functions.CloseOrderFn;
 import Backtester.script.functions.CreateOrderFn;
 import Backtester.script.functions.CrossoverFn;
+import Backtester.script.functions.CrossunderFn;
 import Backtester.script.functions.SmaFunction;
+import Backtester.script.functions.indicators.*;
 import Backtester.script.functions.ohlcv.*;
 
 import java.util.HashMap;
@@ -20,12 +22,24 @@ public class FunctionCall extends Expression {
         FUNCTION_SIGNATURES.put(CreateOrderFn.FUNCTION_NAME, CreateOrderFn.getSignatureProperties());
         FUNCTION_SIGNATURES.put(SmaFunction.FUNCTION_NAME, SmaFunction.getSignatureProperties());
         FUNCTION_SIGNATURES.put(CrossoverFn.FUNCTION_NAME, CrossoverFn.getSignatureProperties());
+        FUNCTION_SIGNATURES.put(CrossunderFn.FUNCTION_NAME, CrossunderFn.getSignatureProperties());
         FUNCTION_SIGNATURES.put(CloseOrderFn.FUNCTION_NAME, CloseOrderFn.getSignatureProperties());
         FUNCTION_SIGNATURES.put(CloseFunction.FUNCTION_NAME, CloseFunction.getSignatureProperties());
         FUNCTION_SIGNATURES.put(OpenFunction.FUNCTION_NAME, OpenFunction.getSignatureProperties());
         FUNCTION_SIGNATURES.put(HighFunction.FUNCTION_NAME, HighFunction.getSignatureProperties());
         FUNCTION_SIGNATURES.put(LowFunction.FUNCTION_NAME, LowFunction.getSignatureProperties());
         FUNCTION_SIGNATURES.put(VolumeFunction.FUNCTION_NAME, VolumeFunction.getSignatureProperties());
+        FUNCTION_SIGNATURES.put(EmaFunction.FUNCTION_NAME, EmaFunction.getSignatureProperties());
+        FUNCTION_SIGNATURES.put(RsiFunction.FUNCTION_NAME, RsiFunction.getSignatureProperties());
+        FUNCTION_SIGNATURES.put(AtrFunction.FUNCTION_NAME, AtrFunction.getSignatureProperties());
+        FUNCTION_SIGNATURES.put(StdevFunction.FUNCTION_NAME, StdevFunction.getSignatureProperties());
+        FUNCTION_SIGNATURES.put(BollingerUpperFunction.FUNCTION_NAME, BollingerUpperFunction.getSignatureProperties());
+        FUNCTION_SIGNATURES.put(BollingerLowerFunction.FUNCTION_NAME, BollingerLowerFunction.getSignatureProperties());
+        FUNCTION_SIGNATURES.put(MacdFunction.FUNCTION_NAME, MacdFunction.getSignatureProperties());
+        FUNCTION_SIGNATURES.put(MacdSignalFunction.FUNCTION_NAME, MacdSignalFunction.getSignatureProperties());
+        FUNCTION_SIGNATURES.put(HighestFunction.FUNCTION_NAME, HighestFunction.getSignatureProperties());
+        FUNCTION_SIGNATURES.put(LowestFunction.FUNCTION_NAME, LowestFunction.getSignatureProperties());
+        FUNCTION_SIGNATURES.put(VwapFunction.FUNCTION_NAME, VwapFunction.getSignatureProperties());
     }
 
     public FunctionCall(String functionName, List<Expression> arguments) {
@@ -57,6 +71,12 @@ public class FunctionCall extends Expression {
         return true;
     }
 
+    @Override
+    public ExpressionType getType() {
+        FunctionSignatureProperties signature = FUNCTION_SIGNATURES.get(functionName);
+        return (signature == null) ? ExpressionType.UNKNOWN : signature.returnType();
+    }
+
     public int argumentSize() {
         return arguments.size();
     }
@@ -1,3 +1,3 @@
 package Backtester.script.statements.expressions;
 
-public record FunctionSignatureProperties(int minimumArguments, int maximumArguments) {}
\ No newline at end of file
+public record FunctionSignatureProperties(int minimumArguments, int maximumArguments, ExpressionType returnType) {}
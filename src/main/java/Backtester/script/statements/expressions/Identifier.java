@@ -2,13 +2,24 @@ package Backtester.script.statements.expressions;
 
 public class Identifier extends Expression {
     public final String name;
+    public final ScriptVariable variable;
 
     public Identifier(String name) {
-        this.name = name;
+        this(new ScriptVariable(name, -1));
+    }
+
+    public Identifier(ScriptVariable variable) {
+        this.name = variable.name;
+        this.variable = variable;
     }
 
     @Override
     public boolean isIdentifier() {
         return true;
     }
+
+    @Override
+    public ExpressionType getType() {
+        return variable.getType();
+    }
 }
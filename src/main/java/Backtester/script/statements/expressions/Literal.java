@@ -11,4 +11,14 @@ public class Literal extends Expression {
     public boolean isLiteral() {
         return true;
     }
+
+    @Override
+    public ExpressionType getType() {
+        return switch (value) {
+            case Number n -> ExpressionType.NUMBER;
+            case Boolean b -> ExpressionType.BOOLEAN;
+            case String s -> ExpressionType.STRING;
+            case null, default -> ExpressionType.UNKNOWN;
+        };
+    }
 }
\ No newline at end of file
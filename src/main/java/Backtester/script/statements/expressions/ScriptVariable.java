@@ -0,0 +1,41 @@
+package Backtester.script.statements.expressions;
+
+/**
+ * A script variable shared by every declaration and read of the same name. The parser gives each variable a
+ * slot in the evaluation frame and widens its type with every assignment, so both are known before the first bar.
+ */
+public class ScriptVariable {
+    public final String name;
+    public final int slot;
+    private ExpressionType type;
+    private boolean primitiveNumber = true;
+
+    public ScriptVariable(String name, int slot) {
+        this.name = name;
+        this.slot = slot;
+    }
+
+    public void assign(Expression initializer) {
+        ExpressionType assignedType = initializer.getType();
+        this.type = (type == null) ? assignedType : type.union(assignedType);
+        // Function results are accumulators that other functions need as objects, so only computed values qualify
+        primitiveNumber &= assignedType == ExpressionType.NUMBER
+                && !(initializer instanceof FunctionCall)
+                && !(initializer instanceof Identifier);
+    }
+
+    public ExpressionType getType() {
+        return (type == null) ? ExpressionType.UNKNOWN : type;
+    }
+
+    public boolean isDeclared() {
+        return type != null;
+    }
+
+    /**
+     * True when every assignment produces a plain number, so the value can live in a double slot.
+     */
+    public boolean isPrimitiveNumber() {
+        return isDeclared() && primitiveNumber;
+    }
+}
@@ -10,4 +10,13 @@ public class UnaryExpression extends Expression {
         this.operator = operator;
         this.right = right;
     }
+
+    @Override
+    public ExpressionType getType() {
+        return switch (operator.type) {
+            case MINUS -> ExpressionType.NUMBER;
+            case BANG -> ExpressionType.BOOLEAN;
+            default -> ExpressionType.UNKNOWN;
+        };
+    }
 }
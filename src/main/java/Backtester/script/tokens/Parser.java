@@ -7,21 +7,20 @@ import Backtester.script.statements.Statement;
 import Backtester.script.statements.VariableDeclaration;
 import Backtester.script.statements.expressions.*;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 public class Parser {
 
     private List<Token> tokens;
     private Set<String> functionCalls;
+    private Map<String, ScriptVariable> variables;
     private int current = 0;
 
     public CompiledScript parse(String s) {
         Tokenizer tokenizer = new Tokenizer(s);
         tokens = tokenizer.tokenize();
         functionCalls = new HashSet<>();
+        variables = new HashMap<>();
         List<Statement> statements = new ArrayList<>();
         while (!isAtEnd()) {
             while(check(TokenType.NEWLINE)) advance();
@@ -29,7 +28,9 @@ public class Parser {
             statements.add(stmt);
             while(check(TokenType.NEWLINE)) advance();
         }
-        return new CompiledScript(statements, functionCalls);
+        List<ScriptVariable> slots = new ArrayList<>(variables.values());
+        slots.sort(Comparator.comparingInt(variable -> variable.slot));
+        return new CompiledScript(statements, functionCalls, slots);
     }
 
 
@@ -49,7 +50,7 @@ public class Parser {
         Token name = consume(TokenType.IDENTIFIER, "Expected variable name.");
         consume(TokenType.EQUALS, "Expected '=' after variable name.");
         Expression expr = parseExpression();
-        VariableDeclaration var = new VariableDeclaration(name.lexeme, expr);
+        VariableDeclaration var = new VariableDeclaration(variable(name.lexeme), expr);
         return var;
     }
 
@@ -181,7 +182,7 @@ public class Parser {
                 FunctionCall fn = new FunctionCall(identifier.lexeme, args);
                 functionCalls.add(fn.functionName);
                 return fn;
-            } else return new Identifier(identifier.lexeme);
+            } else return new Identifier(variable(identifier.lexeme));
         }
 
         if (match(TokenType.LPAREN)) {
@@ -193,6 +194,10 @@ public class Parser {
         throw error(peek(), "Expected expression.");
     }
 
+    private ScriptVariable variable(String name) {
+        return variables.computeIfAbsent(name, n -> new ScriptVariable(n, variables.size()));
+    }
+
     private boolean match(TokenType... types) {
         for (TokenType type : types) {
             if (check(type)) {
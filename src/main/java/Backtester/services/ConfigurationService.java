@@ -1,5 +1,8 @@
 package Backtester.services;
 
+import Backtester.objects.PriceRounding;
+import Backtester.script.ScriptBackend;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -11,10 +14,14 @@ public class ConfigurationService {
     private static final String DEFAULT_DATA_SOURCE = "file";
     private static final String DEFAULT_FILE_PATH = "AAPL.JSON";
     private static final String DEFAULT_API_KEY = "";
+    private static final String DEFAULT_SCRIPT_BACKEND = "closure";
+    private static final String DEFAULT_TICK_SIZE = "0.01";
 
     private final String apiKey;
     private final String dataSource;
     private final String filePath;
+    private final String scriptBackend;
+    private final String tickSize;
 
     public ConfigurationService() {
         Properties props = new Properties();
@@ -35,6 +42,8 @@ public class ConfigurationService {
         this.apiKey = trimOrDefault(props.getProperty("apiKey"), DEFAULT_API_KEY);
         this.dataSource = trimOrDefault(props.getProperty("dataSource"), DEFAULT_DATA_SOURCE);
         this.filePath = trimOrDefault(props.getProperty("filePath"), DEFAULT_FILE_PATH);
+        this.scriptBackend = trimOrDefault(props.getProperty("scriptBackend"), DEFAULT_SCRIPT_BACKEND);
+        this.tickSize = trimOrDefault(props.getProperty("tickSize"), DEFAULT_TICK_SIZE);
     }
 
     private String trimOrDefault(String value, String def) {
@@ -63,6 +72,22 @@ public class ConfigurationService {
         return filePath;
     }
 
+    public ScriptBackend getScriptBackend() {
+        return ScriptBackend.fromName(scriptBackend);
+    }
+
+    /**
+     * @return rounding to the configured tick size, or no rounding if it is "none"
+     */
+    public PriceRounding getPriceRounding() {
+        if (tickSize.equalsIgnoreCase("none")) return PriceRounding.NONE;
+        try {
+            return PriceRounding.of(tickSize);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid tick size: " + tickSize, e);
+        }
+    }
+
     public boolean isApiKeyValid() {
         return apiKey != null && !apiKey.trim().isEmpty();
     }
@@ -1,6 +1,7 @@
 package Backtester.services;
 
 import Backtester.objects.Bar;
+import Backtester.objects.PriceRounding;
 import com.google.inject.Inject;
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -37,7 +38,7 @@ public class DefaultHistoricalDataService implements HistoricalDataService {
         for (Bar b : all) {
             if ((b.date.isEqual(startDate) || b.date.isAfter(startDate)) &&
                 (b.date.isEqual(endDate) || b.date.isBefore(endDate))) {
-                filtered.add(new Bar(idx++, b.date, b.open, b.high, b.low, b.close, b.volume));
+                filtered.add(new Bar(idx++, b.date, b.open, b.high, b.low, b.close, b.volume, PriceRounding.NONE));
             }
         }
         if (filtered.isEmpty()) {
@@ -114,7 +115,7 @@ public class DefaultHistoricalDataService implements HistoricalDataService {
         double close = Double.parseDouble(dailyData.getString("4. close"));
         long volume = Long.parseLong(dailyData.getString("5. volume"));
 
-        return new Bar(index, date, open, high, low, close, volume);
+        return new Bar(index, date, open, high, low, close, volume, configService.getPriceRounding());
     }
 
     private JSONObject makeApiCall(String urlStr) {
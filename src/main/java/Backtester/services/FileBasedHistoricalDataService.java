@@ -1,6 +1,7 @@
 package Backtester.services;
 
 import Backtester.objects.Bar;
+import Backtester.objects.PriceRounding;
 import com.google.inject.Inject;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -40,7 +41,7 @@ public class FileBasedHistoricalDataService implements HistoricalDataService {
         for (Bar b: all) {
             if ((b.date.isEqual(startDate) || b.date.isAfter(startDate)) &&
                 (b.date.isEqual(endDate) || b.date.isBefore(endDate))) {
-                filtered.add(new Bar(idx++, b.date, b.open, b.high, b.low, b.close, b.volume));
+                filtered.add(new Bar(idx++, b.date, b.open, b.high, b.low, b.close, b.volume, PriceRounding.NONE));
             }
         }
         if (filtered.isEmpty()) {
@@ -155,7 +156,7 @@ public class FileBasedHistoricalDataService implements HistoricalDataService {
         double close = findDoubleValue(dailyData, "close", "c");
         long volume = findLongValue(dailyData, "volume", "v");
 
-        return new Bar(index, date, open, high, low, close, volume);
+        return new Bar(index, date, open, high, low, close, volume, configService.getPriceRounding());
     }
 
     private double findDoubleValue(JSONObject data, String... fieldNames) {
@@ -0,0 +1,85 @@
+package Backtester.strategies;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarFingerprint;
+import Backtester.objects.BarSeries;
+import Backtester.script.ScriptProgram;
+import Backtester.script.lanes.LaneProgram;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs one strategy over a block of equally long price paths in lockstep. Each path gets its own RunContext, so
+ * orders and positions are tracked exactly as in {@link StrategyRunner}, while the script itself is evaluated once
+ * per bar for the whole block. Blocks the lanes cannot reproduce exactly are run path by path with the fallback
+ * program instead.
+ */
+public class BatchStrategyRunner {
+
+    private final BarSeries[] paths;
+    private final List<Bar> lookbackBars;
+    private final BarFingerprint lookbackFingerprint;
+    private final ScriptProgram fallback;
+    private final Logger logger;
+    private final RunContext[] contexts;
+    private final LaneProgram.Executor executor;
+
+    public BatchStrategyRunner(List<? extends List<Bar>> paths,
+                               List<Bar> lookbackBars,
+                               LaneProgram program,
+                               ScriptProgram fallback,
+                               Logger logger) {
+        this(paths, lookbackBars, BarFingerprint.of(lookbackBars), program, fallback, logger);
+    }
+
+    /**
+     * @param lookbackFingerprint {@code BarFingerprint.of(lookbackBars)}, shared by every path in the block
+     */
+    public BatchStrategyRunner(List<? extends List<Bar>> paths,
+                               List<Bar> lookbackBars,
+                               BarFingerprint lookbackFingerprint,
+                               LaneProgram program,
+                               ScriptProgram fallback,
+                               Logger logger) {
+        this.lookbackBars = lookbackBars;
+        this.lookbackFingerprint = lookbackFingerprint;
+        this.fallback = fallback;
+        this.logger = logger;
+        this.contexts = new RunContext[paths.size()];
+        this.paths = new BarSeries[paths.size()];
+        for (int k = 0; k < contexts.length; k++) {
+            contexts[k] = new RunContext(paths.get(k), lookbackBars, lookbackFingerprint, null);
+            this.paths[k] = contexts[k].bars;
+        }
+        this.executor = program.newExecutor(contexts, this.paths, lookbackBars);
+    }
+
+    public List<RunResult> run(double initialCapital) {
+        int n = paths[0].size();
+        for (BarSeries path : paths) {
+            if (path.size() != n) throw new IllegalArgumentException("Paths in a batch must have the same length");
+        }
+        // Same initial evaluation as StrategyRunner.run
+        if (!executor.start()) {
+            List<RunResult> results = new ArrayList<>(paths.length);
+            for (BarSeries path : paths) {
+                results.add(new StrategyRunner(path, lookbackBars, lookbackFingerprint, fallback, null, logger).run(initialCapital));
+            }
+            return results;
+        }
+        for (RunContext ctx : contexts) {
+            ctx.positionManager.setInitialCapital(initialCapital);
+        }
+        for (int i = 0; i < n; i++) {
+            executor.roll(i);
+            executor.evaluate();
+        }
+        List<RunResult> results = new ArrayList<>(contexts.length);
+        for (int k = 0; k < contexts.length; k++) {
+            results.add(StrategyRunner.result(contexts[k], paths[k]));
+        }
+        return results;
+    }
+}
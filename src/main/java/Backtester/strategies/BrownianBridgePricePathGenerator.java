@@ -1,88 +1,229 @@
 package Backtester.strategies;
 
 import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+import Backtester.objects.PriceRounding;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Generates synthetic price paths using a Brownian bridge on log-closes,
  * preserving each bar's OHLC ratios relative to close.
+ * Everything that only depends on the base bars is computed once; a path only needs its four price columns,
+ * which {@link #generateInto} reuses from a buffer. Volumes and dates are shared with the base series.
  */
 public class BrownianBridgePricePathGenerator implements PricePathGenerator {
-    private final List<Bar> baseBars;
+    private final BarSeries base;
+    private final double sigma;
+    private final double[] openRatios;
+    private final double[] highRatios;
+    private final double[] lowRatios;
+    private final PriceRounding rounding;
+    // Order in which Sobol paths fill in bridge points, breadth first from the endpoints
+    private final int[] bridgeLeft;
+    private final int[] bridgeRight;
+    private final int[] bridgeMid;
+    private final double[] bridgeScale;
 
     public BrownianBridgePricePathGenerator(List<Bar> baseBars) {
-        this.baseBars = new ArrayList<>(baseBars);
+        this(baseBars, PriceRounding.CENTS);
     }
 
-    @Override
-    public List<Bar> generate(long seed) {
-        int n = baseBars.size();
-        if (n == 0) return List.of();
-
-        double c0 = baseBars.get(0).close;
-        double cT = baseBars.get(n - 1).close;
-        if (c0 <= 0 || cT <= 0) {
-            List<Bar> copy = new ArrayList<>(n);
-            for (int i = 0; i < n; i++) {
-                Bar b = baseBars.get(i);
-                copy.add(new Bar(i, b.date, b.open, b.high, b.low, b.close, b.volume));
-            }
-            return copy;
-        }
+    /**
+     * @param rounding applied to generated prices, normally the one the base bars were loaded with
+     */
+    public BrownianBridgePricePathGenerator(List<Bar> baseBars, PriceRounding rounding) {
+        this.rounding = rounding;
+        this.base = BarSeries.of(new ArrayList<>(baseBars));
+        int n = base.size();
 
         // Estimate sigma from historical log-returns
-        List<Double> rets = new ArrayList<>(Math.max(0, n - 1));
+        double[] rets = new double[Math.max(0, n - 1)];
+        int count = 0;
         for (int i = 1; i < n; i++) {
-            double prev = baseBars.get(i - 1).close;
-            double cur = baseBars.get(i).close;
+            double prev = base.close[i - 1];
+            double cur = base.close[i];
             if (prev > 0 && cur > 0) {
-                rets.add(Math.log(cur / prev));
+                rets[count++] = Math.log(cur / prev);
             }
         }
         double mean = 0.0;
-        for (double r : rets) mean += r;
-        mean = rets.isEmpty() ? 0.0 : mean / rets.size();
+        for (int i = 0; i < count; i++) mean += rets[i];
+        mean = count == 0 ? 0.0 : mean / count;
         double var = 0.0;
-        for (double r : rets) var += Math.pow(r - mean, 2);
-        double sigma = (rets.size() > 1) ? Math.sqrt(var / (rets.size() - 1)) : 0.0;
-        if (sigma == 0.0) sigma = 1e-6;
+        for (int i = 0; i < count; i++) var += Math.pow(rets[i] - mean, 2);
+        double sigma = (count > 1) ? Math.sqrt(var / (count - 1)) : 0.0;
+        this.sigma = sigma == 0.0 ? 1e-6 : sigma;
+
+        this.openRatios = new double[n];
+        this.highRatios = new double[n];
+        this.lowRatios = new double[n];
+        for (int i = 0; i < n; i++) {
+            double close = base.close[i];
+            openRatios[i] = (close != 0) ? base.open[i] / close : 1.0;
+            highRatios[i] = (close != 0) ? base.high[i] / close : 1.0;
+            lowRatios[i] = (close != 0) ? base.low[i] / close : 1.0;
+        }
+
+        int points = Math.max(0, n - 2);
+        this.bridgeLeft = new int[points];
+        this.bridgeRight = new int[points];
+        this.bridgeMid = new int[points];
+        this.bridgeScale = new double[points];
+        if (points > 0) {
+            int[] queue = new int[4 * n]; // Every interval enqueued, two ends each
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = 0;
+            queue[tail++] = n - 1;
+            for (int k = 0; head < tail; ) {
+                int left = queue[head++];
+                int right = queue[head++];
+                if (right - left < 2) continue;
+                int mid = (left + right) >>> 1;
+                bridgeLeft[k] = left;
+                bridgeRight[k] = right;
+                bridgeMid[k] = mid;
+                bridgeScale[k] = Math.sqrt((mid - left) * (double) (right - mid) / (right - left));
+                k++;
+                queue[tail++] = left;
+                queue[tail++] = mid;
+                queue[tail++] = mid;
+                queue[tail++] = right;
+            }
+        }
+    }
+
+    @Override
+    public BarSeries generate(long seed) {
+        if (isDegenerate()) return base;
+        return generateInto(seed, new PricePathBuffer(base.size()));
+    }
+
+    /**
+     * Writes the path for the seed into the buffer without allocating anything but the random generator.
+     */
+    @Override
+    public BarSeries generateInto(long seed, PricePathBuffer buffer) {
+        return generateInto(seed, false, buffer);
+    }
+
+    @Override
+    public BarSeries generateInto(long masterSeed, int permutation, PathSampling sampling, PricePathBuffer buffer) {
+        return switch (sampling) {
+            case RANDOM -> generateInto(MonteCarloRunner.permutationSeed(masterSeed, permutation), false, buffer);
+            case ANTITHETIC -> generateInto(MonteCarloRunner.permutationSeed(masterSeed, permutation / 2),
+                    permutation % 2 == 1, buffer);
+            case SOBOL -> generateSobol(masterSeed, permutation, buffer);
+        };
+    }
 
-        Random rnd = new Random(seed);
+    /**
+     * The log-closes of a path form a Brownian bridge between the first and last close, so each close is lognormal
+     * with a known mean.
+     */
+    @Override
+    public double[] expectedCloses() {
+        int n = base.size();
+        if (isDegenerate()) return base.close.clone();
+        int m = n - 1;
+        double c0 = base.close[0];
+        double targetSum = Math.log(base.close[m] / c0);
+        double[] expected = new double[n];
+        expected[0] = c0;
+        for (int i = 1; i < m; i++) {
+            expected[i] = c0 * Math.exp(targetSum * i / m + sigma * sigma * i * (m - i) / (2.0 * m));
+        }
+        expected[m] = base.close[m];
+        return expected;
+    }
+
+    private BarSeries generateInto(long seed, boolean antithetic, PricePathBuffer buffer) {
+        if (isDegenerate()) return base;
+        int n = base.size();
+        if (buffer.size() != n) throw new IllegalArgumentException("Buffer does not fit the base bars");
+
+        double c0 = base.close[0];
+        double cT = base.close[n - 1];
+        SplittableRandom rnd = new SplittableRandom(seed); // nextGaussian uses a ziggurat sampler
+        double scale = antithetic ? -sigma : sigma;
         double targetSum = Math.log(cT / c0);
         double sum = 0.0;
-        double[] eps = new double[Math.max(0, n - 1)];
-        for (int i = 0; i < eps.length; i++) {
-            eps[i] = rnd.nextGaussian() * sigma;
-            sum += eps[i];
+        double[] closes = buffer.close;
+        for (int i = 1; i < n; i++) { // Closes hold the shocks until the bridge is adjusted
+            double eps = rnd.nextGaussian() * scale;
+            closes[i] = eps;
+            sum += eps;
         }
-        double adjust = (eps.length == 0) ? 0.0 : (targetSum - sum) / eps.length;
+        double adjust = (n == 1) ? 0.0 : (targetSum - sum) / (n - 1);
 
-        double[] closes = new double[n];
-        closes[0] = c0;
         double acc = 0.0;
         for (int i = 1; i < n; i++) {
-            acc += eps[i - 1] + adjust;
+            acc += closes[i] + adjust;
             closes[i] = c0 * Math.exp(acc);
         }
+        closes[0] = c0;
         closes[n - 1] = cT; // force exact endpoint
+        return finish(buffer);
+    }
 
-        List<Bar> out = new ArrayList<>(n);
-        for (int i = 0; i < n; i++) {
-            Bar src = baseBars.get(i);
-            double oc = (src.close != 0) ? src.open / src.close : 1.0;
-            double hc = (src.close != 0) ? src.high / src.close : 1.0;
-            double lc = (src.close != 0) ? src.low / src.close : 1.0;
+    /**
+     * Builds the bridge point by point, each midpoint from the points around it, so the first draws shape the whole
+     * path. Those come from the Sobol sequence.
+     */
+    private BarSeries generateSobol(long masterSeed, int permutation, PricePathBuffer buffer) {
+        if (isDegenerate()) return base;
+        int n = base.size();
+        if (buffer.size() != n) throw new IllegalArgumentException("Buffer does not fit the base bars");
 
+        double c0 = base.close[0];
+        double cT = base.close[n - 1];
+        int replicate = permutation % PathSampling.SOBOL_REPLICATES;
+        int point = permutation / PathSampling.SOBOL_REPLICATES;
+        SplittableRandom rnd = new SplittableRandom(MonteCarloRunner.permutationSeed(masterSeed, permutation));
+        double[] closes = buffer.close; // Closes hold the log-bridge until the end
+        closes[0] = 0.0;
+        closes[n - 1] = Math.log(cT / c0);
+        for (int k = 0; k < bridgeMid.length; k++) {
+            double z;
+            if (k < SobolSequence.DIMENSIONS) {
+                int shift = (int) MonteCarloRunner.permutationSeed(~masterSeed, replicate * SobolSequence.DIMENSIONS + k);
+                z = SobolSequence.normal(k, point, shift);
+            } else {
+                z = rnd.nextGaussian();
+            }
+            int left = bridgeLeft[k];
+            int right = bridgeRight[k];
+            int mid = bridgeMid[k];
+            double w = (mid - left) / (double) (right - left);
+            closes[mid] = closes[left] + w * (closes[right] - closes[left]) + sigma * bridgeScale[k] * z;
+        }
+        for (int i = 1; i < n - 1; i++) closes[i] = c0 * Math.exp(closes[i]);
+        closes[0] = c0;
+        closes[n - 1] = cT;
+        return finish(buffer);
+    }
+
+    private BarSeries finish(PricePathBuffer buffer) {
+        int n = base.size();
+        double[] closes = buffer.close;
+        double[] open = buffer.open;
+        double[] high = buffer.high;
+        double[] low = buffer.low;
+        for (int i = 0; i < n; i++) {
             double close = closes[i];
-            double open = close * oc;
-            double high = close * hc;
-            double low = close * lc;
-            out.add(new Bar(i, src.date, open, high, low, close, src.volume));
+            open[i] = rounding.round(close * openRatios[i]);
+            high[i] = rounding.round(close * highRatios[i]);
+            low[i] = rounding.round(close * lowRatios[i]);
+            closes[i] = rounding.round(close);
         }
-        return out;
+        return buffer.series(base.volume, base.epochDays);
     }
-}
 
+    private boolean isDegenerate() {
+        int n = base.size();
+        return n == 0 || base.close[0] <= 0 || base.close[n - 1] <= 0;
+    }
+}
@@ -0,0 +1,364 @@
+package Backtester.strategies;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Folds permutation results into a Monte Carlo summary in permutation order, keeping only their metrics, so the
+ * summary does not depend on which task finished first.
+ * Small runs keep every metric value and summarize them exactly; larger runs feed each metric into a
+ * {@link QuantileSketch} and keep only running sums. Equity quantile bands are exact too for small runs, as long as
+ * every bar's equity of every permutation fits in {@link #MAX_EXACT_BAND_VALUES}, and come from one sketch per bar
+ * otherwise.
+ * <p>
+ * With target standard errors, the aggregator checks them at fixed permutation counts and ignores every permutation
+ * after the first check they all pass, so where a run stops does not depend on scheduling either.
+ * <p>
+ * Antithetic pairs and Sobol replicates are not independent permutations, so means and their standard errors then
+ * come from independent groups: the pairs, or the replicates. With a control variate, each mean is corrected by how
+ * far the group's mean control is from its known expectation. The effective sample size is the number of independent
+ * random permutations that would have given the same standard error.
+ */
+final class MonteCarloAggregator {
+
+    private static final String[] METRICS = {"Net Profit", "Max Drawdown", "Total PnL (Realized+Unrealized)",
+            "Sharpe", "Trades", "CAGR", "Calmar", "Volatility", "Sortino"};
+    private static final int NET_PROFIT = 0;
+    private static final int LOSS = METRICS.length; // Loss indicator, after the metrics, for probLoss
+    private static final int MIN_PERMUTATIONS_TO_STOP = 100;
+    private static final int CHECK_INTERVAL = 50;
+    private static final long MAX_EXACT_BAND_VALUES = 1L << 22; // Equity values kept for exact bands, 32 MB
+
+    /**
+     * What is kept of a permutation's run.
+     */
+    record Sample(double[] metrics, double[] equity, double control) {
+        static Sample of(RunResult rr, double control) {
+            double net = rr.netProfit();
+            double[] metrics = {net, rr.maxDrawdown(), net + rr.openPnL(), rr.sharpe(), rr.trades().size(),
+                    rr.cagr(), rr.calmar(), rr.volatility(), rr.sortino()};
+            return new Sample(metrics, rr.strategyEquity(), control);
+        }
+    }
+
+    private final int permutations;
+    private final double[][] values; // by metric then permutation, null when sketching
+    private final QuantileSketch[] sketches;
+    private final double[] sums;
+    private final double[] means; // Welford running means and squared deviations, for standard errors
+    private final double[] deviations;
+    private final Map<String, Double> targets;
+    private final PathSampling sampling;
+    private final double controlMean; // expected control, NaN without a control variate
+    private final GroupStats groups; // independent groups of permutations, for antithetic pairs and random
+    private final double[][] replicateSums; // by Sobol replicate, the sums of each quantity then of the control
+    private final double[] pending; // sums of the current antithetic pair
+    private int pendingCount;
+    private boolean converged;
+    private final int sketchSize;
+    private int added;
+    private int losses;
+    // Running sum for the mean equity across permutations
+    private double[] sumEq;
+    private QuantileSketch[] eqSketches; // null when the bands are exact
+    private double[][] eqValues; // by bar then permutation, null when sketching
+
+    MonteCarloAggregator(int permutations, int exactLimit, int sketchSize) {
+        this(permutations, exactLimit, sketchSize, Map.of());
+    }
+
+    MonteCarloAggregator(int permutations, int exactLimit, int sketchSize, Map<String, Double> targets) {
+        this(permutations, exactLimit, sketchSize, targets, PathSampling.RANDOM, Double.NaN);
+    }
+
+    /**
+     * @param permutations most permutations that will be added
+     * @param sketchSize   sketch size used when there are more than exactLimit permutations
+     * @param targets      standard error to reach by summary name or {@link MonteCarloResult#PROB_LOSS}, to stop early
+     * @param sampling     how the permutations' paths were drawn
+     * @param controlMean  expectation of the samples' control, NaN to not use it
+     */
+    MonteCarloAggregator(int permutations, int exactLimit, int sketchSize, Map<String, Double> targets,
+                         PathSampling sampling, double controlMean) {
+        for (String key : targets.keySet()) {
+            if (!key.equals(MonteCarloResult.PROB_LOSS) && !Arrays.asList(METRICS).contains(key)) {
+                throw new IllegalArgumentException("Unknown Monte Carlo metric: " + key);
+            }
+        }
+        this.permutations = permutations;
+        if (permutations <= exactLimit) {
+            this.values = new double[METRICS.length][permutations];
+            this.sketches = null;
+        } else {
+            this.values = null;
+            this.sketches = new QuantileSketch[METRICS.length];
+            for (int m = 0; m < METRICS.length; m++) sketches[m] = new QuantileSketch(sketchSize);
+        }
+        this.sums = new double[METRICS.length];
+        this.means = new double[METRICS.length];
+        this.deviations = new double[METRICS.length];
+        this.targets = targets;
+        this.sketchSize = sketchSize;
+        this.sampling = sampling;
+        this.controlMean = controlMean;
+        this.groups = sampling != PathSampling.SOBOL ? new GroupStats() : null;
+        this.replicateSums = sampling == PathSampling.SOBOL ? new double[PathSampling.SOBOL_REPLICATES][LOSS + 2] : null;
+        this.pending = new double[LOSS + 2];
+    }
+
+    /**
+     * Adds the next permutation, in permutation order. Ignored once converged.
+     */
+    void add(Sample sample) {
+        if (converged) return;
+        double[] metrics = sample.metrics();
+        for (int m = 0; m < METRICS.length; m++) {
+            double delta = metrics[m] - means[m];
+            means[m] += delta / (added + 1);
+            deviations[m] += delta * (metrics[m] - means[m]);
+            if (values != null) {
+                values[m][added] = metrics[m];
+            } else {
+                sketches[m].add(metrics[m]);
+                sums[m] += metrics[m];
+            }
+        }
+        if (metrics[NET_PROFIT] < 0) losses++;
+        addToGroup(metrics, sample.control());
+        added++;
+
+        double[] eq = sample.equity();
+        if (sumEq == null) {
+            sumEq = new double[eq.length];
+            if (values != null && (long) eq.length * permutations <= MAX_EXACT_BAND_VALUES) {
+                eqValues = new double[eq.length][permutations];
+            } else {
+                eqSketches = new QuantileSketch[eq.length];
+                for (int i = 0; i < eq.length; i++) eqSketches[i] = new QuantileSketch(sketchSize);
+            }
+        }
+        int len = Math.min(sumEq.length, eq.length);
+        for (int i = 0; i < len; i++) {
+            sumEq[i] += eq[i];
+            if (eqValues != null) eqValues[i][added - 1] = eq[i];
+            else eqSketches[i].add(eq[i]);
+        }
+
+        if (!targets.isEmpty() && added >= MIN_PERMUTATIONS_TO_STOP && added % CHECK_INTERVAL == 0) {
+            converged = targets.entrySet().stream().allMatch(t -> standardError(t.getKey()) <= t.getValue());
+        }
+    }
+
+    /**
+     * @return whether every target precision was reached, after which nothing more is added
+     */
+    boolean converged() {
+        return converged;
+    }
+
+    private void addToGroup(double[] metrics, double control) {
+        double[] sums = replicateSums != null ? replicateSums[added % PathSampling.SOBOL_REPLICATES] : pending;
+        for (int m = 0; m < METRICS.length; m++) sums[m] += metrics[m];
+        sums[LOSS] += metrics[NET_PROFIT] < 0 ? 1 : 0;
+        sums[LOSS + 1] += control;
+        if (replicateSums != null) return;
+        int size = sampling == PathSampling.ANTITHETIC ? 2 : 1;
+        if (++pendingCount < size) return;
+        for (int q = 0; q < pending.length; q++) pending[q] /= size;
+        groups.add(pending);
+        Arrays.fill(pending, 0.0);
+        pendingCount = 0;
+    }
+
+    /**
+     * @return whether means and standard errors come from groups rather than single permutations
+     */
+    private boolean grouped() {
+        return sampling != PathSampling.RANDOM || !Double.isNaN(controlMean);
+    }
+
+    private GroupStats currentGroups() {
+        if (groups != null) return groups;
+        GroupStats replicates = new GroupStats();
+        for (int r = 0; r < replicateSums.length; r++) {
+            int count = added / replicateSums.length + (r < added % replicateSums.length ? 1 : 0);
+            if (count == 0) continue;
+            double[] means = replicateSums[r].clone();
+            for (int q = 0; q < means.length; q++) means[q] /= count;
+            replicates.add(means);
+        }
+        return replicates;
+    }
+
+    private static int quantity(String key) {
+        return key.equals(MonteCarloResult.PROB_LOSS) ? LOSS : Arrays.asList(METRICS).indexOf(key);
+    }
+
+    private double standardError(String key) {
+        if (grouped()) return Math.sqrt(currentGroups().variance(quantity(key), controlMean));
+        if (added < 2) return Double.POSITIVE_INFINITY;
+        if (key.equals(MonteCarloResult.PROB_LOSS)) {
+            double p = (double) losses / added;
+            return Math.sqrt(p * (1 - p) / added);
+        }
+        int m = Arrays.asList(METRICS).indexOf(key);
+        return Math.sqrt(deviations[m] / (added - 1) / added);
+    }
+
+    MonteCarloResult result(long seed) {
+        if (added != permutations && !converged) throw new IllegalStateException("Not every permutation was added");
+        int p = added;
+        GroupStats stats = grouped() ? currentGroups() : null;
+        Map<String, StatSummary> summaries = new LinkedHashMap<>();
+        Map<String, Double> standardErrors = new LinkedHashMap<>();
+        Map<String, Double> effectiveSizes = new LinkedHashMap<>();
+        for (int m = 0; m < METRICS.length; m++) {
+            StatSummary summary = values != null
+                    ? summarize(Arrays.copyOf(values[m], p))
+                    : summarize(sketches[m], sums[m]);
+            if (stats != null && stats.count > 0) {
+                summary = new StatSummary(stats.estimate(m, controlMean), summary.median, summary.p5, summary.p25,
+                        summary.p75, summary.p95);
+            }
+            summaries.put(METRICS[m], summary);
+            standardErrors.put(METRICS[m], standardError(METRICS[m]));
+            double variance = p > 1 ? deviations[m] / (p - 1) : Double.NaN;
+            effectiveSizes.put(METRICS[m], effectiveSize(variance, standardErrors.get(METRICS[m])));
+        }
+        standardErrors.put(MonteCarloResult.PROB_LOSS, standardError(MonteCarloResult.PROB_LOSS));
+
+        double probLoss = (double) losses / p;
+        effectiveSizes.put(MonteCarloResult.PROB_LOSS,
+                effectiveSize(p > 1 ? probLoss * (1 - probLoss) * p / (p - 1) : Double.NaN,
+                        standardErrors.get(MonteCarloResult.PROB_LOSS)));
+        if (stats != null && stats.count > 0) {
+            probLoss = Math.max(0.0, Math.min(1.0, stats.estimate(LOSS, controlMean)));
+        }
+        double es5 = values != null
+                ? expectedShortfall(Arrays.copyOf(values[NET_PROFIT], p), 0.05)
+                : sketches[NET_PROFIT].lowerTailMean(0.05);
+
+        double[] meanEq;
+        double[][] bands = new double[MonteCarloResult.BAND_QUANTILES.length][];
+        if (sumEq == null) {
+            meanEq = new double[0];
+            for (int b = 0; b < bands.length; b++) bands[b] = new double[0];
+        } else {
+            meanEq = new double[sumEq.length];
+            for (int i = 0; i < sumEq.length; i++) meanEq[i] = sumEq[i] / p;
+            for (int b = 0; b < bands.length; b++) bands[b] = new double[sumEq.length];
+            for (int i = 0; i < sumEq.length; i++) {
+                double[] quantiles;
+                if (eqValues != null) {
+                    double[] sorted = Arrays.copyOf(eqValues[i], p);
+                    Arrays.sort(sorted);
+                    quantiles = new double[bands.length];
+                    for (int b = 0; b < bands.length; b++) {
+                        quantiles[b] = percentile(sorted, MonteCarloResult.BAND_QUANTILES[b]);
+                    }
+                } else {
+                    quantiles = eqSketches[i].quantiles(MonteCarloResult.BAND_QUANTILES);
+                }
+                for (int b = 0; b < bands.length; b++) bands[b][i] = quantiles[b];
+            }
+        }
+        return new MonteCarloResult(p, summaries, probLoss, es5, meanEq, bands, seed, standardErrors, converged,
+                effectiveSizes);
+    }
+
+    private double effectiveSize(double variance, double standardError) {
+        if (!grouped()) return added;
+        if (!(standardError > 0)) return variance == 0 ? added : Double.NaN;
+        return variance / (standardError * standardError);
+    }
+
+    private static StatSummary summarize(QuantileSketch sketch, double sum) {
+        double[] q = sketch.quantiles(0.5, 0.05, 0.25, 0.75, 0.95);
+        return new StatSummary(sum / sketch.count(), q[0], q[1], q[2], q[3], q[4]);
+    }
+
+    private static StatSummary summarize(double[] values) {
+        if (values.length == 0) return new StatSummary(0, 0, 0, 0, 0, 0);
+        double[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.sort(sorted);
+        double sum = 0.0;
+        for (double v : sorted) sum += v;
+        double mean = sum / sorted.length;
+        double median = percentile(sorted, 0.5);
+        double p5 = percentile(sorted, 0.05);
+        double p25 = percentile(sorted, 0.25);
+        double p75 = percentile(sorted, 0.75);
+        double p95 = percentile(sorted, 0.95);
+        return new StatSummary(mean, median, p5, p25, p75, p95);
+    }
+
+    private static double percentile(double[] sortedAsc, double q) {
+        if (sortedAsc.length == 0) return 0.0;
+        double pos = q * (sortedAsc.length - 1);
+        int i = (int) Math.floor(pos);
+        int j = Math.min(sortedAsc.length - 1, i + 1);
+        double w = pos - i;
+        return sortedAsc[i] * (1 - w) + sortedAsc[j] * w;
+    }
+
+    /**
+     * Running means, squared deviations and co-deviations with the control of each quantity's group means.
+     */
+    private static final class GroupStats {
+        int count;
+        final double[] means = new double[LOSS + 1];
+        final double[] deviations = new double[LOSS + 1];
+        final double[] coDeviations = new double[LOSS + 1];
+        double controlMean;
+        double controlDeviation;
+
+        /**
+         * @param group each quantity's mean over the group then the group's mean control
+         */
+        void add(double[] group) {
+            count++;
+            double control = group[LOSS + 1];
+            double controlDelta = control - controlMean;
+            controlMean += controlDelta / count;
+            controlDeviation += controlDelta * (control - controlMean);
+            for (int q = 0; q <= LOSS; q++) {
+                double delta = group[q] - means[q];
+                means[q] += delta / count;
+                deviations[q] += delta * (group[q] - means[q]);
+                coDeviations[q] += delta * (control - controlMean);
+            }
+        }
+
+        private double beta(int q, double expectedControl) {
+            if (Double.isNaN(expectedControl) || !(controlDeviation > 0)) return 0.0;
+            return coDeviations[q] / controlDeviation;
+        }
+
+        double estimate(int q, double expectedControl) {
+            double beta = beta(q, expectedControl);
+            return beta == 0.0 ? means[q] : means[q] - beta * (controlMean - expectedControl);
+        }
+
+        /**
+         * @return the variance of {@link #estimate}, infinite with too few groups to tell
+         */
+        double variance(int q, double expectedControl) {
+            boolean controlled = !Double.isNaN(expectedControl);
+            int freedom = count - (controlled ? 2 : 1);
+            if (freedom < 1) return Double.POSITIVE_INFINITY;
+            double residual = deviations[q] - beta(q, expectedControl) * coDeviations[q];
+            return Math.max(0.0, residual) / freedom / count;
+        }
+    }
+
+    private static double expectedShortfall(double[] values, double alpha) {
+        if (values.length == 0) return 0.0;
+        double[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.sort(sorted);
+        int cutoff = Math.max(1, (int) Math.floor(alpha * sorted.length));
+        double sum = 0.0;
+        for (int i = 0; i < cutoff; i++) sum += sorted[i];
+        return sum / cutoff;
+    }
+}
@@ -8,25 +8,92 @@ public class MonteCarloResult {
     public final double probLoss; // fraction of paths with net profit < 0
     public final double expectedShortfall5; // ES at 5% on net profit
 
-    // Equity mean curve per time index (others removed)
+    public static final double[] BAND_QUANTILES = {0.05, 0.25, 0.5, 0.75, 0.95};
+    public static final String PROB_LOSS = "Probability of Loss";
+
+    // Equity mean curve per time index
     public final double[] eqMean;
+    // Equity quantile curves per time index, one for each of BAND_QUANTILES. Exact like the summaries for small runs,
+    // from quantile sketches within their rank error when the run or its equity values are too large to keep
+    public final double[][] eqBands;
+    public final long seed; // master seed the permutations were derived from
+    // Standard error of each summary's mean and of probLoss, as reached when the run ended
+    private final Map<String, Double> standardErrors;
+    public final boolean converged; // stopped early because every target precision was reached
+    // Independent random permutations that would give the same standard error, by the same keys
+    private final Map<String, Double> effectiveSampleSizes;
 
     public MonteCarloResult(int permutations,
                             Map<String, StatSummary> summaries,
                             double probLoss,
                             double expectedShortfall5,
                             double[] eqMean) {
+        this(permutations, summaries, probLoss, expectedShortfall5, eqMean, new double[0][], 0L);
+    }
+
+    public MonteCarloResult(int permutations,
+                            Map<String, StatSummary> summaries,
+                            double probLoss,
+                            double expectedShortfall5,
+                            double[] eqMean,
+                            double[][] eqBands,
+                            long seed) {
+        this(permutations, summaries, probLoss, expectedShortfall5, eqMean, eqBands, seed, Map.of(), false);
+    }
+
+    public MonteCarloResult(int permutations,
+                            Map<String, StatSummary> summaries,
+                            double probLoss,
+                            double expectedShortfall5,
+                            double[] eqMean,
+                            double[][] eqBands,
+                            long seed,
+                            Map<String, Double> standardErrors,
+                            boolean converged) {
+        this(permutations, summaries, probLoss, expectedShortfall5, eqMean, eqBands, seed, standardErrors, converged,
+                Map.of());
+    }
+
+    public MonteCarloResult(int permutations,
+                            Map<String, StatSummary> summaries,
+                            double probLoss,
+                            double expectedShortfall5,
+                            double[] eqMean,
+                            double[][] eqBands,
+                            long seed,
+                            Map<String, Double> standardErrors,
+                            boolean converged,
+                            Map<String, Double> effectiveSampleSizes) {
         this.permutations = permutations;
         this.summaries = summaries;
         this.probLoss = probLoss;
         this.expectedShortfall5 = expectedShortfall5;
         this.eqMean = eqMean;
+        this.eqBands = eqBands;
+        this.seed = seed;
+        this.standardErrors = standardErrors;
+        this.converged = converged;
+        this.effectiveSampleSizes = effectiveSampleSizes;
     }
 
     public StatSummary getSummary(String key) {
         return summaries.get(key);
     }
 
+    /**
+     * @return the standard error of a summary's mean, or of probLoss for {@link #PROB_LOSS}, NaN if unknown
+     */
+    public double getStandardError(String key) {
+        return standardErrors.getOrDefault(key, Double.NaN);
+    }
+
+    /**
+     * @return the effective sample size behind a summary's mean or probLoss, NaN if unknown
+     */
+    public double getEffectiveSampleSize(String key) {
+        return effectiveSampleSizes.getOrDefault(key, Double.NaN);
+    }
+
     public java.util.Map<String, StatSummary> getSummaries() {
         return java.util.Collections.unmodifiableMap(summaries);
     }
@@ -1,36 +1,64 @@
 package Backtester.strategies;
 
 import Backtester.objects.Bar;
+import Backtester.objects.BarFingerprint;
+import Backtester.objects.BarSeries;
+import Backtester.objects.PriceRounding;
+import Backtester.script.ScriptBackend;
+import Backtester.script.ScriptProgram;
+import Backtester.script.lanes.LaneCompiler;
+import Backtester.script.lanes.LaneProgram;
+import Backtester.strategies.MonteCarloAggregator.Sample;
 import org.slf4j.Logger;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.SplittableRandom;
 import java.util.concurrent.*;
 
 /**
  * Runs Monte Carlo permutations concurrently. The lookback bars remain fixed across permutations.
- * Each task generates a Brownian-bridge-like permuted copy of the base bars, concatenates the
- * lookback bars, then executes a StrategyRunner and aggregates average metrics across permutations.
+ * Each permutation generates a Brownian-bridge-like permuted copy of the base bars, concatenates the
+ * lookback bars, then executes a StrategyRunner. Results are reduced to their metrics as soon as they are done,
+ * with a bounded number of chunks in flight, and aggregated across permutations.
+ * When the script can be compiled for lanes, permutations are run in blocks by a BatchStrategyRunner instead.
+ * <p>
+ * Chunks of permutations run on a long-lived ForkJoin pool with one worker per core, splitting further while other
+ * workers are idle.
  */
 public class MonteCarloRunner {
 
+    private static final int MAX_CHUNK = 64; // Permutations per submitted chunk, before rounding to lane batches
+
     private final List<Bar> lookbackBars;
+    private final BarFingerprint lookbackFingerprint; // Hashed once, every permutation shares the lookback
     private final List<Bar> baseBars;
     private final String script;
     private final Logger logger;
     private final PricePathGenerator pathGenerator;
+    private ScriptBackend scriptBackend = ScriptBackend.CLOSURE;
+    private int batchSize = 16;
+    private int exactSummaryLimit = 100_000;
+    private int sketchSize = 200;
+    private Map<String, Double> targetStandardErrors = Map.of();
+    private PathSampling sampling = PathSampling.RANDOM;
+    private boolean controlVariate;
 
     public MonteCarloRunner(List<Bar> lookbackBars,
                             List<Bar> baseBars,
                             String script,
-                            Logger logger) {
+                            Logger logger,
+                            PriceRounding rounding) {
         this.lookbackBars = new ArrayList<>(lookbackBars);
+        this.lookbackFingerprint = BarFingerprint.of(this.lookbackBars);
         this.baseBars = new ArrayList<>(baseBars);
         this.script = script;
         this.logger = logger;
-        this.pathGenerator = new BrownianBridgePricePathGenerator(this.baseBars);
+        this.pathGenerator = new BrownianBridgePricePathGenerator(this.baseBars, rounding);
     }
 
     public MonteCarloRunner(List<Bar> lookbackBars,
@@ -39,165 +67,262 @@ public class MonteCarloRunner {
                             Logger logger,
                             PricePathGenerator generator) {
         this.lookbackBars = new ArrayList<>(lookbackBars);
+        this.lookbackFingerprint = BarFingerprint.of(this.lookbackBars);
         this.baseBars = new ArrayList<>(baseBars);
         this.script = script;
         this.logger = logger;
         this.pathGenerator = generator;
     }
 
+    public void setScriptBackend(ScriptBackend scriptBackend) {
+        this.scriptBackend = scriptBackend;
+    }
+
+    /**
+     * Number of paths evaluated together in lockstep, 1 runs every permutation on its own.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Runs with more permutations than the limit summarize their metrics with quantile sketches of the given size
+     * instead of sorting every value. Quantiles are then typically within 1/sketchSize of their true rank.
+     */
+    public void setSummaryAccuracy(int exactSummaryLimit, int sketchSize) {
+        if (sketchSize < 8) throw new IllegalArgumentException("Sketch size must be at least 8");
+        this.exactSummaryLimit = exactSummaryLimit;
+        this.sketchSize = sketchSize;
+    }
+
+    /**
+     * Stops runs early once the standard error of every given metric is at most its target, checked every few dozen
+     * permutations. Keys are summary names, like "Net Profit" or "Sharpe", or {@link MonteCarloResult#PROB_LOSS}.
+     * The permutation count passed to a run is then the most it will use; an empty map always runs them all.
+     */
+    public void setTargetPrecision(Map<String, Double> targetStandardErrors) {
+        this.targetStandardErrors = Map.copyOf(targetStandardErrors);
+    }
+
+    /**
+     * How paths are drawn. Antithetic and Sobol sampling usually reach a given precision with fewer permutations,
+     * see {@link MonteCarloResult#getEffectiveSampleSize(String)}.
+     */
+    public void setSampling(PathSampling sampling) {
+        this.sampling = sampling;
+    }
+
+    /**
+     * Corrects each mean by its correlation with the path's average buy-and-hold open PnL, whose expectation the
+     * path generator knows. Has no effect on quantiles.
+     */
+    public void setControlVariate(boolean controlVariate) {
+        if (controlVariate && pathGenerator.expectedCloses() == null) {
+            throw new IllegalArgumentException("Path generator does not know its expected closes");
+        }
+        this.controlVariate = controlVariate;
+    }
+
+    /**
+     * Runs with a fresh master seed, reported in the result so the run can be repeated.
+     */
     public MonteCarloResult run(int permutations,
                                 int threads,
                                 double initialCapital) {
+        return run(permutations, threads, initialCapital, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Permutation i always runs on the same path for a master seed, the one for {@link #permutationSeed(long, int)}
+     * with random sampling, so the same master seed gives the same result whatever the thread count or batch size.
+     *
+     * @param threads number of workers, 0 or less for the shared pool with {@link #defaultThreads()} workers
+     */
+    public MonteCarloResult run(int permutations,
+                                int threads,
+                                double initialCapital,
+                                long masterSeed) {
         if (permutations <= 0) {
             return new MonteCarloResult(0, java.util.Collections.emptyMap(), 0.0, 0.0,
-                    new double[0]);
+                    new double[0], new double[0][], masterSeed);
         }
 
-        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        ScriptProgram program = scriptBackend.compile(script);
+        LaneProgram laneProgram = batchSize > 1 ? new LaneCompiler().compile(script) : null;
+        Run run = new Run(program, laneProgram, masterSeed, initialCapital);
+        boolean shared = threads <= 0 || threads == SharedPool.POOL.getParallelism();
+        ForkJoinPool pool = shared ? SharedPool.POOL : new ForkJoinPool(threads);
+        int parallelism = pool.getParallelism();
+        // A few chunks per worker, whole lane batches, and small enough that the samples in flight stay bounded
+        int grain = run.grain();
+        int chunk = Math.max(grain, Math.min(roundUp(permutations / (4 * parallelism), grain), roundUp(MAX_CHUNK, grain)));
+        int maxInFlight = 2 * parallelism;
+        MonteCarloAggregator aggregator =
+                new MonteCarloAggregator(permutations, exactSummaryLimit, sketchSize, targetStandardErrors, sampling,
+                        controlVariate ? expectedControl() : Double.NaN);
+        Deque<ForkJoinTask<Sample[]>> inFlight = new ArrayDeque<>();
         try {
-            List<Future<Outcome>> futures = new ArrayList<>(permutations);
-            Random seedGen = new Random();
-            for (int i = 0; i < permutations; i++) {
-                long seed = seedGen.nextLong();
-                futures.add(pool.submit(task(seed, initialCapital)));
+            // Chunks hand back only samples, folded in permutation order as the oldest chunk completes
+            for (int start = 0; start < permutations && !aggregator.converged(); start += chunk) {
+                if (inFlight.size() == maxInFlight) fold(aggregator, inFlight.poll());
+                if (aggregator.converged()) break;
+                inFlight.add(pool.submit(run.new ChunkTask(start, Math.min(permutations, start + chunk))));
             }
-
-            double[] netProfits = new double[permutations];
-            double[] totalPnls = new double[permutations]; // closed + open
-            double[] drawdowns = new double[permutations];
-            double[] sharpes = new double[permutations];
-            double[] tradesCounts = new double[permutations];
-            double[] cagrs = new double[permutations];
-            double[] calmars = new double[permutations];
-            double[] sortinos = new double[permutations];
-            double[] vols = new double[permutations];
-            // Running mean for equity across permutations
-            double[] sumEq = null;
-
-            int idx = 0;
-            for (Future<Outcome> f : futures) {
-                Outcome oc = f.get();
-                RunResult rr = oc.result;
-                double[] eq = rr.strategyEquity();
-                if (sumEq == null) {
-                    sumEq = new double[eq.length];
-                }
-                int len = Math.min(sumEq.length, eq.length);
-                for (int i = 0; i < len; i++) sumEq[i] += eq[i];
-
-                double net = rr.netProfit();
-                netProfits[idx] = net;
-                totalPnls[idx] = net + rr.openPnL();
-                drawdowns[idx] = rr.maxDrawdown();
-                sharpes[idx] = rr.sharpe();
-
-                tradesCounts[idx] = rr.trades().size();
-
-                cagrs[idx] = rr.cagr();
-                calmars[idx] = rr.calmar();
-                vols[idx] = rr.volatility();
-                sortinos[idx] = rr.sortino();
-                idx++;
-            }
-
-            java.util.Map<String, StatSummary> summaries = new java.util.LinkedHashMap<>();
-            summaries.put("Net Profit", summarize(netProfits));
-            summaries.put("Max Drawdown", summarize(drawdowns));
-            summaries.put("Total PnL (Realized+Unrealized)", summarize(totalPnls));
-            summaries.put("Sharpe", summarize(sharpes));
-            summaries.put("Trades", summarize(tradesCounts));
-            summaries.put("CAGR", summarize(cagrs));
-            summaries.put("Calmar", summarize(calmars));
-            summaries.put("Volatility", summarize(vols));
-            summaries.put("Sortino", summarize(sortinos));
-
-            int p = permutations;
-            int losses = 0; for (double v : netProfits) if (v < 0) losses++; double probLoss = (double) losses / p;
-            double es5 = expectedShortfall(netProfits, 0.05);
-
-            double[] meanEq;
-            if (sumEq == null) {
-                meanEq = new double[0];
-            } else {
-                meanEq = new double[sumEq.length];
-                for (int i = 0; i < sumEq.length; i++) meanEq[i] = sumEq[i] / p;
-            }
-            return new MonteCarloResult(p, summaries, probLoss, es5, meanEq);
+            while (!inFlight.isEmpty() && !aggregator.converged()) fold(aggregator, inFlight.poll());
+            return aggregator.result(masterSeed);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException("Monte Carlo run interrupted", e);
         } catch (ExecutionException e) {
             throw new RuntimeException("Monte Carlo task failed", e.getCause());
         } finally {
-            pool.shutdownNow();
+            // Cancelling does not stop chunks that already started, so they check this flag instead
+            run.stopped = true;
+            for (ForkJoinTask<Sample[]> task : inFlight) task.cancel(true);
+            if (!shared) pool.shutdownNow();
         }
     }
 
-    private Callable<Outcome> task(long seed, double initialCapital) {
-        return () -> {
-            List<Bar> permutedBase = pathGenerator.generate(seed);
-            StrategyRunner runner = new StrategyRunner(permutedBase, lookbackBars, script, logger);
-            RunResult res = runner.run(initialCapital);
-            return new Outcome(res, permutedBase);
-        };
+    /**
+     * Number of threads runs use by default, one per available core.
+     */
+    public static int defaultThreads() {
+        return SharedPool.POOL.getParallelism();
     }
 
-    private static class Outcome {
-        final RunResult result;
-        final List<Bar> path;
-
-        Outcome(RunResult result, List<Bar> path) {
-            this.result = result;
-            this.path = path;
-        }
+    private double expectedControl() {
+        double[] expected = pathGenerator.expectedCloses();
+        return averageOpenPnL(expected);
     }
 
-    private static StatSummary summarize(double[] values) {
-        if (values.length == 0) return new StatSummary(0, 0, 0, 0, 0, 0);
-        double[] sorted = Arrays.copyOf(values, values.length);
-        Arrays.sort(sorted);
-        double sum = 0.0;
-        for (double v : sorted) sum += v;
-        double mean = sum / sorted.length;
-        double median = percentile(sorted, 0.5);
-        double p5 = percentile(sorted, 0.05);
-        double p25 = percentile(sorted, 0.25);
-        double p75 = percentile(sorted, 0.75);
-        double p95 = percentile(sorted, 0.95);
-        return new StatSummary(mean, median, p5, p25, p75, p95);
-    }
-
-    private static double interp(double[] sorted, double q) {
-        if (sorted.length == 0) return 0.0;
-        double pos = q * (sorted.length - 1);
-        int i = (int) Math.floor(pos);
-        int j = Math.min(sorted.length - 1, i + 1);
-        double w = pos - i;
-        return sorted[i] * (1 - w) + sorted[j] * w;
-    }
-
-    private static double percentile(double[] sortedAsc, double q) {
-        if (sortedAsc.length == 0) return 0.0;
-        double pos = q * (sortedAsc.length - 1);
-        int i = (int) Math.floor(pos);
-        int j = Math.min(sortedAsc.length - 1, i + 1);
-        double w = pos - i;
-        return sortedAsc[i] * (1 - w) + sortedAsc[j] * w;
-    }
-
-    private static double expectedShortfall(double[] values, double alpha) {
-        if (values.length == 0) return 0.0;
-        double[] sorted = Arrays.copyOf(values, values.length);
-        Arrays.sort(sorted);
-        int cutoff = Math.max(1, (int) Math.floor(alpha * sorted.length));
+    /**
+     * Control of a path: the average over its bars of the open PnL of one share bought at the first close.
+     */
+    private static double averageOpenPnL(double[] closes) {
+        if (closes.length == 0) return 0.0;
         double sum = 0.0;
-        for (int i = 0; i < cutoff; i++) sum += sorted[i];
-        return sum / cutoff;
+        for (double close : closes) sum += close - closes[0];
+        return sum / closes.length;
     }
-}
 
+    private static int roundUp(int value, int multiple) {
+        return Math.max(1, (value + multiple - 1) / multiple) * multiple;
+    }
 
+    private static void fold(MonteCarloAggregator aggregator, ForkJoinTask<Sample[]> task)
+            throws InterruptedException, ExecutionException {
+        for (Sample sample : task.get()) aggregator.add(sample);
+    }
 
+    /**
+     * Seed of the i-th permutation, computed from its index alone like the i-th value of a SplittableRandom seeded
+     * with the master seed, so any process can generate any range of permutations.
+     */
+    public static long permutationSeed(long masterSeed, int permutation) {
+        long z = masterSeed + (permutation + 1L) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
 
+    /**
+     * Long-lived pool shared by every run that does not ask for a specific number of threads.
+     */
+    private static final class SharedPool {
+        static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
 
+    /**
+     * State of one run, shared by its chunks.
+     */
+    private final class Run {
+        private final ScriptProgram program;
+        private final LaneProgram laneProgram;
+        private final long masterSeed;
+        private final double initialCapital;
+        // Buffers each worker generates paths into, reused across its chunks for this run only
+        private final Map<Thread, PricePathBuffer[]> buffers = new ConcurrentHashMap<>();
+        // Set once the run has returned, after which the samples of unfinished chunks are not used
+        volatile boolean stopped;
 
+        Run(ScriptProgram program, LaneProgram laneProgram, long masterSeed, double initialCapital) {
+            this.program = program;
+            this.laneProgram = laneProgram;
+            this.masterSeed = masterSeed;
+            this.initialCapital = initialCapital;
+        }
+
+        /**
+         * @return the smallest number of permutations worth running on their own
+         */
+        int grain() {
+            return laneProgram != null ? batchSize : 1;
+        }
+
+        /**
+         * Runs a range of permutations, reduced to their samples in permutation order. Stops early, leaving the rest
+         * null, once the run has stopped.
+         */
+        Sample[] runRange(int from, int to) {
+            Sample[] samples = new Sample[to - from];
+            int step = grain();
+            PricePathBuffer[] pathBuffers = buffers.computeIfAbsent(Thread.currentThread(), t -> newBuffers(step));
+            for (int start = from; start < to; start += step) {
+                if (stopped) break;
+                int count = Math.min(step, to - start);
+                List<BarSeries> paths = new ArrayList<>(count);
+                double[] controls = new double[count];
+                for (int i = 0; i < count; i++) {
+                    BarSeries path = pathGenerator.generateInto(masterSeed, start + i, sampling, pathBuffers[i]);
+                    paths.add(path);
+                    controls[i] = averageOpenPnL(path.close);
+                }
+                if (laneProgram != null) {
+                    List<RunResult> results = new BatchStrategyRunner(paths, lookbackBars, lookbackFingerprint,
+                            laneProgram, program, logger).run(initialCapital);
+                    for (int i = 0; i < count; i++) samples[start - from + i] = Sample.of(results.get(i), controls[i]);
+                } else {
+                    StrategyRunner runner = new StrategyRunner(paths.get(0), lookbackBars, lookbackFingerprint,
+                            program, null, logger);
+                    samples[start - from] = Sample.of(runner.run(initialCapital), controls[0]);
+                }
+            }
+            return samples;
+        }
+
+        /**
+         * Splits off halves of its range for idle workers to steal while few tasks are queued, so chunks adapt to how
+         * long permutations take.
+         */
+        final class ChunkTask extends RecursiveTask<Sample[]> {
+            private final int from;
+            private final int to;
+
+            ChunkTask(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected Sample[] compute() {
+                int step = grain();
+                if (stopped) return new Sample[0];
+                if (to - from <= step || getSurplusQueuedTaskCount() > 2) return runRange(from, to);
+                int mid = from + Math.max(1, (to - from) / 2 / step) * step;
+                ChunkTask right = new ChunkTask(mid, to);
+                right.fork();
+                Sample[] left = new ChunkTask(from, mid).compute();
+                Sample[] rest = right.join();
+                Sample[] samples = Arrays.copyOf(left, left.length + rest.length);
+                System.arraycopy(rest, 0, samples, left.length, rest.length);
+                return samples;
+            }
+        }
+    }
+
+    private PricePathBuffer[] newBuffers(int count) {
+        PricePathBuffer[] pathBuffers = new PricePathBuffer[count];
+        for (int i = 0; i < count; i++) pathBuffers[i] = new PricePathBuffer(baseBars.size());
+        return pathBuffers;
+    }
+}
@@ -0,0 +1,19 @@
+package Backtester.strategies;
+
+/**
+ * How a Monte Carlo run draws the random innovations of its paths.
+ */
+public enum PathSampling {
+    /** Independent pseudo-random paths. */
+    RANDOM,
+    /** Pairs of paths, the second one with every innovation of the first negated. */
+    ANTITHETIC,
+    /**
+     * The first innovations of a path, in Brownian bridge order, come from a randomly shifted Sobol sequence and the
+     * rest are pseudo-random. Permutations are dealt round robin to independently shifted replicates, whose spread
+     * measures the precision reached.
+     */
+    SOBOL;
+
+    public static final int SOBOL_REPLICATES = 10;
+}
@@ -0,0 +1,37 @@
+package Backtester.strategies;
+
+import Backtester.objects.BarSeries;
+
+/**
+ * Price columns a generator writes paths into, so a thread can produce path after path without allocating.
+ * The series handed out over a buffer is only valid until the next path is written into it.
+ */
+public final class PricePathBuffer {
+
+    public final double[] open;
+    public final double[] high;
+    public final double[] low;
+    public final double[] close;
+    private BarSeries series;
+
+    public PricePathBuffer(int size) {
+        this.open = new double[size];
+        this.high = new double[size];
+        this.low = new double[size];
+        this.close = new double[size];
+    }
+
+    public int size() {
+        return close.length;
+    }
+
+    /**
+     * @return the buffer as a series with the given volumes and dates, the same instance while they do not change
+     */
+    BarSeries series(long[] volume, int[] epochDays) {
+        if (series == null || series.volume != volume || series.epochDays != epochDays) {
+            series = new BarSeries(open, high, low, close, volume, epochDays);
+        }
+        return series;
+    }
+}
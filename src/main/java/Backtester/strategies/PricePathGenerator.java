@@ -1,8 +1,6 @@
 package Backtester.strategies;
 
-import Backtester.objects.Bar;
-
-import java.util.List;
+import Backtester.objects.BarSeries;
 
 /**
  * Abstraction for generating synthetic price paths from a base series.
@@ -11,6 +9,31 @@ public interface PricePathGenerator {
     /**
      * Generate a permuted path of the base bars using the provided seed.
      */
-    List<Bar> generate(long seed);
-}
+    BarSeries generate(long seed);
+
+    /**
+     * Generate the same path as {@link #generate(long)}, written into the buffer when the generator supports it.
+     * The returned series may share the buffer's columns and must not be used after the buffer is reused.
+     */
+    default BarSeries generateInto(long seed, PricePathBuffer buffer) {
+        return generate(seed);
+    }
 
+    /**
+     * Generate the path of a permutation of a run, drawn as the sampling asks. Random sampling uses the path for
+     * {@link MonteCarloRunner#permutationSeed(long, int)}, the only one supported by default.
+     */
+    default BarSeries generateInto(long masterSeed, int permutation, PathSampling sampling, PricePathBuffer buffer) {
+        if (sampling != PathSampling.RANDOM) {
+            throw new UnsupportedOperationException("Path generator does not support " + sampling + " sampling");
+        }
+        return generateInto(MonteCarloRunner.permutationSeed(masterSeed, permutation), buffer);
+    }
+
+    /**
+     * @return the expected close of every bar over all paths, or null if unknown
+     */
+    default double[] expectedCloses() {
+        return null;
+    }
+}
@@ -0,0 +1,218 @@
+package Backtester.strategies;
+
+import java.util.Arrays;
+
+/**
+ * Streaming quantile sketch (KLL) over doubles, using memory that only grows with the log of the number of values.
+ * Values are kept in levels where an item of level h stands for 2^h values; a full level is sorted and every other
+ * item is promoted to the next one. Quantiles are typically within 1/k of the true rank, the minimum and maximum
+ * are exact.
+ * <p>
+ * The coin deciding which half of the pairs is promoted has a fixed seed, so the same values added in the same order
+ * always give the same sketch. Sketches of disjoint sets of values can be merged.
+ * <p>
+ * Queries share one sorted view of the retained items, merged from the sorted levels and kept until the next add.
+ */
+public final class QuantileSketch {
+
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+    private static final int MIN_CAPACITY = 2;
+
+    private final int k;
+    private double[][] levels = new double[1][];
+    private int[] sizes = new int[1];
+    private int[] capacities;
+    private int retained;
+    private int totalCapacity;
+    private long coin = 0x9e3779b97f4a7c15L; // Fixed seed, so a sketch only depends on its values and their order
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    // Retained items in ascending order with their weights, null until queried after a change
+    private double[] sortedValues;
+    private long[] sortedWeights;
+
+    /**
+     * @param k size of the top level, higher is more accurate
+     */
+    public QuantileSketch(int k) {
+        if (k < 8) throw new IllegalArgumentException("Sketch size must be at least 8");
+        this.k = k;
+        this.levels[0] = new double[k];
+        updateCapacities();
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        count++;
+        append(0, value);
+        compress();
+        sortedValues = null;
+    }
+
+    /**
+     * Adds the values of another sketch, which is left unchanged.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) return;
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) append(h, other.levels[h][i]);
+        }
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+        compress();
+        sortedValues = null;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return the value at the given fraction of the ranks, 0 if the sketch is empty
+     */
+    public double quantile(double q) {
+        if (count == 0) return 0.0;
+        if (q <= 0) return min;
+        if (q >= 1) return max;
+        sort();
+        double[] values = sortedValues;
+        long[] weights = sortedWeights;
+        double target = q * count;
+        long cumulative = 0;
+        for (int i = 0; i < values.length; i++) {
+            cumulative += weights[i];
+            if (cumulative >= target) return values[i];
+        }
+        return max;
+    }
+
+    /**
+     * @return the value at each of the given fractions of the ranks, like {@link #quantile(double)}
+     */
+    public double[] quantiles(double... qs) {
+        double[] out = new double[qs.length];
+        for (int i = 0; i < qs.length; i++) out[i] = quantile(qs[i]);
+        return out;
+    }
+
+    /**
+     * @return the mean of the lowest fraction of the values, as the expected shortfall at that level
+     */
+    public double lowerTailMean(double alpha) {
+        if (count == 0) return 0.0;
+        sort();
+        double[] values = sortedValues;
+        long[] weights = sortedWeights;
+        double tail = Math.max(1, Math.floor(alpha * count));
+        double sum = 0.0;
+        double taken = 0.0;
+        for (int i = 0; i < values.length && taken < tail; i++) {
+            double weight = Math.min(weights[i], tail - taken);
+            sum += values[i] * weight;
+            taken += weight;
+        }
+        return sum / taken;
+    }
+
+    private void sort() {
+        if (sortedValues != null) return;
+        // Sorting a level does not change the sketch, compaction sorts it anyway
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        double[] merged = new double[retained];
+        long[] mergedWeights = new long[retained];
+        int size = 0;
+        for (int h = 0; h < levels.length; h++) {
+            int n = sizes[h];
+            if (n == 0) continue;
+            double[] items = levels[h];
+            Arrays.sort(items, 0, n);
+            long weight = 1L << h;
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < size || j < n) {
+                if (j == n || (i < size && values[i] <= items[j])) {
+                    merged[k] = values[i];
+                    mergedWeights[k++] = weights[i++];
+                } else {
+                    merged[k] = items[j++];
+                    mergedWeights[k++] = weight;
+                }
+            }
+            size = k;
+            double[] swapValues = values;
+            values = merged;
+            merged = swapValues;
+            long[] swapWeights = weights;
+            weights = mergedWeights;
+            mergedWeights = swapWeights;
+        }
+        sortedValues = values;
+        sortedWeights = weights;
+    }
+
+    private void updateCapacities() {
+        capacities = new int[levels.length];
+        totalCapacity = 0;
+        for (int h = 0; h < levels.length; h++) {
+            int depth = levels.length - 1 - h;
+            capacities[h] = Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+            totalCapacity += capacities[h];
+        }
+    }
+
+    private void append(int level, double value) {
+        while (level >= levels.length) addLevel();
+        double[] items = levels[level];
+        if (sizes[level] == items.length) {
+            items = levels[level] = Arrays.copyOf(items, Math.max(MIN_CAPACITY, items.length * 2));
+        }
+        items[sizes[level]++] = value;
+        retained++;
+    }
+
+    private void addLevel() {
+        int h = levels.length;
+        levels = Arrays.copyOf(levels, h + 1);
+        sizes = Arrays.copyOf(sizes, h + 1);
+        levels[h] = new double[MIN_CAPACITY];
+        updateCapacities();
+    }
+
+    private void compress() {
+        // Like KLL, only compact while the sketch as a whole is over capacity, starting from the lowest full level
+        while (retained > totalCapacity) {
+            int h = 0;
+            while (sizes[h] < capacities[h]) h++;
+            compact(h);
+        }
+    }
+
+    private int nextBit() {
+        coin ^= coin << 13;
+        coin ^= coin >>> 7;
+        coin ^= coin << 17;
+        return (int) (coin >>> 63);
+    }
+
+    private void compact(int level) {
+        double[] items = levels[level];
+        int n = sizes[level];
+        Arrays.sort(items, 0, n);
+        int kept = n & 1; // An odd item out stays on this level
+        int offset = nextBit();
+        for (int i = kept; i + 1 < n; i += 2) append(level + 1, items[i + offset]);
+        retained -= n - kept;
+        sizes[level] = kept;
+    }
+}
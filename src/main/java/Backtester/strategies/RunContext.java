@@ -4,6 +4,9 @@ import Backtester.caches.InMemoryOrderCache;
 import Backtester.caches.OrderCache;
 import Backtester.caches.ValueAccumulatorCache;
 import Backtester.objects.Bar;
+import Backtester.objects.BarFingerprint;
+import Backtester.objects.BarSeries;
+import Backtester.objects.valueaccumulator.series.IndicatorSeries;
 import Backtester.trades.PositionManager;
 
 import java.util.List;
@@ -12,23 +15,48 @@ public class RunContext {
 
     final public PositionManager positionManager;
     final public OrderCache orderCache;
-    final public List<Bar> bars;
+    final public BarSeries bars;
     final public List<Bar> lookbackBars;
     final public ValueAccumulatorCache valueAccumulatorCache;
+    final public IndicatorSeries indicatorSeries; // Optional precomputed indicators for these bars
+    final public BarFingerprint lookbackFingerprint; // Identifies indicator warm-up states shared between runs
     public int currentIndex;
+    private int nextOrderId = 1; // Orders will exist entirely in memory
 
     public RunContext(List<Bar> bars, List<Bar> lookbackBars) {
+        this(bars, lookbackBars, null);
+    }
+
+    public RunContext(List<Bar> bars, List<Bar> lookbackBars, IndicatorSeries indicatorSeries) {
+        this(bars, lookbackBars, BarFingerprint.of(lookbackBars), indicatorSeries);
+    }
+
+    /**
+     * @param lookbackFingerprint {@code BarFingerprint.of(lookbackBars)}, computed once by callers that build many
+     *                            contexts over the same lookback
+     */
+    public RunContext(List<Bar> bars, List<Bar> lookbackBars, BarFingerprint lookbackFingerprint,
+                      IndicatorSeries indicatorSeries) {
         orderCache = new InMemoryOrderCache();
         positionManager = new PositionManager(orderCache);
         valueAccumulatorCache = new ValueAccumulatorCache();
-        this.bars = bars;
+        this.bars = BarSeries.of(bars);
         this.currentIndex = 0;
         this.lookbackBars = lookbackBars;
+        this.indicatorSeries = indicatorSeries;
+        this.lookbackFingerprint = lookbackFingerprint;
+    }
+
+    public int nextOrderId() {
+        return nextOrderId++;
     }
 
-    public void roll(Bar bar) {
+    /**
+     * Moves the run onto bar {@code index} of its bars.
+     */
+    public void roll(int index) {
         currentIndex++;
-        valueAccumulatorCache.roll(bar);
-        positionManager.roll(bar);
+        valueAccumulatorCache.roll(bars, index);
+        positionManager.roll(bars, index);
     }
 }
@@ -0,0 +1,88 @@
+package Backtester.strategies;
+
+/**
+ * Low-discrepancy Sobol sequence in the first {@link #DIMENSIONS} dimensions, from Joe and Kuo's direction numbers.
+ * Points are computed directly from their index, so any permutation can be generated on its own.
+ */
+final class SobolSequence {
+
+    static final int DIMENSIONS = 16;
+    private static final int BITS = 32;
+
+    // Degree and coefficients of each dimension's primitive polynomial and its initial direction numbers
+    private static final int[][] POLYNOMIALS = {
+            {1, 0, 1}, {2, 1, 1, 3}, {3, 1, 1, 3, 1}, {3, 2, 1, 1, 1}, {4, 1, 1, 1, 3, 3}, {4, 4, 1, 3, 5, 13},
+            {5, 2, 1, 1, 5, 5, 17}, {5, 4, 1, 1, 5, 5, 5}, {5, 7, 1, 1, 7, 11, 19}, {5, 11, 1, 1, 5, 1, 1},
+            {5, 13, 1, 1, 1, 3, 11}, {5, 14, 1, 3, 5, 5, 31}, {6, 1, 1, 3, 3, 9, 7, 49},
+            {6, 13, 1, 1, 1, 15, 21, 21}, {6, 16, 1, 3, 1, 13, 27, 49}};
+    private static final int[][] DIRECTIONS = directions();
+
+    private SobolSequence() {
+    }
+
+    private static int[][] directions() {
+        int[][] v = new int[DIMENSIONS][BITS];
+        for (int j = 0; j < BITS; j++) v[0][j] = 1 << (BITS - 1 - j); // van der Corput
+        for (int d = 1; d < DIMENSIONS; d++) {
+            int[] poly = POLYNOMIALS[d - 1];
+            int s = poly[0];
+            int a = poly[1];
+            for (int j = 0; j < s; j++) v[d][j] = poly[2 + j] << (BITS - 1 - j);
+            for (int j = s; j < BITS; j++) {
+                int value = v[d][j - s] ^ (v[d][j - s] >>> s);
+                for (int k = 1; k < s; k++) {
+                    if (((a >>> (s - 1 - k)) & 1) != 0) value ^= v[d][j - k];
+                }
+                v[d][j] = value;
+            }
+        }
+        return v;
+    }
+
+    /**
+     * @return the coordinate of a point as the 32 bits of a fraction in [0, 1)
+     */
+    static int bits(int dimension, int index) {
+        int[] v = DIRECTIONS[dimension];
+        int x = 0;
+        for (int j = 0; index != 0; j++, index >>>= 1) {
+            if ((index & 1) != 0) x ^= v[j];
+        }
+        return x;
+    }
+
+    /**
+     * @return a standard normal draw from a point's coordinate, digitally shifted by the given bits
+     */
+    static double normal(int dimension, int index, int shift) {
+        long bits = Integer.toUnsignedLong(bits(dimension, index) ^ shift);
+        return inverseNormal((bits + 0.5) / 0x1p32);
+    }
+
+    /**
+     * Inverse of the standard normal distribution function, by Acklam's rational approximation.
+     */
+    static double inverseNormal(double p) {
+        final double a0 = -3.969683028665376e+01, a1 = 2.209460984245205e+02, a2 = -2.759285104469687e+02,
+                a3 = 1.383577518672690e+02, a4 = -3.066479806614716e+01, a5 = 2.506628277459239e+00;
+        final double b0 = -5.447609879822406e+01, b1 = 1.615858368580409e+02, b2 = -1.556989798598866e+02,
+                b3 = 6.680131188771972e+01, b4 = -1.328068155288572e+01;
+        final double c0 = -7.784894002430293e-03, c1 = -3.223964580411365e-01, c2 = -2.400758277161838e+00,
+                c3 = -2.549732539343734e+00, c4 = 4.374664141464968e+00, c5 = 2.938163982698783e+00;
+        final double d0 = 7.784695709041462e-03, d1 = 3.224671290700398e-01, d2 = 2.445134137142996e+00,
+                d3 = 3.754408661907416e+00;
+        final double low = 0.02425;
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c0 * q + c1) * q + c2) * q + c3) * q + c4) * q + c5) / ((((d0 * q + d1) * q + d2) * q + d3) * q + 1);
+        }
+        if (p > 1 - low) {
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c0 * q + c1) * q + c2) * q + c3) * q + c4) * q + c5) / ((((d0 * q + d1) * q + d2) * q + d3) * q + 1);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a0 * r + a1) * r + a2) * r + a3) * r + a4) * r + a5) * q
+                / (((((b0 * r + b1) * r + b2) * r + b3) * r + b4) * r + 1);
+    }
+}
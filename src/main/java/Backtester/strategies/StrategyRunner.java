@@ -1,7 +1,12 @@
 package Backtester.strategies;
 
 import Backtester.objects.Bar;
-import Backtester.script.ScriptEvaluator;
+import Backtester.objects.BarFingerprint;
+import Backtester.objects.BarSeries;
+import Backtester.objects.valueaccumulator.series.IndicatorSeries;
+import Backtester.script.ScriptBackend;
+import Backtester.script.ScriptExecutor;
+import Backtester.script.ScriptProgram;
 import Backtester.trades.PositionManager;
 import org.slf4j.Logger;
 
@@ -9,8 +14,8 @@ import java.util.List;
 
 public class StrategyRunner {
 
-    private final ScriptEvaluator evaluator;
-    private final List<Bar> bars;
+    private final ScriptExecutor evaluator;
+    private final BarSeries bars;
     private final Logger logger;
         private final RunContext runContext;
 
@@ -18,10 +23,51 @@ public class StrategyRunner {
                           List<Bar> lookbackBars,
                           String script,
                           Logger logger) {
-        this.bars = bars;
+        this(bars, lookbackBars, script, logger, ScriptBackend.CLOSURE);
+    }
+
+    public StrategyRunner(List<Bar> bars,
+                          List<Bar> lookbackBars,
+                          String script,
+                          Logger logger,
+                          ScriptBackend backend) {
+        this(bars, lookbackBars, backend.compile(script), logger);
+    }
+
+    public StrategyRunner(List<Bar> bars,
+                          List<Bar> lookbackBars,
+                          ScriptProgram program,
+                          Logger logger) {
+        this(bars, lookbackBars, program, null, logger);
+    }
+
+    /**
+     * @param indicatorSeries indicators precomputed for these bars, shared between runs over the same history
+     */
+    public StrategyRunner(List<Bar> bars,
+                          List<Bar> lookbackBars,
+                          ScriptProgram program,
+                          IndicatorSeries indicatorSeries,
+                          Logger logger) {
+        this(bars, lookbackBars, BarFingerprint.of(lookbackBars), program, indicatorSeries, logger);
+    }
+
+    /**
+     * @param lookbackFingerprint {@code BarFingerprint.of(lookbackBars)}, so runs over the same lookback hash it once
+     */
+    public StrategyRunner(List<Bar> bars,
+                          List<Bar> lookbackBars,
+                          BarFingerprint lookbackFingerprint,
+                          ScriptProgram program,
+                          IndicatorSeries indicatorSeries,
+                          Logger logger) {
+        if (indicatorSeries != null && !indicatorSeries.isFor(bars, lookbackBars)) {
+            throw new IllegalArgumentException("Indicator series was computed for different bars");
+        }
+        this.runContext = new RunContext(bars, lookbackBars, lookbackFingerprint, indicatorSeries);
+        this.bars = runContext.bars;
         this.logger = logger;
-        this.runContext = new RunContext(bars, lookbackBars);
-        this.evaluator = new ScriptEvaluator(script);
+        this.evaluator = program.newExecutor();
     }
 
     public RunResult run(double initialCapital) {
@@ -29,9 +75,12 @@ public class StrategyRunner {
         evaluator.evaluate(runContext); // This is necessary, can't remember why but not to be touched
         runContext.positionManager.setInitialCapital(initialCapital);
         for (int i = 0; i < n; i++) {
-            Bar bar = bars.get(i);
-            roll(bar);
+            roll(i);
         }
+        return result(runContext, bars);
+    }
+
+    static RunResult result(RunContext runContext, BarSeries bars) {
         PositionManager pm = runContext.positionManager;
         
         List<Double> equity = pm.getEquitySeries();
@@ -40,8 +89,8 @@ public class StrategyRunner {
 
         double years = 0.0;
         if (!bars.isEmpty()) {
-            var d0 = bars.get(0).date;
-            var dT = bars.get(bars.size() - 1).date;
+            var d0 = bars.date(0);
+            var dT = bars.date(bars.size() - 1);
             long days = java.time.temporal.ChronoUnit.DAYS.between(d0, dT);
             years = (days > 0) ? (days / 365.25) : (bars.size() / 252.0);
         }
@@ -68,8 +117,8 @@ public class StrategyRunner {
      * First we run anything we need to at open (Fill orders)
      * Then we run the script... I think
      */
-    private void roll(Bar bar) {
-        runContext.roll(bar);
+    private void roll(int index) {
+        runContext.roll(index);
         evaluator.evaluate(runContext);
     }
 }
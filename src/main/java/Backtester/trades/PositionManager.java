@@ -2,6 +2,7 @@ package Backtester.trades;
 
 import Backtester.caches.OrderCache;
 import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
 import Backtester.objects.Position;
 import Backtester.objects.Trade;
 import Backtester.objects.order.Order;
@@ -19,7 +20,7 @@ public class PositionManager {
 
     private final OrderCache orderCache; // Orders will be filled immediately at the next open. Any order with status
     private Position position;
-    private Bar currentBar;
+    private double currentOpen;
     private static final Comparator<Trade> TRADE_ORDERING = Comparator.comparing(Trade::getEntryBarDate).thenComparing(Trade::getOrderId);
 
     // Equity and metrics tracking
@@ -39,15 +40,27 @@ public class PositionManager {
 
     // Ordering of whether we roll the PositionManager or script first will be important.
     public void roll(Bar bar) {
-        this.currentBar = bar;
+        roll(bar.open, bar.high, bar.low, bar, null, 0);
+    }
+
+    /**
+     * Rolls onto bar {@code index} of a series. The bar view is only created if an order fills on it.
+     */
+    public void roll(BarSeries bars, int index) {
+        roll(bars.open[index], bars.high[index], bars.low[index], null, bars, index);
+    }
+
+    private void roll(double open, double high, double low, Bar bar, BarSeries bars, int index) {
+        this.currentOpen = open;
         List<Order> openOrders = orderCache.snapshot().values().stream()
                 .filter(order -> order.status() == OrderStatus.OPEN)
                 .toList();
         
         if (!openOrders.isEmpty()) {
             for (Order openOrder: openOrders) {
-                if (shouldFillOrder(openOrder, bar)) {
-                    double fillPrice = calculateFillPrice(openOrder, bar);
+                if (shouldFillOrder(openOrder, high, low)) {
+                    if (bar == null) bar = bars.get(index);
+                    double fillPrice = calculateFillPrice(openOrder, open);
                     Order filledOrder = openOrder.withFillPrice(fillPrice)
                                                .withOrderStatus(OrderStatus.FILLED)
                                                .withFillDate(bar.date);
@@ -98,13 +111,13 @@ public class PositionManager {
         List<Trade> openTrades = new ArrayList<>(position.getTrades().stream().filter(Trade::isOpen).toList());
         double sum = 0;
         for (Trade openTrade: openTrades) {
-            sum += openTrade.openPnL(currentBar);
+            sum += openTrade.openPnL(currentOpen);
         }
         return sum;
     }
 
     public double openPnl(Trade trade) {
-        return trade.openPnL(currentBar);
+        return trade.openPnL(currentOpen);
     }
 
     public double maxDrawdown() {
@@ -164,7 +177,7 @@ public class PositionManager {
     public void reset() {
         this.position = new Position();
         this.orderCache.reset();
-        this.currentBar = null;
+        this.currentOpen = 0;
         this.equitySeries.clear();
         this.periodReturns.clear();
         this.peakEquity = Double.NaN;
@@ -353,40 +366,40 @@ public class PositionManager {
         if (remainingToClose > 0) throw new IllegalStateException("Tried to close more than open trades allowed.");
     }
 
-    private boolean shouldFillOrder(Order order, Bar bar) {
+    private boolean shouldFillOrder(Order order, double high, double low) {
         return switch (order.orderType()) {
             case Market -> true;
-            case Limit -> shouldFillLimitOrder(order, bar);
-            case Stop -> shouldFillStopOrder(order, bar);
-            case StopLimit -> shouldFillLimitOrder(order, bar) && shouldFillStopOrder(order, bar);
+            case Limit -> shouldFillLimitOrder(order, high, low);
+            case Stop -> shouldFillStopOrder(order, high, low);
+            case StopLimit -> shouldFillLimitOrder(order, high, low) && shouldFillStopOrder(order, high, low);
         };
     }
 
-    private boolean shouldFillLimitOrder(Order order, Bar bar) {
-        if (order.side() == OrderSide.BUY) return bar.low <= order.limitPrice();
-        else return bar.high >= order.limitPrice();
+    private boolean shouldFillLimitOrder(Order order, double high, double low) {
+        if (order.side() == OrderSide.BUY) return low <= order.limitPrice();
+        else return high >= order.limitPrice();
     }
 
-    private boolean shouldFillStopOrder(Order order, Bar bar) {
-        if (order.side() == OrderSide.BUY) return bar.high >= order.stopPrice();
-        else return bar.low <= order.stopPrice();
+    private boolean shouldFillStopOrder(Order order, double high, double low) {
+        if (order.side() == OrderSide.BUY) return high >= order.stopPrice();
+        else return low <= order.stopPrice();
     }
 
-    private double calculateFillPrice(Order order, Bar bar) {
+    private double calculateFillPrice(Order order, double open) {
         return switch (order.orderType()) {
-            case Market -> bar.open;
-            case Limit, StopLimit -> calculateLimitFillPrice(order, bar);
-            case Stop -> calculateStopFillPrice(order, bar);
+            case Market -> open;
+            case Limit, StopLimit -> calculateLimitFillPrice(order, open);
+            case Stop -> calculateStopFillPrice(order, open);
         };
     }
 
-    private double calculateLimitFillPrice(Order order, Bar bar) {
-        if (order.side() == OrderSide.BUY) return Math.min(order.limitPrice(), bar.open);
-        else return Math.max(order.limitPrice(), bar.open);
+    private double calculateLimitFillPrice(Order order, double open) {
+        if (order.side() == OrderSide.BUY) return Math.min(order.limitPrice(), open);
+        else return Math.max(order.limitPrice(), open);
     }
 
-    private double calculateStopFillPrice(Order order, Bar bar) {
-        if (order.side() == OrderSide.BUY) return Math.max(order.stopPrice(), bar.open);
-        else return Math.min(order.stopPrice(), bar.open);
+    private double calculateStopFillPrice(Order order, double open) {
+        if (order.side() == OrderSide.BUY) return Math.max(order.stopPrice(), open);
+        else return Math.min(order.stopPrice(), open);
     }
 }
@@ -1,6 +1,7 @@
 package Backtester.ui;
 
 import Backtester.AppModule;
+import Backtester.services.ConfigurationService;
 import Backtester.services.HistoricalDataService;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -26,7 +27,10 @@ public class BacktesterApplication extends Application {
         primaryStage.setTitle("Backtester - Stock Trading Strategy Backtester");
 
         HistoricalDataService historicalDataService = injector.getInstance(HistoricalDataService.class);
-        controller = new BacktesterController(historicalDataService);
+        ConfigurationService configurationService = injector.getInstance(ConfigurationService.class);
+        controller = new BacktesterController(historicalDataService,
+                configurationService.getScriptBackend(),
+                configurationService.getPriceRounding());
 
         Parent root = createUI();
         Scene scene = new Scene(root, 1200, 800);        scene.setFill(Color.web("#0e1117"));
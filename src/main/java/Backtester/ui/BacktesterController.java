@@ -1,11 +1,15 @@
 package Backtester.ui;
 
 import Backtester.objects.Bar;
+import Backtester.objects.PriceRounding;
 import Backtester.objects.Trade;
+import Backtester.objects.valueaccumulator.series.IndicatorSeries;
+import Backtester.script.ScriptBackend;
 import Backtester.script.tokens.Parser;
 import Backtester.services.HistoricalDataService;
 import Backtester.strategies.MonteCarloResult;
 import Backtester.strategies.MonteCarloRunner;
+import Backtester.strategies.PathSampling;
 import Backtester.strategies.RunResult;
 import Backtester.strategies.StrategyRunner;
 import javafx.application.Platform;
@@ -22,6 +26,7 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -33,6 +38,8 @@ public class BacktesterController {
 
     // Services
     private final HistoricalDataService historicalDataService;
+    private final ScriptBackend scriptBackend;
+    private final PriceRounding priceRounding;
 
     // UI Components
     public TextField symbolField;
@@ -56,6 +63,9 @@ public class BacktesterController {
     public ProgressBar progressBar;
     public Label statusLabel;
     public TextField permutationsField;
+    public TextField targetErrorField; // Standard error of the net profit mean at which Monte Carlo stops early
+    public ComboBox<PathSampling> samplingBox;
+    public CheckBox controlVariateBox;
 
     public Label mcTitleLabel;
     public TableView<MonteCarloMetricRow> mcMetricsTable;
@@ -70,7 +80,19 @@ public class BacktesterController {
     private volatile boolean isRunning = false;
 
     public BacktesterController(HistoricalDataService historicalDataService) {
+        this(historicalDataService, ScriptBackend.CLOSURE);
+    }
+
+    public BacktesterController(HistoricalDataService historicalDataService, ScriptBackend scriptBackend) {
+        this(historicalDataService, scriptBackend, PriceRounding.CENTS);
+    }
+
+    public BacktesterController(HistoricalDataService historicalDataService,
+                                ScriptBackend scriptBackend,
+                                PriceRounding priceRounding) {
         this.historicalDataService = historicalDataService;
+        this.scriptBackend = scriptBackend;
+        this.priceRounding = priceRounding;
     }
 
     @FXML
@@ -180,7 +202,10 @@ public class BacktesterController {
             if (!strategyScript.trim().isEmpty()) {
                 try {
                     long baseStartNs = System.nanoTime();
-                    StrategyRunner strategyRunner = new StrategyRunner(bars, lookbackBars, strategyScript, logger);
+                    // Series are cached per data set, so rerunning over the same bars reuses the indicators
+                    IndicatorSeries indicatorSeries = new IndicatorSeries(bars, lookbackBars);
+                    StrategyRunner strategyRunner = new StrategyRunner(bars, lookbackBars,
+                            scriptBackend.compile(strategyScript), indicatorSeries, logger);
                     results = strategyRunner.run(initialCapital);
                     long baseEndNs = System.nanoTime();
                     Duration baseDur = Duration.ofNanos(baseEndNs - baseStartNs);
@@ -203,17 +228,29 @@ public class BacktesterController {
             int permutations = parseOrDefault(permutationsField != null ? permutationsField.getText() : "0", 0);
             if (permutations > 0) {
                 Platform.runLater(() -> statusLabel.setText("Running Monte Carlo (" + permutations + ")..."));
-                MonteCarloRunner mcRunner = new MonteCarloRunner(lookbackBars, bars, strategyScript, logger);
-                int threads = Math.min(4, permutations);
+                MonteCarloRunner mcRunner = new MonteCarloRunner(lookbackBars, bars, strategyScript, logger, priceRounding);
+                mcRunner.setScriptBackend(scriptBackend);
+                double targetError = parseOrDefault(targetErrorField != null ? targetErrorField.getText() : "", 0.0);
+                if (targetError > 0) mcRunner.setTargetPrecision(Map.of("Net Profit", targetError));
+                if (samplingBox != null && samplingBox.getValue() != null) mcRunner.setSampling(samplingBox.getValue());
+                if (controlVariateBox != null) mcRunner.setControlVariate(controlVariateBox.isSelected());
+                int threads = MonteCarloRunner.defaultThreads();
                 long mcStartNs = System.nanoTime();
                 MonteCarloResult mc = mcRunner.run(permutations, threads, initialCapital);
                 long mcEndNs = System.nanoTime();
                 Duration mcDur = Duration.ofNanos(mcEndNs - mcStartNs);
-                logger.info("Monte Carlo runtime: {} permutations in {} ms ({} s) using {} threads",
-                        permutations,
+                logger.info("Monte Carlo runtime: {} permutations in {} ms ({} s) using {} threads, seed {}",
+                        mc.permutations,
                         mcDur.toMillis(),
                         String.format("%.3f", mcDur.toMillis() / 1000.0),
-                        threads);
+                        threads,
+                        mc.seed);
+                logger.info("Monte Carlo precision: net profit mean ±{} (standard error, effective sample size {}), "
+                                + "probability of loss ±{}{}",
+                        String.format("%.2f", mc.getStandardError("Net Profit")),
+                        String.format("%.0f", mc.getEffectiveSampleSize("Net Profit")),
+                        String.format("%.4f", mc.getStandardError(MonteCarloResult.PROB_LOSS)),
+                        mc.converged ? ", targets reached" : "");
                 Platform.runLater(() -> {
                     if (mcTitleLabel != null) {
                         mcTitleLabel.setText("Randomized Permutations Metrics");
@@ -223,7 +260,9 @@ public class BacktesterController {
                     if (chartManager != null) {
                         chartManager.overlayMonteCarlo(mc, lastDates, null, buyAndHoldEquity);
                     }
-                    statusLabel.setText("Randomized permutation testing completed");
+                    statusLabel.setText(mc.converged
+                            ? "Randomized permutation testing reached its target after " + mc.permutations + " permutations"
+                            : "Randomized permutation testing completed");
                     resetUI();
                 });
             } else {
@@ -255,7 +294,7 @@ public class BacktesterController {
         try {
             Parser parser = new Parser();
             String s = getStrategyScript().trim();
-            parser.parse(s);
+            parser.parse(s).checkVariablesDeclared();
         } catch (Exception e) {
             logger.error(e.getMessage());
             showAlert("Invalid Input", "Could not parse strategy. Error: " + e);
@@ -343,6 +382,14 @@ public class BacktesterController {
         }
     }
 
+    private double parseOrDefault(String text, double def) {
+        try {
+            return Double.parseDouble(text.trim());
+        } catch (Exception e) {
+            return def;
+        }
+    }
+
     private void updateChart(RunResult result, List<LocalDate> dates, List<Double> buyAndHold) {
         if (chartManager == null) return;
         double[] strat = result.strategyEquity();
@@ -1,6 +1,8 @@
 package Backtester.ui;
 
 import Backtester.objects.Trade;
+import Backtester.strategies.PathSampling;
+import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
@@ -116,6 +118,23 @@ public class BacktesterUI {
         permutationsField.setPrefWidth(120);
         permutationsField.setStyle("-fx-text-fill: #e0e6f1; -fx-font-weight: bold;");
 
+        // Stops early once the net profit mean is this precise; permutations is then the most it runs
+        Label targetErrorLabel = new Label("Target Std. Error ($):");
+        targetErrorLabel.setStyle("-fx-text-fill: #e0e6f1; -fx-font-weight: bold;");
+        TextField targetErrorField = new TextField();
+        targetErrorField.setPromptText("blank = run all");
+        targetErrorField.setPrefWidth(150);
+        targetErrorField.setStyle("-fx-text-fill: #e0e6f1; -fx-font-weight: bold;");
+
+        // How Monte Carlo paths are drawn, and whether means are corrected with buy-and-hold as a control variate
+        Label samplingLabel = new Label("Path Sampling:");
+        samplingLabel.setStyle("-fx-text-fill: #e0e6f1; -fx-font-weight: bold;");
+        ComboBox<PathSampling> samplingBox = new ComboBox<>(FXCollections.observableArrayList(PathSampling.values()));
+        samplingBox.setValue(PathSampling.RANDOM);
+        samplingBox.setPrefWidth(150);
+        CheckBox controlVariateBox = new CheckBox("Buy & Hold Control Variate");
+        controlVariateBox.setStyle("-fx-text-fill: #e0e6f1; -fx-font-weight: bold;");
+
         // Block size removed (was used for bootstrap); Brownian bridge does not require it.
 
         // Control buttons
@@ -148,15 +167,22 @@ public class BacktesterUI {
         grid.add(endDateLabel, 4, 0);
         grid.add(endDatePicker, 5, 0);
 
-        // Row 1: Initial Capital | Permutations
+        // Row 1: Initial Capital | Permutations | Target Std. Error
         grid.add(capitalLabel, 0, 1);
         grid.add(capitalField, 1, 1);
         grid.add(permutationsLabel, 2, 1);
         grid.add(permutationsField, 3, 1);
+        grid.add(targetErrorLabel, 4, 1);
+        grid.add(targetErrorField, 5, 1);
         // Removed block size controls
 
+        // Row 2: Path Sampling | Control Variate
+        grid.add(samplingLabel, 0, 2);
+        grid.add(samplingBox, 1, 2);
+        grid.add(controlVariateBox, 2, 2, 2, 1);
+
         // Buttons row spans across all columns
-        grid.add(buttonBox, 0, 2, 6, 1);
+        grid.add(buttonBox, 0, 3, 6, 1);
         
         // Connect to controller
         controller.symbolField = securityField;
@@ -168,6 +194,9 @@ public class BacktesterUI {
         controller.progressBar = progressBar;
         controller.statusLabel = statusLabel;
         controller.permutationsField = permutationsField;
+        controller.targetErrorField = targetErrorField;
+        controller.samplingBox = samplingBox;
+        controller.controlVariateBox = controlVariateBox;
         // Block size field removed
         
         section.getChildren().addAll(title, grid);
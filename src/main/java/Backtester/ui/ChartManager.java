@@ -60,16 +60,28 @@ public class ChartManager {
         JSONArray jStrat = new JSONArray();
         JSONArray jBh = new JSONArray();
         JSONArray jMcMean = new JSONArray();
+        JSONArray jMcBands = new JSONArray(); // p5, p25, p50, p75, p95
+        boolean hasBands = mc.eqBands != null && mc.eqBands.length == MonteCarloResult.BAND_QUANTILES.length;
+        if (hasBands) {
+            for (double[] band : mc.eqBands) {
+                if (band.length < len) hasBands = false;
+                jMcBands.put(new JSONArray());
+            }
+        }
         for (int i = 0; i < len; i++) {
             jDates.put(dates.get(i).toString());
             if (strategy != null && i < strategy.size()) jStrat.put(strategy.get(i));
             if (buyHold != null && i < buyHold.size()) jBh.put(buyHold.get(i));
             jMcMean.put(mc.eqMean[i]);
+            if (hasBands) {
+                for (int b = 0; b < mc.eqBands.length; b++) jMcBands.getJSONArray(b).put(mc.eqBands[b][i]);
+            }
         }
         payload.put("dates", jDates);
         if (jStrat.length() > 0) if (jStrat.length() > 0) if (jStrat.length() > 0) payload.put("strategy", jStrat);
         if (jBh.length() > 0) if (jBh.length() > 0) if (jBh.length() > 0) payload.put("buyhold", jBh);
         payload.put("mcMean", jMcMean);
+        if (hasBands) payload.put("mcBands", jMcBands);
 
         String js = buildSafeUpdateCall(payload.toString());
         Runnable runJs = () -> engine.executeScript(js);
@@ -0,0 +1,109 @@
+package Backtester.script;
+
+import Backtester.objects.Bar;
+import Backtester.script.optimizer.ConstantFolder;
+import Backtester.script.statements.IfStatement;
+import Backtester.script.statements.Statement;
+import Backtester.script.statements.VariableDeclaration;
+import Backtester.script.statements.expressions.*;
+import Backtester.script.tokens.Parser;
+import Backtester.strategies.RunContext;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConstantFolderTest {
+
+    private List<Statement> fold(String source) {
+        return new ConstantFolder().fold(new Parser().parse(source)).statements();
+    }
+
+    @Test
+    public void testFoldsArithmetic() {
+        VariableDeclaration decl = (VariableDeclaration) fold("x = -(2 + 3) * 4").get(0);
+        assertInstanceOf(Literal.class, decl.initializer);
+        assertEquals(-20.0, ((Literal) decl.initializer).value);
+    }
+
+    @Test
+    public void testFoldsFunctionArguments() {
+        VariableDeclaration decl = (VariableDeclaration) fold("x = sma(10 + 10) > 2 * close()").get(0);
+        BinaryExpression bin = (BinaryExpression) decl.initializer;
+        FunctionCall sma = (FunctionCall) bin.left;
+        assertEquals(20.0, ((Literal) sma.arguments.get(0)).value);
+        BinaryExpression right = (BinaryExpression) bin.right;
+        assertInstanceOf(Literal.class, right.left);
+        assertInstanceOf(FunctionCall.class, right.right);
+    }
+
+    @Test
+    public void testEqualityKeepsRuntimeSemantics() {
+        VariableDeclaration decl = (VariableDeclaration) fold("x = 1 + 1 == 2").get(0);
+        // 1 + 1 evaluates to a Double, which equals the Integer literal 2 since numbers compare by value
+        assertEquals(true, ((Literal) decl.initializer).value);
+    }
+
+    @Test
+    public void testFoldedArgumentsRunOnEveryBackend() {
+        String script = """
+                if close() > sma(10 * 2):
+                    createOrder("above", true, 2 * 5)
+                """;
+        List<Bar> bars = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            double close = 100 + i;
+            bars.add(new Bar(i, LocalDate.of(2024, 1, 1).plusDays(i), close, close + 1, close - 1, close, 1000));
+        }
+        List<Bar> lookback = bars.subList(0, 30);
+        List<Bar> run = bars.subList(30, 60);
+        for (ScriptBackend backend : ScriptBackend.values()) {
+            ScriptExecutor executor = backend.create(script);
+            RunContext ctx = new RunContext(run, lookback);
+            executor.evaluate(ctx);
+            for (int i = 0; i < run.size(); i++) {
+                ctx.roll(i);
+                executor.evaluate(ctx);
+            }
+            var orders = ctx.orderCache.snapshot().values();
+            assertEquals(run.size() + 1, orders.size(), backend.name());
+            assertTrue(orders.stream().allMatch(o -> o.quantity() == 10), backend.name());
+        }
+    }
+
+    @Test
+    public void testPrunesConstantBranches() {
+        List<Statement> stmts = fold("""
+                if 1 > 2:
+                    a = 1
+                elif close() > 1:
+                    b = 2
+                elif true:
+                    c = 3
+                else:
+                    d = 4
+                """);
+        IfStatement ifStmt = (IfStatement) stmts.get(0);
+        assertEquals(2, ifStmt.branches.size());
+        assertFalse(ifStmt.branches.get(0).isElse());
+        assertTrue(ifStmt.branches.get(1).isElse());
+        assertEquals("c", ((VariableDeclaration) ifStmt.branches.get(1).body.get(0)).name);
+    }
+
+    @Test
+    public void testInlinesAlwaysTakenBranch() {
+        List<Statement> stmts = fold("""
+                if !false:
+                    a = 1
+                else:
+                    b = 2
+                x = 3
+                """);
+        assertEquals(2, stmts.size());
+        assertEquals("a", ((VariableDeclaration) stmts.get(0)).name);
+        assertEquals("x", ((VariableDeclaration) stmts.get(1)).name);
+    }
+}
@@ -1,5 +1,6 @@
 package Backtester.script;
 
+import Backtester.objects.CompiledScript;
 import Backtester.script.statements.ExpressionStatement;
 import Backtester.script.statements.IfStatement;
 import Backtester.script.statements.Statement;
@@ -348,4 +349,48 @@ public class ParserTest {
         assertInstanceOf(Literal.class, top.left);
         assertInstanceOf(BinaryExpression.class, top.right);
     }
+
+    @Test
+    public void testExpressionTypes() {
+        List<Statement> stmts = parse("""
+                fast = sma(10)
+                slow = sma(50) * 1.01
+                cross = crossover(fast, slow)
+                mixed = 1
+                mixed = true
+                """);
+
+        VariableDeclaration fast = (VariableDeclaration) stmts.get(0);
+        VariableDeclaration slow = (VariableDeclaration) stmts.get(1);
+        VariableDeclaration cross = (VariableDeclaration) stmts.get(2);
+        VariableDeclaration mixed = (VariableDeclaration) stmts.get(3);
+
+        assertEquals(ExpressionType.NUMBER, fast.initializer.getType());
+        assertEquals(ExpressionType.NUMBER, slow.initializer.getType());
+        assertEquals(ExpressionType.BOOLEAN, cross.initializer.getType());
+        assertEquals(ExpressionType.NUMBER, ((FunctionCall) cross.initializer).arguments.get(0).getType());
+        assertEquals(ExpressionType.UNKNOWN, mixed.variable.getType());
+    }
+
+    @Test
+    public void testVariableSlots() {
+        CompiledScript script = new Parser().parse("""
+                fast = sma(10)
+                spread = close() - open()
+                if spread > 0:
+                    fast = sma(20)
+                """);
+
+        assertEquals(2, script.variables().size());
+        VariableDeclaration first = (VariableDeclaration) script.statements().get(0);
+        VariableDeclaration reassigned = (VariableDeclaration) ((IfStatement) script.statements().get(2)).branches.get(0).body.get(0);
+        Identifier read = (Identifier) ((BinaryExpression) ((IfStatement) script.statements().get(2)).branches.get(0).condition).left;
+
+        assertSame(first.variable, reassigned.variable);
+        assertEquals(0, first.variable.slot);
+        assertEquals(1, read.variable.slot);
+        assertFalse(first.variable.isPrimitiveNumber());
+        assertTrue(read.variable.isPrimitiveNumber());
+        assertThrows(RuntimeException.class, () -> new Parser().parse("x = y + 1").checkVariablesDeclared());
+    }
 }
@@ -0,0 +1,200 @@
+package Backtester.script;
+
+import Backtester.objects.Bar;
+import Backtester.script.compiler.JavaSourceCompiler;
+import Backtester.script.compiler.CompiledProgram;
+import Backtester.script.compiler.ScriptCompiler;
+import Backtester.strategies.RunContext;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScriptCompilerTest {
+
+    private static final String SCRIPT = """
+            sma5 = sma(5)
+            sma20 = sma(20)
+            spread = close() - open()
+            if crossover(sma5, sma20):
+                createOrder("long", true, 10)
+            elif crossover(sma20, sma5):
+                createOrder("short", false, 10)
+            elif -spread < 2 * 1.5:
+                createOrder("dip", true, 5)
+            """;
+
+    private static List<Bar> series(int start, int count) {
+        List<Bar> bars = new ArrayList<>();
+        LocalDate date = LocalDate.of(2024, 1, 1).plusDays(start);
+        for (int i = 0; i < count; i++) {
+            double close = 100 + 10 * Math.sin((start + i) / 7.0) + (start + i) * 0.05;
+            bars.add(new Bar(i, date.plusDays(i), close - 0.5, close + 1, close - 1, close, 1000));
+        }
+        return bars;
+    }
+
+    private static RunContext run(ScriptExecutor executor, List<Bar> bars, List<Bar> lookback) {
+        RunContext ctx = new RunContext(bars, lookback);
+        executor.evaluate(ctx);
+        for (int i = 0; i < bars.size(); i++) {
+            ctx.roll(i);
+            executor.evaluate(ctx);
+        }
+        return ctx;
+    }
+
+    @Test
+    public void testCompiledMatchesInterpreter() {
+        List<Bar> lookback = series(0, 30);
+        List<Bar> bars = series(30, 200);
+
+        RunContext interpreted = run(new ScriptEvaluator(SCRIPT), bars, lookback);
+        RunContext compiled = run(new ScriptCompiler().compile(SCRIPT).newExecutor(), bars, lookback);
+
+        assertFalse(interpreted.positionManager.allTrades().isEmpty());
+        assertEquals(interpreted.orderCache.snapshot().size(), compiled.orderCache.snapshot().size());
+        assertEquals(interpreted.positionManager.allTrades().size(), compiled.positionManager.allTrades().size());
+        assertEquals(interpreted.positionManager.netProfit(), compiled.positionManager.netProfit());
+        assertEquals(interpreted.positionManager.openPnL(), compiled.positionManager.openPnL());
+    }
+
+    @Test
+    public void testJavaSourceMatchesInterpreter() {
+        List<Bar> lookback = series(0, 30);
+        List<Bar> bars = series(30, 200);
+
+        ScriptProgram generated = new JavaSourceCompiler().compile(SCRIPT);
+        assertFalse(generated instanceof CompiledProgram, "expected a generated class, not the fallback");
+
+        RunContext interpreted = run(new ScriptEvaluator(SCRIPT), bars, lookback);
+        RunContext compiled = run(generated.newExecutor(), bars, lookback);
+
+        assertEquals(interpreted.orderCache.snapshot().size(), compiled.orderCache.snapshot().size());
+        assertEquals(interpreted.positionManager.allTrades().size(), compiled.positionManager.allTrades().size());
+        assertEquals(interpreted.positionManager.netProfit(), compiled.positionManager.netProfit());
+    }
+
+    @Test
+    public void testBoundCallsRebindPerRun() {
+        String script = """
+                if crossover(sma(5), sma(20)):
+                    createOrder("long", true, 10)
+                elif crossover(sma(20), sma(5)):
+                    createOrder("short", false, 10)
+                elif close() > sma(10) + 5:
+                    createOrder("breakout", true, 5)
+                """;
+        List<Bar> lookback = series(0, 30);
+        List<Bar> bars = series(30, 200);
+        RunContext interpreted = run(new ScriptEvaluator(script), bars, lookback);
+        ScriptProgram generated = new JavaSourceCompiler().compile(script);
+        assertFalse(generated instanceof CompiledProgram, "expected a generated class, not the fallback");
+
+        for (ScriptExecutor executor : List.of(new ScriptCompiler().compile(script).newExecutor(), generated.newExecutor())) {
+            // Each run has its own accumulators, so a reused executor must resolve its calls again
+            run(executor, series(100, 50), series(70, 30));
+            RunContext compiled = run(executor, bars, lookback);
+            assertEquals(interpreted.orderCache.snapshot().size(), compiled.orderCache.snapshot().size());
+            assertEquals(interpreted.positionManager.netProfit(), compiled.positionManager.netProfit());
+        }
+    }
+
+    @Test
+    public void testSharedExpressionsMatchInterpreter() {
+        String script = """
+                fast = sma(5)
+                slow = sma(20)
+                spread = close() - open()
+                doubled = spread * 2
+                spread = -spread
+                if crossover(fast, slow):
+                    createOrder("long", true, 10)
+                elif crossover(slow, fast):
+                    createOrder("short", false, 10)
+                elif doubled > spread * 2:
+                    createOrder("down", false, 2)
+                elif close() - open() > 0.5:
+                    createOrder("up", true, 3)
+                if crossover(fast, slow) == true:
+                    createOrder("confirm", true, 1)
+                """;
+        List<Bar> lookback = series(0, 30);
+        List<Bar> bars = series(30, 200);
+        RunContext interpreted = run(new ScriptEvaluator(script), bars, lookback);
+        ScriptProgram generated = new JavaSourceCompiler().compile(script);
+        assertFalse(generated instanceof CompiledProgram, "expected a generated class, not the fallback");
+
+        for (ScriptExecutor executor : List.of(new ScriptCompiler().compile(script).newExecutor(), generated.newExecutor())) {
+            RunContext compiled = run(executor, bars, lookback);
+            assertEquals(interpreted.orderCache.snapshot().size(), compiled.orderCache.snapshot().size());
+            assertEquals(interpreted.positionManager.netProfit(), compiled.positionManager.netProfit());
+        }
+    }
+
+    @Test
+    public void testProgramIsSharedAcrossRuns() throws Exception {
+        List<Bar> lookback = series(0, 30);
+        List<Bar> bars = series(30, 200);
+        RunContext interpreted = run(new ScriptEvaluator(SCRIPT), bars, lookback);
+
+        for (ScriptBackend backend : ScriptBackend.values()) {
+            ScriptProgram program = backend.compile(SCRIPT);
+            assertSame(program, backend.compile(SCRIPT));
+
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            List<Future<RunContext>> runs = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                runs.add(pool.submit(() -> run(program.newExecutor(), bars, lookback)));
+            }
+            for (Future<RunContext> f : runs) {
+                RunContext ctx = f.get();
+                assertEquals(interpreted.orderCache.snapshot().size(), ctx.orderCache.snapshot().size());
+                assertEquals(interpreted.positionManager.netProfit(), ctx.positionManager.netProfit());
+            }
+            pool.shutdown();
+        }
+    }
+
+    // Numeric variables hold doubles, which functions and == have to accept like the integer literals they were
+    private static final String NUMERIC_VARIABLES = """
+            qty = 10
+            n = 20
+            x = 5
+            slow = sma(n)
+            if x == 5:
+                createOrder("five", true, qty)
+            if x != 5:
+                createOrder("never", true, 1)
+            if close() > slow:
+                createOrder("above", false, qty)
+            """;
+
+    @Test
+    public void testNumericVariablesWorkAsArgumentsOnEveryBackend() {
+        List<Bar> lookback = series(0, 30);
+        List<Bar> bars = series(30, 100);
+        assertFalse(ScriptBackend.JAVA_SOURCE.compile(NUMERIC_VARIABLES) instanceof CompiledProgram);
+
+        for (ScriptBackend backend : ScriptBackend.values()) {
+            RunContext ctx = run(backend.create(NUMERIC_VARIABLES), bars, lookback);
+            var orders = ctx.orderCache.snapshot().values();
+            assertTrue(orders.stream().anyMatch(o -> o.label().equals("above")), backend.name());
+            assertEquals(bars.size() + 1, orders.stream().filter(o -> o.label().equals("five")).count(), backend.name());
+            assertTrue(orders.stream().noneMatch(o -> o.label().equals("never")), backend.name());
+            assertTrue(orders.stream().allMatch(o -> o.quantity() == 10), backend.name());
+        }
+    }
+
+    @Test
+    public void testUnknownVariableFailsAtCompileTime() {
+        ScriptCompiler compiler = new ScriptCompiler();
+        assertThrows(RuntimeException.class, () -> compiler.compile("if missing > 1:\n    createOrder(\"a\", true, 1)\n"));
+    }
+}
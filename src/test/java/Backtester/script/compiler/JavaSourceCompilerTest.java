@@ -0,0 +1,29 @@
+package Backtester.script.compiler;
+
+import Backtester.script.ScriptBackend;
+import Backtester.script.ScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JavaSourceCompilerTest {
+
+    private static final String SCRIPT = """
+            if crossover(sma(5), sma(20)):
+                createOrder("long", true, 10)
+            """;
+
+    @Test
+    public void testFallsBackToClosuresWithoutACompiler() {
+        ScriptProgram program = new JavaSourceCompiler(() -> null).compile(SCRIPT);
+        assertInstanceOf(CompiledProgram.class, program);
+        assertNotNull(program.newExecutor());
+        assertFalse(new JavaSourceCompiler().compile(SCRIPT) instanceof CompiledProgram);
+    }
+
+    @Test
+    public void testFormerBackendNameStillSelectsIt() {
+        assertEquals(ScriptBackend.JAVA_SOURCE, ScriptBackend.fromName("bytecode"));
+        assertEquals(ScriptBackend.JAVA_SOURCE, ScriptBackend.fromName("java_source"));
+    }
+}
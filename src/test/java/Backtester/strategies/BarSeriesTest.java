@@ -0,0 +1,153 @@
+package Backtester.strategies;
+
+import Backtester.objects.Bar;
+import Backtester.objects.BarSeries;
+import Backtester.objects.PriceRounding;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BarSeriesTest {
+
+    private static List<Bar> bars(int count) {
+        List<Bar> bars = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double close = 100 + 7 * Math.sin(i / 5.0) + 0.013 * i;
+            bars.add(new Bar(i, LocalDate.of(2024, 2, 1).plusDays(i), close - 0.3, close + 1.1, close - 0.9, close, 800 + i));
+        }
+        return bars;
+    }
+
+    @Test
+    public void testViewsMatchTheBars() {
+        List<Bar> bars = bars(40);
+        BarSeries series = BarSeries.of(bars);
+        assertSame(series, BarSeries.of(series));
+        assertEquals(bars.size(), series.size());
+        for (int i = 0; i < bars.size(); i++) {
+            Bar bar = bars.get(i);
+            Bar view = series.get(i);
+            assertEquals(i, view.index);
+            assertEquals(bar.date, view.date);
+            assertEquals(bar.open, view.open);
+            assertEquals(bar.high, view.high);
+            assertEquals(bar.low, view.low);
+            assertEquals(bar.close, view.close);
+            assertEquals(bar.volume, view.volume);
+        }
+        assertEquals(series, BarSeries.of(bars));
+    }
+
+    @Test
+    public void testGeneratedPathsAreColumnar() {
+        List<Bar> base = bars(120);
+        BrownianBridgePricePathGenerator generator = new BrownianBridgePricePathGenerator(base);
+        BarSeries path = generator.generate(42);
+        BarSeries basis = BarSeries.of(base);
+
+        assertEquals(path, generator.generate(42));
+        assertNotEquals(path, generator.generate(43));
+        assertEquals(basis.close[0], path.close[0]);
+        assertEquals(basis.close[119], path.close[119]);
+        assertArrayEquals(basis.volume, path.volume);
+        assertArrayEquals(basis.epochDays, path.epochDays);
+        for (int i = 0; i < path.size(); i++) {
+            assertEquals(PriceRounding.CENTS.round(path.high[i]), path.high[i]);
+            assertEquals(PriceRounding.CENTS.round(path.close[i]), path.close[i]);
+        }
+    }
+
+    @Test
+    public void testPathsGeneratedIntoBuffersMatchFreshPaths() {
+        List<Bar> base = bars(120);
+        BrownianBridgePricePathGenerator generator = new BrownianBridgePricePathGenerator(base);
+        PricePathBuffer buffer = new PricePathBuffer(base.size());
+
+        BarSeries first = generator.generateInto(5, buffer);
+        assertEquals(generator.generate(5), first);
+        assertSame(buffer.close, first.close);
+        BarSeries second = generator.generateInto(6, buffer);
+        assertSame(first, second);
+        assertEquals(generator.generate(6), second);
+        assertThrows(IllegalArgumentException.class, () -> generator.generateInto(1, new PricePathBuffer(10)));
+    }
+
+    @Test
+    public void testAntitheticPathsMirrorEachOther() {
+        List<Bar> base = bars(120);
+        BrownianBridgePricePathGenerator generator = new BrownianBridgePricePathGenerator(base, PriceRounding.NONE);
+        BarSeries first = generator.generateInto(11, 6, PathSampling.ANTITHETIC, new PricePathBuffer(base.size()));
+        BarSeries second = generator.generateInto(11, 7, PathSampling.ANTITHETIC, new PricePathBuffer(base.size()));
+        BarSeries random = generator.generateInto(11, 3, PathSampling.RANDOM, new PricePathBuffer(base.size()));
+
+        assertEquals(generator.generate(MonteCarloRunner.permutationSeed(11, 3)), random);
+        assertNotEquals(first, second);
+        double c0 = base.get(0).close;
+        double drift = Math.log(base.get(119).close / c0) / 119;
+        for (int i = 0; i < base.size(); i++) {
+            double sum = Math.log(first.close[i] / c0) + Math.log(second.close[i] / c0);
+            assertEquals(2 * drift * i, sum, 1e-9);
+        }
+    }
+
+    @Test
+    public void testSampledPathsAverageToTheExpectedCloses() {
+        List<Bar> base = bars(60);
+        BrownianBridgePricePathGenerator generator = new BrownianBridgePricePathGenerator(base, PriceRounding.NONE);
+        double[] expected = generator.expectedCloses();
+        PricePathBuffer buffer = new PricePathBuffer(base.size());
+        for (PathSampling sampling : PathSampling.values()) {
+            double[] sums = new double[base.size()];
+            int paths = 2000;
+            for (int p = 0; p < paths; p++) {
+                BarSeries path = generator.generateInto(3, p, sampling, buffer);
+                for (int i = 0; i < sums.length; i++) sums[i] += path.close[i];
+            }
+            assertEquals(base.get(0).close, expected[0]);
+            assertEquals(base.get(59).close, expected[59]);
+            for (int i = 0; i < sums.length; i++) {
+                assertEquals(expected[i], sums[i] / paths, expected[i] * 0.005, sampling + " bar " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testGeneratedReturnsKeepTheBaseVolatility() {
+        List<Bar> base = bars(400);
+        BarSeries basis = BarSeries.of(base);
+        double baseVariance = 0.0;
+        for (int i = 1; i < basis.size(); i++) baseVariance += Math.pow(Math.log(basis.close[i] / basis.close[i - 1]), 2);
+
+        BrownianBridgePricePathGenerator generator = new BrownianBridgePricePathGenerator(base);
+        PricePathBuffer buffer = new PricePathBuffer(base.size());
+        double variance = 0.0;
+        int paths = 200;
+        for (int seed = 0; seed < paths; seed++) {
+            BarSeries path = generator.generateInto(seed, buffer);
+            for (int i = 1; i < path.size(); i++) variance += Math.pow(Math.log(path.close[i] / path.close[i - 1]), 2);
+        }
+        assertEquals(1.0, variance / paths / baseVariance, 0.1);
+    }
+
+    @Test
+    public void testRunsOverSeriesMatchRunsOverBars() {
+        List<Bar> lookback = bars(30);
+        BarSeries path = new BrownianBridgePricePathGenerator(bars(150)).generate(7);
+        List<Bar> materialized = new ArrayList<>(path);
+        String script = """
+                if crossover(sma(4), sma(12)):
+                    createOrder("long", true, 3)
+                elif close() - open() > 0:
+                    createOrder("short", false, 2, close() + 1)
+                """;
+        RunResult columnar = new StrategyRunner(path, lookback, script, null).run(10_000);
+        RunResult boxed = new StrategyRunner(materialized, lookback, script, null).run(10_000);
+        assertFalse(columnar.trades().isEmpty());
+        assertEquals(boxed.trades().size(), columnar.trades().size());
+        assertArrayEquals(boxed.strategyEquity(), columnar.strategyEquity());
+    }
+}
@@ -0,0 +1,140 @@
+package Backtester.strategies;
+
+import Backtester.objects.Bar;
+import Backtester.script.ScriptBackend;
+import Backtester.script.ScriptProgram;
+import Backtester.script.lanes.LaneCompiler;
+import Backtester.script.lanes.LaneProgram;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchStrategyRunnerTest {
+
+    private static final String CROSSOVER = """
+            fast = sma(5)
+            slow = sma(20)
+            spread = close() - open()
+            if crossover(fast, slow):
+                createOrder("long", true, 10)
+            elif crossover(slow, fast):
+                createOrder("short", false, 10)
+            elif -spread < 2 * 1.5:
+                createOrder("dip", true, 5)
+            """;
+
+    private static final String STATEFUL = """
+            fast = sma(3)
+            slow = sma(10)
+            if crossover(fast, slow):
+                bullish = true
+                entry = close() * 1.02
+            elif crossover(slow, fast):
+                bullish = false
+            stretched = close() > entry
+            if bullish:
+                createOrder("add", stretched, 1)
+            elif high() - low() > 2:
+                createOrder("fade", false, 1, close() + 1)
+            """;
+
+    private static final String CROSSUNDER = """
+            if crossunder(sma(3), sma(8)):
+                createOrder("short", false, 2)
+            elif crossover(sma(3), sma(8)):
+                createOrder("long", true, 2)
+            """;
+
+    // sma(7) is never reached on the first evaluation, so it would start late in a scalar run
+    private static final String LATE_INDICATOR = """
+            if close() > 0:
+                createOrder("always", true, 1)
+            elif close() > sma(7):
+                createOrder("never", true, 1)
+            """;
+
+    // b0 is unassigned until the first crossover, so b2 copies it unassigned and !b2 fails
+    private static final String COPIED_UNASSIGNED = """
+            if crossover(close(), sma(3)):
+                b0 = !false
+            b2 = b0
+            b3 = !b2
+            """;
+
+    private static List<Bar> path(int seed, int count) {
+        List<Bar> bars = new ArrayList<>();
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        for (int i = 0; i < count; i++) {
+            double close = 100 + 8 * Math.sin((i + seed * 3) / (5.0 + seed)) + seed * 0.3;
+            bars.add(new Bar(i, date.plusDays(i), close - 0.4 * Math.cos(i + seed), close + 1.5, close - 1.5, close, 1000 + i));
+        }
+        return bars;
+    }
+
+    private static void assertMatchesScalarRuns(String script) {
+        List<Bar> lookback = path(0, 30);
+        List<List<Bar>> paths = new ArrayList<>();
+        for (int k = 1; k <= 7; k++) paths.add(path(k, 150));
+
+        LaneProgram program = new LaneCompiler().compile(script);
+        assertNotNull(program);
+        ScriptProgram fallback = ScriptBackend.CLOSURE.compile(script);
+        List<RunResult> batched = new BatchStrategyRunner(paths, lookback, program, fallback, null).run(10_000);
+
+        for (int k = 0; k < paths.size(); k++) {
+            RunResult scalar = new StrategyRunner(paths.get(k), lookback, script, null).run(10_000);
+            RunResult lane = batched.get(k);
+            assertEquals(scalar.trades().size(), lane.trades().size());
+            assertEquals(scalar.netProfit(), lane.netProfit());
+            assertEquals(scalar.openPnL(), lane.openPnL());
+            assertArrayEquals(scalar.strategyEquity(), lane.strategyEquity());
+        }
+    }
+
+    @Test
+    public void testCrossoverStrategyMatchesScalarRuns() {
+        assertMatchesScalarRuns(CROSSOVER);
+    }
+
+    @Test
+    public void testStatefulStrategyMatchesScalarRuns() {
+        assertMatchesScalarRuns(STATEFUL);
+    }
+
+    @Test
+    public void testCrossunderStrategyMatchesScalarRuns() {
+        assertMatchesScalarRuns(CROSSUNDER);
+    }
+
+    @Test
+    public void testLateIndicatorFallsBackToScalarRuns() {
+        assertMatchesScalarRuns(LATE_INDICATOR);
+    }
+
+    @Test
+    public void testCopiedUnassignedBooleansFailLikeScalarRuns() {
+        List<Bar> lookback = path(0, 30);
+        List<List<Bar>> paths = List.of(path(1, 150), path(2, 150));
+        LaneProgram program = new LaneCompiler().compile(COPIED_UNASSIGNED);
+        assertNotNull(program);
+        ScriptProgram fallback = ScriptBackend.CLOSURE.compile(COPIED_UNASSIGNED);
+
+        assertThrows(RuntimeException.class,
+                () -> new StrategyRunner(paths.get(0), lookback, COPIED_UNASSIGNED, null).run(10_000));
+        assertThrows(RuntimeException.class,
+                () -> new BatchStrategyRunner(paths, lookback, program, fallback, null).run(10_000));
+    }
+
+    @Test
+    public void testUnsupportedScriptsFallBack() {
+        LaneCompiler compiler = new LaneCompiler();
+        // Equality compares boxed values in the scalar backends
+        assertNull(compiler.compile("if close() == 100:\n    createOrder(\"a\", true, 1)\n"));
+        // Indicator variables must be assigned once at the top level
+        assertNull(compiler.compile("if close() > 100:\n    fast = sma(7)\n"));
+    }
+}
@@ -0,0 +1,79 @@
+package Backtester.strategies;
+
+import Backtester.objects.Bar;
+import Backtester.objects.valueaccumulator.OhlcvField;
+import Backtester.objects.valueaccumulator.key.CrossoverKey;
+import Backtester.objects.valueaccumulator.key.OhlcvKey;
+import Backtester.objects.valueaccumulator.key.SmaKey;
+import Backtester.objects.valueaccumulator.series.IndicatorSeries;
+import Backtester.script.ScriptBackend;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndicatorSeriesTest {
+
+    private static List<Bar> bars(int from, int count) {
+        List<Bar> bars = new ArrayList<>();
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < count; i++) {
+            double close = 50 + 6 * Math.sin((from + i) / 4.0) + 0.37 * ((from + i) % 5);
+            bars.add(new Bar(i, date.plusDays(from + i), close - 0.5, close + 1, close - 1, close, 500 + i));
+        }
+        return bars;
+    }
+
+    private static void assertSameRuns(String script, List<Bar> bars, List<Bar> lookback, IndicatorSeries series) {
+        for (ScriptBackend backend : ScriptBackend.values()) {
+            RunResult rolling = new StrategyRunner(bars, lookback, script, null, backend).run(10_000);
+            RunResult precomputed = new StrategyRunner(bars, lookback, backend.compile(script), series, null).run(10_000);
+            assertEquals(rolling.trades().size(), precomputed.trades().size());
+            assertEquals(rolling.netProfit(), precomputed.netProfit());
+            assertArrayEquals(rolling.strategyEquity(), precomputed.strategyEquity());
+        }
+    }
+
+    @Test
+    public void testPrecomputedIndicatorsMatchRollingOnes() {
+        List<Bar> lookback = bars(-40, 40);
+        List<Bar> bars = bars(0, 200);
+        IndicatorSeries series = new IndicatorSeries(bars, lookback);
+
+        assertSameRuns("""
+                fast = sma(5)
+                slow = sma(21)
+                if crossover(fast, slow):
+                    createOrder("long", true, 10)
+                elif crossover(slow, fast):
+                    createOrder("short", false, 10)
+                """, bars, lookback, series);
+        assertSameRuns("""
+                if crossover(close(), sma(8)):
+                    createOrder("long", true, 5)
+                elif close() < sma(8) - 2:
+                    createOrder("short", false, 5)
+                """, bars, lookback, series);
+        assertNotNull(series.crossover(new CrossoverKey(new OhlcvKey(OhlcvField.CLOSE, 0), new SmaKey(8))));
+        // sma(13) is created on a later bar, where the rolling calculator starts from the lookback bars again
+        assertSameRuns("""
+                if close() > 55:
+                    createOrder("high", false, 1)
+                elif close() > sma(13):
+                    createOrder("low", true, 1)
+                """, bars, lookback, series);
+    }
+
+    @Test
+    public void testSeriesMustMatchTheBars() {
+        List<Bar> lookback = bars(-40, 40);
+        IndicatorSeries series = new IndicatorSeries(bars(0, 50), lookback);
+        assertThrows(IllegalArgumentException.class,
+                () -> new StrategyRunner(bars(1, 50), lookback, ScriptBackend.CLOSURE.compile("x = sma(5)\n"), series, null));
+        // Bars are matched by contents
+        new StrategyRunner(bars(0, 50), lookback, ScriptBackend.CLOSURE.compile("x = sma(5)\n"), series, null);
+    }
+}
@@ -0,0 +1,98 @@
+package Backtester.strategies;
+
+import Backtester.caches.IndicatorStateCache;
+import Backtester.objects.Bar;
+import Backtester.objects.BarFingerprint;
+import Backtester.objects.valueaccumulator.CrossoverDetector;
+import Backtester.objects.valueaccumulator.SmaCalculator;
+import Backtester.objects.valueaccumulator.key.CrossoverKey;
+import Backtester.objects.valueaccumulator.key.SmaKey;
+import Backtester.objects.valueaccumulator.series.IndicatorSeries;
+import Backtester.script.ScriptBackend;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndicatorStateCacheTest {
+
+    private static List<Bar> bars(int count, double shift) {
+        List<Bar> bars = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double close = 100 + 5 * Math.sin(i / 3.0) + shift;
+            bars.add(new Bar(i, LocalDate.of(2024, 1, 1).plusDays(i), close, close + 1, close - 1, close, 1000));
+        }
+        return bars;
+    }
+
+    @Test
+    public void testFingerprintFollowsContents() {
+        List<Bar> bars = bars(30, 0);
+        assertEquals(BarFingerprint.of(bars), BarFingerprint.of(new ArrayList<>(bars)));
+        assertNotEquals(BarFingerprint.of(bars), BarFingerprint.of(bars(30, 0.01)));
+        assertNotEquals(BarFingerprint.of(bars.subList(0, 10), bars.subList(10, 30)),
+                BarFingerprint.of(bars.subList(0, 11), bars.subList(11, 30)));
+    }
+
+    @Test
+    public void testWarmUpStatesAreCopied() {
+        IndicatorStateCache cache = new IndicatorStateCache(IndicatorStateCache.DEFAULT_MAX_WEIGHT);
+        List<Bar> lookback = bars(30, 0);
+        BarFingerprint fingerprint = BarFingerprint.of(lookback);
+        SmaKey key = new SmaKey(10);
+
+        SmaCalculator first = cache.warmUp(fingerprint, key, () -> new SmaCalculator(10, lookback));
+        first.addValue(500);
+        SmaCalculator second = cache.warmUp(fingerprint, key, () -> fail("warm-up state should be cached"));
+        assertEquals(new SmaCalculator(10, lookback).getAverage(), second.getAverage());
+        assertNotSame(first, second);
+        assertEquals(1, cache.hits());
+
+        // Accumulators reading other accumulators are tied to their run
+        SmaCalculator fast = new SmaCalculator(5, lookback);
+        CrossoverKey crossoverKey = new CrossoverKey(new SmaKey(5), key);
+        cache.warmUp(fingerprint, crossoverKey, () -> new CrossoverDetector(fast, second));
+        assertInstanceOf(CrossoverDetector.class, cache.warmUp(fingerprint, crossoverKey, () -> new CrossoverDetector(fast, second)));
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedSeriesAreEvicted() {
+        IndicatorStateCache cache = new IndicatorStateCache(3 * (16 + 8 * 100));
+        BarFingerprint fingerprint = BarFingerprint.of(bars(5, 0));
+        for (int days = 1; days <= 3; days++) cache.series(fingerprint, new SmaKey(days), () -> new double[100]);
+        cache.series(fingerprint, new SmaKey(1), () -> fail("series should be cached"));
+        cache.series(fingerprint, new SmaKey(4), () -> new double[100]);
+
+        assertEquals(3 * (16 + 8 * 100), cache.weight());
+        assertNotNull(cache.series(fingerprint, new SmaKey(1), () -> null));
+        assertNull(cache.series(fingerprint, new SmaKey(2), () -> null));
+    }
+
+    @Test
+    public void testSeparateSeriesOverTheSameDataShareValues() {
+        IndicatorStateCache cache = new IndicatorStateCache(IndicatorStateCache.DEFAULT_MAX_WEIGHT);
+        List<Bar> lookback = bars(30, 0);
+        List<Bar> bars = bars(60, 2);
+        double[] averages = new IndicatorSeries(bars, lookback, cache).sma(20);
+        assertSame(averages, new IndicatorSeries(new ArrayList<>(bars), lookback, cache).sma(20));
+        assertNotSame(averages, new IndicatorSeries(bars(60, 3), lookback, cache).sma(20));
+
+        String script = """
+                if crossover(sma(5), sma(20)):
+                    createOrder("long", true, 1)
+                elif crossover(sma(20), sma(5)):
+                    createOrder("short", false, 1)
+                """;
+        RunResult plain = new StrategyRunner(bars, lookback, script, null).run(10_000);
+        for (int i = 0; i < 2; i++) {
+            RunResult cached = new StrategyRunner(bars, lookback,
+                    ScriptBackend.CLOSURE.compile(script),
+                    new IndicatorSeries(bars, lookback, cache), null).run(10_000);
+            assertArrayEquals(plain.strategyEquity(), cached.strategyEquity());
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package Backtester.strategies;
+
+import Backtester.objects.Bar;
+import Backtester.objects.PriceRounding;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloRunnerTest {
+
+    private static final String SCRIPT = """
+            if crossover(sma(4), sma(12)):
+                createOrder("long", true, 3)
+            elif crossover(sma(12), sma(4)):
+                createOrder("short", false, 3)
+            """;
+
+    private static List<Bar> bars(int count, int offset) {
+        List<Bar> bars = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double close = 100 + 6 * Math.sin((i + offset) / 6.0) + 0.02 * i;
+            bars.add(new Bar(i, LocalDate.of(2023, 1, 1).plusDays(i + offset), close - 0.2, close + 1, close - 1, close, 500));
+        }
+        return bars;
+    }
+
+    private static MonteCarloResult run(int threads, int batchSize, long seed) {
+        MonteCarloRunner runner = new MonteCarloRunner(bars(30, 0), bars(120, 30), SCRIPT, null, PriceRounding.CENTS);
+        runner.setBatchSize(batchSize);
+        return runner.run(37, threads, 10_000, seed);
+    }
+
+    private static void assertSameResult(MonteCarloResult expected, MonteCarloResult actual) {
+        assertEquals(expected.seed, actual.seed);
+        assertArrayEquals(expected.eqMean, actual.eqMean);
+        assertArrayEquals(expected.eqBands, actual.eqBands);
+        assertEquals(expected.probLoss, actual.probLoss);
+        for (String key : expected.getSummaries().keySet()) {
+            StatSummary a = expected.getSummary(key);
+            StatSummary b = actual.getSummary(key);
+            assertEquals(a.mean, b.mean, key);
+            assertEquals(a.median, b.median, key);
+            assertEquals(a.p5, b.p5, key);
+            assertEquals(a.p95, b.p95, key);
+        }
+    }
+
+    @Test
+    public void testSameSeedGivesSameResultWhateverTheScheduling() {
+        MonteCarloResult reference = run(1, 1, 1234);
+        assertSameResult(reference, run(1, 1, 1234));
+        assertSameResult(reference, run(3, 1, 1234));
+        assertSameResult(reference, run(4, 16, 1234));
+        assertSameResult(reference, run(2, 5, 1234));
+        assertSameResult(reference, run(0, 4, 1234));
+        assertSameResult(reference, run(MonteCarloRunner.defaultThreads(), 16, 1234));
+        assertFalse(java.util.Arrays.equals(reference.eqMean, run(2, 16, 4321).eqMean));
+    }
+
+    @Test
+    public void testEquityBandsFanOutAroundTheMedian() {
+        MonteCarloResult result = run(3, 16, 5);
+        assertEquals(MonteCarloResult.BAND_QUANTILES.length, result.eqBands.length);
+        int n = result.eqMean.length;
+        for (double[] band : result.eqBands) assertEquals(n, band.length);
+        for (int i = 0; i < n; i++) {
+            for (int b = 1; b < result.eqBands.length; b++) {
+                assertTrue(result.eqBands[b - 1][i] <= result.eqBands[b][i]);
+            }
+        }
+        assertEquals(10_000, result.eqBands[2][0]);
+        assertTrue(result.eqBands[4][n - 1] > result.eqBands[0][n - 1]);
+    }
+
+    @Test
+    public void testEquityBandsAreExactForSmallRuns() {
+        int permutations = 41;
+        MonteCarloAggregator aggregator = new MonteCarloAggregator(permutations, 100, 8);
+        double[][] byBar = new double[3][permutations];
+        SplittableRandom random = new SplittableRandom(3);
+        for (int p = 0; p < permutations; p++) {
+            double[] equity = new double[3];
+            for (int i = 0; i < equity.length; i++) byBar[i][p] = equity[i] = 10_000 + random.nextGaussian() * 100 * i;
+            aggregator.add(new MonteCarloAggregator.Sample(new double[9], equity, 0.0));
+        }
+        MonteCarloResult result = aggregator.result(0);
+        for (int i = 0; i < byBar.length; i++) {
+            double[] sorted = byBar[i].clone();
+            java.util.Arrays.sort(sorted);
+            for (int b = 0; b < MonteCarloResult.BAND_QUANTILES.length; b++) {
+                double pos = MonteCarloResult.BAND_QUANTILES[b] * (permutations - 1);
+                int lo = (int) Math.floor(pos);
+                double expected = sorted[lo] * (1 - (pos - lo)) + sorted[Math.min(permutations - 1, lo + 1)] * (pos - lo);
+                assertEquals(expected, result.eqBands[b][i], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testSketchedSummariesStayCloseToExactOnes() {
+        MonteCarloResult exact = run(2, 16, 77);
+        MonteCarloRunner runner = new MonteCarloRunner(bars(30, 0), bars(120, 30), SCRIPT, null, PriceRounding.CENTS);
+        runner.setSummaryAccuracy(10, 64);
+        MonteCarloResult sketched = runner.run(37, 3, 10_000, 77);
+
+        assertArrayEquals(exact.eqMean, sketched.eqMean);
+        assertEquals(exact.probLoss, sketched.probLoss);
+        for (String key : exact.getSummaries().keySet()) {
+            StatSummary a = exact.getSummary(key);
+            StatSummary b = sketched.getSummary(key);
+            assertEquals(a.mean, b.mean, Math.abs(a.mean) * 1e-9 + 1e-9, key);
+            assertTrue(b.p5 <= b.median && b.median <= b.p95, key);
+        }
+    }
+
+    @Test
+    public void testRunsStopOnceTargetPrecisionIsReached() {
+        MonteCarloRunner runner = new MonteCarloRunner(bars(30, 0), bars(120, 30), SCRIPT, null, PriceRounding.CENTS);
+        MonteCarloResult full = runner.run(400, 2, 10_000, 9);
+        assertFalse(full.converged);
+        double target = full.getStandardError("Net Profit") * 1.5;
+
+        runner.setTargetPrecision(java.util.Map.of("Net Profit", target, MonteCarloResult.PROB_LOSS, 0.5));
+        MonteCarloResult stopped = runner.run(400, 2, 10_000, 9);
+        assertTrue(stopped.converged);
+        assertTrue(stopped.permutations < 400 && stopped.permutations % 50 == 0);
+        assertTrue(stopped.getStandardError("Net Profit") <= target);
+
+        runner.setBatchSize(1);
+        MonteCarloResult again = runner.run(400, 3, 10_000, 9);
+        assertEquals(stopped.permutations, again.permutations);
+        assertSameResult(stopped, again);
+
+        runner.setTargetPrecision(java.util.Map.of("Net Profit", 1e-9));
+        assertEquals(400, runner.run(400, 2, 10_000, 9).permutations);
+        runner.setTargetPrecision(java.util.Map.of("Nett Profit", 1.0));
+        assertThrows(IllegalArgumentException.class, () -> runner.run(400, 2, 10_000, 9));
+    }
+
+    @Test
+    public void testVarianceReducedRunsAreReproducible() {
+        for (PathSampling sampling : PathSampling.values()) {
+            MonteCarloRunner runner = new MonteCarloRunner(bars(30, 0), bars(120, 30), SCRIPT, null, PriceRounding.CENTS);
+            runner.setSampling(sampling);
+            runner.setControlVariate(true);
+            runner.setBatchSize(1);
+            MonteCarloResult reference = runner.run(37, 1, 10_000, 21);
+            runner.setBatchSize(16);
+            MonteCarloResult again = runner.run(37, 3, 10_000, 21);
+            assertSameResult(reference, again);
+            assertEquals(reference.getStandardError("Sharpe"), again.getStandardError("Sharpe"), sampling.name());
+            assertEquals(reference.getEffectiveSampleSize("Net Profit"), again.getEffectiveSampleSize("Net Profit"));
+        }
+    }
+
+    @Test
+    public void testSobolSamplingRaisesTheEffectiveSampleSize() {
+        MonteCarloRunner runner = new MonteCarloRunner(bars(30, 0), bars(120, 30), SCRIPT, null, PriceRounding.CENTS);
+        MonteCarloResult random = runner.run(400, 2, 10_000, 9);
+        assertEquals(400, random.getEffectiveSampleSize("Net Profit"));
+
+        runner.setSampling(PathSampling.SOBOL);
+        MonteCarloResult sobol = runner.run(400, 2, 10_000, 9);
+        assertTrue(sobol.getEffectiveSampleSize("Net Profit") > 400);
+        assertTrue(sobol.getStandardError("Net Profit") < random.getStandardError("Net Profit"));
+        StatSummary a = random.getSummary("Net Profit");
+        StatSummary b = sobol.getSummary("Net Profit");
+        assertEquals(a.mean, b.mean, 3 * random.getStandardError("Net Profit"));
+    }
+
+    @Test
+    public void testStoppedRunsDoNotKeepGeneratingPaths() throws InterruptedException {
+        java.util.concurrent.atomic.AtomicInteger generated = new java.util.concurrent.atomic.AtomicInteger();
+        BrownianBridgePricePathGenerator bridge = new BrownianBridgePricePathGenerator(bars(120, 30));
+        PricePathGenerator counting = new PricePathGenerator() {
+            @Override
+            public Backtester.objects.BarSeries generate(long seed) {
+                generated.incrementAndGet();
+                try {
+                    Thread.sleep(1); // Slow enough that chunks are still running when the run converges
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return bridge.generate(seed);
+            }
+        };
+        MonteCarloRunner runner = new MonteCarloRunner(bars(30, 0), bars(120, 30), SCRIPT, null, counting);
+        runner.setBatchSize(1);
+        runner.setTargetPrecision(java.util.Map.of(MonteCarloResult.PROB_LOSS, 0.5));
+        MonteCarloResult result = runner.run(20_000, 0, 10_000, 9);
+        assertTrue(result.converged);
+        int atReturn = generated.get();
+        Thread.sleep(500);
+        // At most the permutation each shared worker was running when the run returned
+        assertTrue(generated.get() <= atReturn + MonteCarloRunner.defaultThreads(), atReturn + " then " + generated.get());
+    }
+
+    @Test
+    public void testPermutationSeedsFollowSplittableRandom() {
+        SplittableRandom random = new SplittableRandom(99);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(random.nextLong(), MonteCarloRunner.permutationSeed(99, i));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package Backtester.strategies;
+
+import Backtester.objects.Bar;
+import Backtester.objects.PriceRounding;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceRoundingTest {
+
+    private static double reference(double price, BigDecimal tick) {
+        return BigDecimal.valueOf(price).divide(tick, 0, RoundingMode.HALF_UP).multiply(tick).doubleValue();
+    }
+
+    private static void assertSameAsBigDecimal(PriceRounding rounding, double price) {
+        double expected = reference(price, rounding.getTickSize());
+        double actual = rounding.round(price);
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual),
+                () -> price + " rounded to " + actual + " instead of " + expected);
+    }
+
+    @Test
+    public void testCentsMatchBigDecimalOnRandomPrices() {
+        Random random = new Random(17);
+        for (int i = 0; i < 1_000_000; i++) {
+            double price = Math.exp(random.nextDouble() * 20 - 8);
+            assertSameAsBigDecimal(PriceRounding.CENTS, price);
+            assertSameAsBigDecimal(PriceRounding.CENTS, -price);
+        }
+    }
+
+    @Test
+    public void testCentsMatchBigDecimalNearHalves() {
+        Random random = new Random(3);
+        for (int i = 0; i < 200_000; i++) {
+            // Prices like 12.345 that sit on a half cent in decimal but not in binary
+            double price = (random.nextInt(10_000_000) * 10 + 5) / 1000.0;
+            assertSameAsBigDecimal(PriceRounding.CENTS, price);
+            assertSameAsBigDecimal(PriceRounding.CENTS, Math.nextUp(price));
+            assertSameAsBigDecimal(PriceRounding.CENTS, Math.nextDown(price));
+            assertSameAsBigDecimal(PriceRounding.CENTS, -price);
+        }
+        for (double price : new double[] {1.005, 1.015, 0.125, 2.675, 0.005, -0.005, 0.0049999, 0.0, -0.0, 1e-300}) {
+            assertSameAsBigDecimal(PriceRounding.CENTS, price);
+        }
+        assertEquals(1.01, PriceRounding.CENTS.round(1.005));
+    }
+
+    @Test
+    public void testLargePricesMatchBigDecimal() {
+        for (double price : new double[] {4.5e13, 1e15 + 0.5, 123456789012.345, 1e17, 9.9e18, 1e300}) {
+            assertSameAsBigDecimal(PriceRounding.CENTS, price);
+            assertSameAsBigDecimal(PriceRounding.CENTS, -price);
+        }
+        assertThrows(NumberFormatException.class, () -> PriceRounding.CENTS.round(Double.NaN));
+        assertThrows(NumberFormatException.class, () -> PriceRounding.CENTS.round(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void testOtherTickSizesMatchBigDecimal() {
+        Random random = new Random(5);
+        for (String tick : new String[] {"0.05", "0.0001", "0.25", "1", "5", "0.001"}) {
+            PriceRounding rounding = PriceRounding.of(tick);
+            for (int i = 0; i < 100_000; i++) {
+                double price = Math.exp(random.nextDouble() * 14 - 4);
+                assertSameAsBigDecimal(rounding, price);
+                double half = (random.nextInt(1_000_000) + 0.5) * rounding.getTickSize().doubleValue();
+                assertSameAsBigDecimal(rounding, half);
+                assertSameAsBigDecimal(rounding, -half);
+            }
+        }
+    }
+
+    @Test
+    public void testTicks() {
+        PriceRounding nickels = PriceRounding.of("0.05");
+        assertEquals(2025, nickels.toTicks(101.24));
+        assertEquals(101.25, nickels.fromTicks(2025));
+        assertEquals(-2025, nickels.toTicks(-101.25));
+        assertEquals(101.25, nickels.round(101.23));
+        assertThrows(IllegalArgumentException.class, () -> PriceRounding.of("0"));
+        assertThrows(IllegalArgumentException.class, () -> PriceRounding.of("-0.01"));
+        assertThrows(IllegalStateException.class, () -> PriceRounding.NONE.toTicks(1.0));
+    }
+
+    @Test
+    public void testBarsUseTheirRounding() {
+        LocalDate date = LocalDate.of(2024, 1, 2);
+        Bar cents = new Bar(0, date, 10.004, 10.005, 9.995, 10.0149, 100);
+        assertEquals(10.0, cents.open);
+        assertEquals(10.01, cents.high);
+        assertEquals(10.0, cents.low);
+        assertEquals(10.01, cents.close);
+
+        Bar nickels = new Bar(0, date, 10.024, 10.025, 9.97, 10.0149, 100, PriceRounding.of("0.05"));
+        assertEquals(10.0, nickels.open);
+        assertEquals(10.05, nickels.high);
+        assertEquals(9.95, nickels.low);
+        assertEquals(10.0, nickels.close);
+
+        Bar raw = new Bar(0, date, 10.004, 10.005, 9.995, 10.0149, 100, PriceRounding.NONE);
+        assertEquals(10.0149, raw.close);
+    }
+}
@@ -0,0 +1,96 @@
+package Backtester.strategies;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuantileSketchTest {
+
+    private static double[] values(int n, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) values[i] = random.nextGaussian() * Math.exp(random.nextDouble());
+        return values;
+    }
+
+    private static double rankError(QuantileSketch sketch, double[] sorted, double q) {
+        double estimate = sketch.quantile(q);
+        int below = 0;
+        while (below < sorted.length && sorted[below] < estimate) below++;
+        return Math.abs((double) below / sorted.length - q);
+    }
+
+    @Test
+    public void testQuantilesAreWithinTheRankError() {
+        double[] values = values(300_000, 1);
+        QuantileSketch sketch = new QuantileSketch(200);
+        for (double v : values) sketch.add(v);
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        assertEquals(values.length, sketch.count());
+        assertEquals(sorted[0], sketch.quantile(0));
+        assertEquals(sorted[sorted.length - 1], sketch.quantile(1));
+        for (double q : new double[] {0.01, 0.05, 0.25, 0.5, 0.75, 0.95, 0.99}) {
+            assertTrue(rankError(sketch, sorted, q) < 0.01, "quantile " + q);
+        }
+
+        double es = 0.0;
+        int tail = sorted.length / 20;
+        for (int i = 0; i < tail; i++) es += sorted[i];
+        assertEquals(es / tail, sketch.lowerTailMean(0.05), Math.abs(es / tail) * 0.05);
+    }
+
+    @Test
+    public void testQueriesDoNotChangeTheSketch() {
+        double[] values = values(50_000, 3);
+        QuantileSketch queried = new QuantileSketch(64);
+        QuantileSketch untouched = new QuantileSketch(64);
+        double[] qs = {0.05, 0.25, 0.5, 0.75, 0.95};
+        for (int i = 0; i < values.length; i++) {
+            queried.add(values[i]);
+            untouched.add(values[i]);
+            if (i % 997 == 0) {
+                double[] all = queried.quantiles(qs);
+                for (int j = 0; j < qs.length; j++) assertEquals(queried.quantile(qs[j]), all[j]);
+            }
+        }
+        assertArrayEquals(untouched.quantiles(qs), queried.quantiles(qs));
+        assertEquals(untouched.lowerTailMean(0.05), queried.lowerTailMean(0.05));
+    }
+
+    @Test
+    public void testMergedSketchesMatchTheWholeSet() {
+        double[] values = values(200_000, 2);
+        QuantileSketch[] parts = new QuantileSketch[4];
+        for (int p = 0; p < parts.length; p++) parts[p] = new QuantileSketch(200);
+        for (int i = 0; i < values.length; i++) parts[i % parts.length].add(values[i]);
+        QuantileSketch merged = new QuantileSketch(200);
+        for (QuantileSketch part : parts) merged.merge(part);
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        assertEquals(values.length, merged.count());
+        assertEquals(sorted[0], merged.quantile(0));
+        for (double q : new double[] {0.05, 0.5, 0.95}) {
+            assertTrue(rankError(merged, sorted, q) < 0.01, "quantile " + q);
+        }
+    }
+
+    @Test
+    public void testSameValuesGiveTheSameSketch() {
+        double[] values = values(50_000, 3);
+        QuantileSketch a = new QuantileSketch(64);
+        QuantileSketch b = new QuantileSketch(64);
+        for (double v : values) {
+            a.add(v);
+            b.add(v);
+        }
+        for (double q = 0.0; q <= 1.0; q += 0.05) assertEquals(a.quantile(q), b.quantile(q));
+        assertEquals(0.0, new QuantileSketch(64).quantile(0.5));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(4));
+    }
+}
@@ -0,0 +1,52 @@
+package Backtester.strategies;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SobolSequenceTest {
+
+    @Test
+    public void testEveryDimensionIsStratified() {
+        int points = 1 << 8;
+        for (int d = 0; d < SobolSequence.DIMENSIONS; d++) {
+            boolean[] seen = new boolean[points];
+            for (int i = 0; i < points; i++) {
+                int cell = SobolSequence.bits(d, i) >>> 24;
+                assertFalse(seen[cell], "dimension " + d);
+                seen[cell] = true;
+            }
+        }
+    }
+
+    @Test
+    public void testFirstTwoDimensionsFillEveryElementaryBox() {
+        // The first 2^m points put exactly one point in every 2^a by 2^(m-a) box
+        int m = 6;
+        for (int a = 0; a <= m; a++) {
+            boolean[][] seen = new boolean[1 << a][1 << (m - a)];
+            for (int i = 0; i < 1 << m; i++) {
+                int x = a == 0 ? 0 : SobolSequence.bits(0, i) >>> (32 - a);
+                int y = a == m ? 0 : SobolSequence.bits(1, i) >>> (32 - (m - a));
+                assertFalse(seen[x][y]);
+                seen[x][y] = true;
+            }
+        }
+    }
+
+    @Test
+    public void testShiftedNormalsAreStandard() {
+        int points = 1 << 12;
+        double sum = 0.0;
+        double sumSquares = 0.0;
+        for (int i = 0; i < points; i++) {
+            double z = SobolSequence.normal(3, i, 0x5bd1e995);
+            sum += z;
+            sumSquares += z * z;
+        }
+        assertEquals(0.0, sum / points, 0.01);
+        assertEquals(1.0, sumSquares / points, 0.01);
+        assertEquals(1.959964, SobolSequence.inverseNormal(0.975), 1e-6);
+        assertEquals(-SobolSequence.inverseNormal(0.01), SobolSequence.inverseNormal(0.99), 1e-12);
+    }
+}
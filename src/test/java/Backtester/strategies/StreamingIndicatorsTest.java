@@ -0,0 +1,188 @@
+package Backtester.strategies;
+
+import Backtester.objects.Bar;
+import Backtester.objects.valueaccumulator.*;
+import Backtester.script.ScriptBackend;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingIndicatorsTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static List<Bar> bars(int count) {
+        return bars(0, count);
+    }
+
+    // Bars are indexed from 0, as the OHLCV functions expect of a run's bars
+    private static List<Bar> bars(int from, int count) {
+        List<Bar> bars = new ArrayList<>();
+        LocalDate date = LocalDate.of(2023, 1, 1);
+        for (int j = 0; j < count; j++) {
+            int i = from + j;
+            double close = 80 + 10 * Math.sin(i / 6.0) + 3 * Math.cos(i * 1.7);
+            bars.add(new Bar(j, date.plusDays(i), close + Math.sin(i), close + 2 + (i % 3), close - 1.5 - (i % 2), close, 1000 + 37L * (i % 11)));
+        }
+        return bars;
+    }
+
+    // Recomputes an indicator from scratch at every bar and compares it with the rolling value
+    private static void assertRollsLike(StreamingIndicator indicator, List<Bar> history, int lookback,
+                                        ToDoubleFunction<List<Bar>> reference) {
+        for (int i = lookback; i < history.size(); i++) {
+            indicator.roll(history.get(i));
+            double expected = reference.applyAsDouble(history.subList(0, i + 1));
+            assertEquals(expected, indicator.getDouble(), EPSILON * Math.max(1, Math.abs(expected)), "bar " + i);
+        }
+    }
+
+    private static double mean(List<Bar> bars, int n) {
+        double sum = 0;
+        for (Bar bar : bars.subList(bars.size() - n, bars.size())) sum += bar.close;
+        return sum / n;
+    }
+
+    private static double deviation(List<Bar> bars, int n) {
+        double mean = mean(bars, n);
+        double sum = 0;
+        for (Bar bar : bars.subList(bars.size() - n, bars.size())) sum += (bar.close - mean) * (bar.close - mean);
+        return Math.sqrt(sum / n);
+    }
+
+    private static double ema(List<Double> values, int n) {
+        double ema = 0;
+        for (int i = 0; i < n; i++) ema += values.get(i);
+        ema /= n;
+        for (int i = n; i < values.size(); i++) ema = ema + 2.0 / (n + 1) * (values.get(i) - ema);
+        return ema;
+    }
+
+    private static double wilder(List<Double> values, int n) {
+        double average = 0;
+        for (int i = 0; i < n; i++) average += values.get(i);
+        average /= n;
+        for (int i = n; i < values.size(); i++) average = (average * (n - 1) + values.get(i)) / n;
+        return average;
+    }
+
+    private static List<Double> closes(List<Bar> bars) {
+        return bars.stream().map(bar -> bar.close).toList();
+    }
+
+    @Test
+    public void testIndicatorsMatchFullRecomputation() {
+        List<Bar> history = bars(300);
+        List<Bar> lookback = history.subList(0, 60);
+
+        assertRollsLike(new EmaCalculator(12, lookback), history, 60, bars -> ema(closes(bars), 12));
+        assertRollsLike(new StandardDeviationCalculator(20, lookback), history, 60, bars -> deviation(bars, 20));
+        assertRollsLike(new BollingerBandCalculator(20, 2, true, lookback), history, 60,
+                bars -> mean(bars, 20) + 2 * deviation(bars, 20));
+        assertRollsLike(new BollingerBandCalculator(20, 2, false, lookback), history, 60,
+                bars -> mean(bars, 20) - 2 * deviation(bars, 20));
+        assertRollsLike(new RollingExtremeCalculator(15, true, lookback), history, 60,
+                bars -> bars.subList(bars.size() - 15, bars.size()).stream().mapToDouble(bar -> bar.high).max().orElseThrow());
+        assertRollsLike(new RollingExtremeCalculator(15, false, lookback), history, 60,
+                bars -> bars.subList(bars.size() - 15, bars.size()).stream().mapToDouble(bar -> bar.low).min().orElseThrow());
+        assertRollsLike(new VwapCalculator(10, lookback), history, 60, bars -> {
+            double pv = 0, volume = 0;
+            for (Bar bar : bars.subList(bars.size() - 10, bars.size())) {
+                pv += (bar.high + bar.low + bar.close) / 3.0 * bar.volume;
+                volume += bar.volume;
+            }
+            return pv / volume;
+        });
+        assertRollsLike(new RsiCalculator(14, lookback), history, 60, bars -> {
+            List<Double> gains = new ArrayList<>(), losses = new ArrayList<>();
+            for (int i = 1; i < bars.size(); i++) {
+                double change = bars.get(i).close - bars.get(i - 1).close;
+                gains.add(Math.max(change, 0));
+                losses.add(Math.max(-change, 0));
+            }
+            return 100 - 100 / (1 + wilder(gains, 14) / wilder(losses, 14));
+        });
+        assertRollsLike(new AtrCalculator(14, lookback), history, 60, bars -> {
+            List<Double> ranges = new ArrayList<>();
+            for (int i = 1; i < bars.size(); i++) {
+                Bar bar = bars.get(i);
+                double previous = bars.get(i - 1).close;
+                ranges.add(Math.max(bar.high - bar.low, Math.max(Math.abs(bar.high - previous), Math.abs(bar.low - previous))));
+            }
+            return wilder(ranges, 14);
+        });
+        assertRollsLike(new MacdCalculator(12, 26, 9, false, lookback), history, 60,
+                bars -> ema(closes(bars), 12) - ema(closes(bars), 26));
+        assertRollsLike(new MacdCalculator(12, 26, 9, true, lookback), history, 60, bars -> {
+            List<Double> closes = closes(bars);
+            List<Double> line = new ArrayList<>();
+            for (int i = 26; i <= closes.size(); i++) {
+                line.add(ema(closes.subList(0, i), 12) - ema(closes.subList(0, i), 26));
+            }
+            return ema(line, 9);
+        });
+    }
+
+    @Test
+    public void testWarmUpAndCopies() {
+        List<Bar> history = bars(40);
+        assertThrows(IllegalArgumentException.class, () -> new RsiCalculator(14, history.subList(0, 14)));
+        assertThrows(IllegalArgumentException.class, () -> new MacdCalculator(12, 26, 9, true, history.subList(0, 33)));
+        new MacdCalculator(12, 26, 9, true, history.subList(0, 34));
+
+        RollingExtremeCalculator highest = new RollingExtremeCalculator(5, true, history.subList(0, 10));
+        RollingExtremeCalculator copy = highest.copy();
+        for (Bar bar : history.subList(10, 20)) copy.roll(bar);
+        assertNotEquals(highest.getDouble(), copy.getDouble());
+        for (Bar bar : history.subList(10, 20)) highest.roll(bar);
+        assertEquals(highest.getDouble(), copy.getDouble());
+    }
+
+    @Test
+    public void testIndicatorFunctionsInScripts() {
+        List<Bar> lookback = bars(60);
+        List<Bar> bars = bars(60, 200);
+        String script = """
+                if crossover(ema(10), sma(30)):
+                    createOrder("trend", true, 10)
+                elif rsi(14) > 70:
+                    createOrder("overbought", false, 10)
+                elif close() < bblower(20, 2) - atr(14):
+                    createOrder("stretch", true, 5)
+                elif macd(12, 26) < macdsignal(12, 26, 9) - stdev(10):
+                    createOrder("momentum", false, 5)
+                elif close() >= highest(20) - vwap(5) + lowest(20):
+                    createOrder("breakout", true, 1)
+                """;
+        RunResult reference = new StrategyRunner(bars, lookback, script, null, ScriptBackend.INTERPRETER).run(10_000);
+        assertFalse(reference.trades().isEmpty());
+        for (ScriptBackend backend : ScriptBackend.values()) {
+            RunResult result = new StrategyRunner(bars, lookback, script, null, backend).run(10_000);
+            assertEquals(reference.trades().size(), result.trades().size());
+            assertArrayEquals(reference.strategyEquity(), result.strategyEquity());
+        }
+    }
+
+    @Test
+    public void testDaysArgumentsParseAlikeForEveryIndicator() {
+        List<Bar> lookback = bars(60);
+        List<Bar> bars = bars(60, 40);
+        for (String fn : new String[] {"sma", "ema", "rsi"}) {
+            String withVariable = "n = 10\nif close() > " + fn + "(n):\n    createOrder(\"a\", true, 1)\n";
+            new StrategyRunner(bars, lookback, withVariable, null, ScriptBackend.CLOSURE).run(10_000);
+            for (String days : new String[] {"0", "7 / 2", "-4"}) {
+                String script = "if close() > " + fn + "(" + days + "):\n    createOrder(\"a\", true, 1)\n";
+                RuntimeException e = assertThrows(RuntimeException.class,
+                        () -> new StrategyRunner(bars, lookback, script, null, ScriptBackend.CLOSURE).run(10_000));
+                Throwable cause = e;
+                while (!(cause instanceof IllegalArgumentException) && cause.getCause() != null) cause = cause.getCause();
+                assertInstanceOf(IllegalArgumentException.class, cause, fn + "(" + days + ")");
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package Backtester.strategies;
+
+import Backtester.caches.ValueAccumulatorCache;
+import Backtester.objects.Bar;
+import Backtester.objects.valueaccumulator.BollingerBandCalculator;
+import Backtester.objects.valueaccumulator.CrossoverDetector;
+import Backtester.objects.valueaccumulator.MacdCalculator;
+import Backtester.objects.valueaccumulator.SmaCalculator;
+import Backtester.objects.valueaccumulator.StreamingIndicator;
+import Backtester.objects.valueaccumulator.ValueAccumulatorType;
+import Backtester.objects.valueaccumulator.key.IndicatorKey;
+import Backtester.objects.valueaccumulator.key.CrossoverKey;
+import Backtester.objects.valueaccumulator.key.SmaKey;
+import Backtester.script.ScriptBackend;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValueAccumulatorCacheTest {
+
+    private static List<Bar> bars(double... closes) {
+        List<Bar> bars = new ArrayList<>();
+        for (int i = 0; i < closes.length; i++) {
+            bars.add(new Bar(i, LocalDate.of(2024, 1, 1).plusDays(i), closes[i], closes[i], closes[i], closes[i], 0L));
+        }
+        return bars;
+    }
+
+    @Test
+    public void testAccumulatorsGetDenseIdsInCreationOrder() {
+        ValueAccumulatorCache cache = new ValueAccumulatorCache();
+        List<Bar> lookback = bars(1, 2, 3);
+        SmaCalculator fast = new SmaCalculator(1, lookback);
+        SmaCalculator slow = new SmaCalculator(3, lookback);
+        cache.put(new SmaKey(1), fast);
+        cache.put(new SmaKey(3), slow);
+        CrossoverKey key = new CrossoverKey(new SmaKey(1), new SmaKey(3));
+        cache.put(key, new CrossoverDetector(fast, slow));
+
+        assertEquals(3, cache.size());
+        assertEquals(0, cache.idOf(new SmaKey(1)));
+        assertEquals(2, cache.idOf(key));
+        assertSame(slow, cache.get(cache.idOf(new SmaKey(3))));
+        assertNull(cache.getValueAccumulator(new SmaKey(7)));
+
+        // The detector reads the shared averages after they roll
+        cache.roll(bars(0).getFirst());
+        assertFalse(cache.get(2).getBoolean());
+        cache.roll(bars(9).getFirst());
+        assertTrue(cache.get(2).getBoolean());
+    }
+
+    @Test
+    public void testInputsMustBeCachedFirst() {
+        ValueAccumulatorCache cache = new ValueAccumulatorCache();
+        List<Bar> lookback = bars(1, 2, 3);
+        SmaCalculator fast = new SmaCalculator(1, lookback);
+        SmaCalculator slow = new SmaCalculator(3, lookback);
+        cache.put(new SmaKey(1), fast);
+        assertThrows(RuntimeException.class,
+                () -> cache.put(new CrossoverKey(new SmaKey(1), new SmaKey(3)), new CrossoverDetector(fast, slow)));
+    }
+
+    @Test
+    public void testCrossoversShareTheirInputs() {
+        List<Bar> lookback = bars(5, 5, 5, 5, 5, 5, 5, 5, 5, 5);
+        List<Bar> bars = bars(5, 4, 3, 4, 6, 8, 7, 5, 3, 2, 4, 7, 9);
+        String script = """
+                if crossover(sma(2), sma(5)):
+                    createOrder("up", true, 1)
+                elif crossover(sma(5), sma(2)):
+                    createOrder("down", false, 1)
+                """;
+        RunContext context = new RunContext(bars, lookback);
+        ScriptBackend.INTERPRETER.compile(script).newExecutor().evaluate(context);
+        // Two averages and two detectors, no private copies
+        assertEquals(4, context.valueAccumulatorCache.size());
+
+        RunResult interpreted = new StrategyRunner(bars, lookback, script, null, ScriptBackend.INTERPRETER).run(1_000);
+        RunResult compiled = new StrategyRunner(bars, lookback, script, null, ScriptBackend.JAVA_SOURCE).run(1_000);
+        assertFalse(interpreted.trades().isEmpty());
+        assertArrayEquals(interpreted.strategyEquity(), compiled.strategyEquity());
+    }
+
+    @Test
+    public void testCrossunderSharesTheCrossoverDetector() {
+        List<Bar> bars = bars(5, 4, 3, 4, 6, 8, 7, 5, 3, 2, 4, 7, 9);
+        String script = """
+                a = crossover(sma(5), sma(2))
+                b = crossunder(sma(2), sma(5))
+                """;
+        RunContext context = new RunContext(bars, bars(5, 5, 5, 5, 5));
+        ScriptBackend.INTERPRETER.compile(script).newExecutor().evaluate(context);
+        assertEquals(3, context.valueAccumulatorCache.size());
+    }
+
+    @Test
+    public void testDerivedIndicatorsReadSharedInputs() {
+        List<Bar> history = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            history.add(new Bar(i, LocalDate.of(2024, 1, 1).plusDays(i), 0, 0, 0, 50 + 10 * Math.sin(i / 4.0), 0L));
+        }
+        List<Bar> lookback = history.subList(0, 40);
+        String script = """
+                upper = bbupper(20, 2)
+                lower = bblower(20, 2)
+                line = macd(12, 26)
+                signal = macdsignal(12, 26, 9)
+                """;
+        RunContext context = new RunContext(history.subList(40, 80), lookback);
+        ScriptBackend.INTERPRETER.compile(script).newExecutor().evaluate(context);
+        // stdev(20), two bands, ema(12), ema(26), the MACD line and its signal
+        ValueAccumulatorCache cache = context.valueAccumulatorCache;
+        assertEquals(7, cache.size());
+        assertNotEquals(-1, cache.idOf(new IndicatorKey(ValueAccumulatorType.STDEV, 20)));
+        assertNotEquals(-1, cache.idOf(new IndicatorKey(ValueAccumulatorType.EMA, 26)));
+
+        List<StreamingIndicator> standalone = List.of(
+                new BollingerBandCalculator(20, 2, true, lookback),
+                new BollingerBandCalculator(20, 2, false, lookback),
+                new MacdCalculator(12, 26, 1, false, lookback),
+                new MacdCalculator(12, 26, 9, true, lookback));
+        for (Bar bar : history.subList(40, 80)) {
+            cache.roll(bar);
+            for (StreamingIndicator indicator : standalone) {
+                indicator.roll(bar);
+                IndicatorKey key = new IndicatorKey(indicator.getType(), indicator.getSettings());
+                assertEquals(indicator.getDouble(), cache.getValueAccumulator(key).getDouble());
+            }
+        }
+    }
+}